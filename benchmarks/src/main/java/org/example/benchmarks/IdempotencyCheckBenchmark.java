@@ -0,0 +1,106 @@
+package org.example.benchmarks;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.example.inventoryservice.idempotency.TieredIdempotencyStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The duplicate check {@code InventoryListener} runs for every order, through {@link TieredIdempotencyStore}
+ * (Caffeine {@code orderCache}, Bloom filter, then {@code processed_orders} in H2):
+ * <ul>
+ *     <li>{@code cacheHit} - a redelivery of a recently processed order</li>
+ *     <li>{@code newOrder} - an order never seen before, the common case</li>
+ *     <li>{@code evicted} - a processed order no longer in the cache, answered by the repository</li>
+ * </ul>
+ * {@code bloom=false} shows the cost of going to the repository on every cache miss.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdempotencyCheckBenchmark {
+
+    private static final int PROCESSED = 100_000;
+    private static final int CACHED = 10_000;
+    private static final int BATCH = 100;
+
+    @Param({"cacheHit", "newOrder", "evicted"})
+    public String scenario;
+
+    @Param({"true", "false"})
+    public boolean bloom;
+
+    private Cache<String, Boolean> orderCache;
+    private TieredIdempotencyStore store;
+    private String[] orderIds;
+    private List<List<String>> batches;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        JdbcTemplate jdbcTemplate = InventoryFixtures.database();
+        InventoryFixtures.insertProcessed(jdbcTemplate, "order-", PROCESSED);
+        orderCache = InventoryFixtures.orderCache();
+        store = InventoryFixtures.idempotencyStore(jdbcTemplate, orderCache, bloom);
+
+        orderIds = new String[CACHED];
+        for (int i = 0; i < CACHED; i++) {
+            orderIds[i] = switch (scenario) {
+                case "cacheHit" -> "order-" + i;
+                case "newOrder" -> "new-" + i;
+                default -> "order-" + (PROCESSED - CACHED + i);
+            };
+            if ("cacheHit".equals(scenario)) {
+                store.markProcessed(orderIds[i]);
+            }
+        }
+        batches = new ArrayList<>();
+        for (int i = 0; i < CACHED; i += BATCH) {
+            batches.add(List.of(orderIds).subList(i, i + BATCH));
+        }
+    }
+
+    @Benchmark
+    public boolean isProcessed() {
+        String orderId = orderIds[next++ % orderIds.length];
+        boolean processed = store.isProcessed(orderId);
+        if ("evicted".equals(scenario)) {
+            // a repository hit caches the id; keep the scenario a cache miss
+            orderCache.invalidate(orderId);
+        }
+        return processed;
+    }
+
+    /**
+     * One batch listener call: {@value BATCH} ids resolved with a single lookup.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public Set<String> findProcessed() {
+        List<String> batch = batches.get(next++ % batches.size());
+        Set<String> processed = store.findProcessed(batch);
+        if ("evicted".equals(scenario)) {
+            orderCache.invalidateAll(batch);
+        }
+        return processed;
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.benchmarks;
+
+import org.example.common.OrderMessage;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stands in for RabbitMQ in the pipeline benchmark: published orders are converted with the publisher's
+ * converter exactly as on the wire, kept in one in-memory queue and confirmed (acked) at once.
+ * Not thread-safe; the benchmark publishes and consumes on one thread.
+ */
+class InProcessBroker extends RabbitTemplate {
+
+    private final List<Message> queue = new ArrayList<>();
+    private long deliveryTag;
+
+    InProcessBroker(MessageConverter publisherConverter) {
+        setMessageConverter(publisherConverter);
+    }
+
+    @Override
+    public <T> T invoke(OperationsCallback<T> action) {
+        return action.doInRabbit(this);
+    }
+
+    @Override
+    public void convertAndSend(String exchange, String routingKey, Object object, CorrelationData correlationData) {
+        Message message = getMessageConverter().toMessage(object, new MessageProperties());
+        message.getMessageProperties().setDeliveryTag(++deliveryTag);
+        queue.add(message);
+        correlationData.getFuture().complete(new CorrelationData.Confirm(true, null));
+    }
+
+    /**
+     * Deliver everything queued, converted by the consumer's converter as a batch listener receives it.
+     */
+    List<org.springframework.messaging.Message<OrderMessage>> drain(MessageConverter consumerConverter) {
+        List<org.springframework.messaging.Message<OrderMessage>> delivered = new ArrayList<>(queue.size());
+        for (Message message : queue) {
+            MessageProperties properties = message.getMessageProperties();
+            properties.setInferredArgumentType(OrderMessage.class);
+            OrderMessage order = (OrderMessage) consumerConverter.fromMessage(message);
+            delivered.add(MessageBuilder.withPayload(order)
+                    .setHeader(AmqpHeaders.DELIVERY_TAG, properties.getDeliveryTag())
+                    .build());
+        }
+        queue.clear();
+        return delivered;
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.benchmarks;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.inventoryservice.config.CaffeineConfig;
+import org.example.inventoryservice.idempotency.TieredIdempotencyStore;
+import org.example.inventoryservice.model.InventoryOrder;
+import org.example.inventoryservice.repository.DatabaseProcessedOrderStore;
+import org.example.inventoryservice.repository.InventoryOrderJdbcRepository;
+import org.example.inventoryservice.repository.InventoryOrderRepository;
+import org.example.inventoryservice.repository.ProcessedOrderStore;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * inventory-service collaborators wired by hand over an in-memory H2 database, without a Spring context.
+ * The JPA repository behind the database order store is replaced by a JDBC-backed proxy implementing the
+ * two queries the idempotency store issues.
+ */
+final class InventoryFixtures {
+
+    private InventoryFixtures() {
+    }
+
+    static JdbcTemplate database() {
+        return database("jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    }
+
+    static JdbcTemplate database(String url) {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(url, "sa", "", true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE processed_orders (order_id VARCHAR(255) PRIMARY KEY, "
+                + "order_type VARCHAR(255), store_id VARCHAR(255), processed_at TIMESTAMP(6))");
+        return jdbcTemplate;
+    }
+
+    static void insertProcessed(JdbcTemplate jdbcTemplate, String prefix, int count) {
+        InventoryOrderJdbcRepository repository = new InventoryOrderJdbcRepository(jdbcTemplate);
+        List<InventoryOrder> chunk = new ArrayList<>(10_000);
+        for (int i = 0; i < count; i++) {
+            InventoryOrder order = new InventoryOrder();
+            order.setOrderId(prefix + i);
+            order.setOrderType("IN_STORE");
+            order.setStoreId("store-" + (i % 100));
+            order.setProcessedAt(LocalDateTime.now());
+            chunk.add(order);
+            if (chunk.size() == 10_000 || i == count - 1) {
+                repository.insertAll(chunk);
+                chunk.clear();
+            }
+        }
+    }
+
+    static Cache<String, Boolean> orderCache() {
+        return new CaffeineConfig().orderCache();
+    }
+
+    static TieredIdempotencyStore idempotencyStore(JdbcTemplate jdbcTemplate, Cache<String, Boolean> orderCache,
+                                                   boolean bloomEnabled) {
+        TieredIdempotencyStore store = new TieredIdempotencyStore(orderCache, orderStore(jdbcTemplate), bloomEnabled, true, "amqp", 1_000_000, 0.01, new SimpleMeterRegistry());
+        store.rebuild();
+        return store;
+    }
+
+    static ProcessedOrderStore orderStore(JdbcTemplate jdbcTemplate) {
+        return new DatabaseProcessedOrderStore(repository(jdbcTemplate), new InventoryOrderJdbcRepository(jdbcTemplate),
+                jdbcTemplate);
+    }
+
+    private static InventoryOrderRepository repository(JdbcTemplate jdbcTemplate) {
+        return (InventoryOrderRepository) Proxy.newProxyInstance(InventoryFixtures.class.getClassLoader(),
+                new Class<?>[]{InventoryOrderRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "existsById" -> jdbcTemplate.queryForObject(
+                            "SELECT COUNT(*) FROM processed_orders WHERE order_id = ?", Integer.class, args[0]) > 0;
+                    case "findExistingOrderIds" -> findExisting(jdbcTemplate, (Collection<?>) args[0]);
+                    case "toString" -> "JdbcInventoryOrderRepository";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static List<String> findExisting(JdbcTemplate jdbcTemplate, Collection<?> orderIds) {
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(",", Collections.nCopies(orderIds.size(), "?"));
+        return jdbcTemplate.queryForList("SELECT order_id FROM processed_orders WHERE order_id IN (" + placeholders + ")",
+                String.class, orderIds.toArray());
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import org.example.orderservice.model.OrderRequest;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * The tree-based transform that order-service used before the streaming binder, kept here as the
+ * baseline for {@link OrderTransformerBenchmark}.
+ */
+public class LegacyTreeOrderTransformer {
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final XmlMapper xmlMapper = new XmlMapper();
+
+    public OrderRequest transform(String rawPayload, String contentType) throws IOException {
+        if (contentType.contains("json")) {
+            return transform(jsonMapper, jsonMapper.readTree(rawPayload), "orderId", "orderType", "storeId", "details");
+        }
+        JsonNode root = xmlMapper.readTree(rawPayload);
+        JsonNode header = root.path("Header");
+        Map<String, Object> details = detailsOf(xmlMapper, root.path("Details"));
+        return new OrderRequest(header.path("Id").asText(), header.path("Type").asText(),
+                header.path("Location").asText(), details);
+    }
+
+    private OrderRequest transform(ObjectMapper mapper, JsonNode root, String id, String type, String store,
+                                   String details) throws IOException {
+        return new OrderRequest(root.path(id).asText(), root.path(type).asText(), root.path(store).asText(),
+                detailsOf(mapper, root.path(details)));
+    }
+
+    private Map<String, Object> detailsOf(ObjectMapper mapper, JsonNode detailsNode) throws IOException {
+        Map<String, Object> details = new HashMap<>();
+        if (!detailsNode.isMissingNode()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = detailsNode.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                details.put(field.getKey(), mapper.treeToValue(field.getValue(), Object.class));
+            }
+        }
+        return details;
+    }
+}
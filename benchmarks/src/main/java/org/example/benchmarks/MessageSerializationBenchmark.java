@@ -0,0 +1,82 @@
+package org.example.benchmarks;
+
+import org.example.common.OrderMessage;
+import org.example.inventoryservice.model.InventoryOrder;
+import org.example.orderservice.model.OrderRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Message conversion on both ends of the queue, through the converters the services actually register:
+ * {@code OrderRequest} to an AMQP message in order-service, and the AMQP message back to the
+ * {@code InventoryOrder} entity in inventory-service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageSerializationBenchmark {
+
+    @Param({"binary", "json"})
+    public String wireFormat;
+
+    @Param({"0", "10", "100"})
+    public int detailsSize;
+
+    private MessageConverter publisherConverter;
+    private MessageConverter consumerConverter;
+    private OrderRequest request;
+    private Message message;
+
+    @Setup
+    public void setUp() throws IOException {
+        publisherConverter = new org.example.orderservice.config.RabbitMQConfig().messageConverter(wireFormat);
+        consumerConverter = new org.example.inventoryservice.config.RabbitMQConfig().messageConverter();
+        request = OrderPayloads.transformer().transform(OrderPayloads.json(detailsSize).getBytes(StandardCharsets.UTF_8),
+                MediaType.APPLICATION_JSON);
+        message = publisherConverter.toMessage(toOrderMessage(request), new MessageProperties());
+        // what the listener adapter sets from the parameter type
+        message.getMessageProperties().setInferredArgumentType(OrderMessage.class);
+    }
+
+    @Benchmark
+    public Message serializeOrderRequest() {
+        return publisherConverter.toMessage(toOrderMessage(request), new MessageProperties());
+    }
+
+    @Benchmark
+    public InventoryOrder deserializeInventoryOrder() {
+        OrderMessage order = (OrderMessage) consumerConverter.fromMessage(message);
+        InventoryOrder inventoryOrder = new InventoryOrder();
+        inventoryOrder.setOrderId(order.getOrderId());
+        inventoryOrder.setOrderType(order.getOrderType());
+        inventoryOrder.setStoreId(order.getStoreId());
+        inventoryOrder.setProcessedAt(LocalDateTime.now());
+        return inventoryOrder;
+    }
+
+    private static OrderMessage toOrderMessage(OrderRequest request) {
+        return new OrderMessage(request.getOrderId(), request.getOrderType(), request.getStoreId(),
+                request.getDetails());
+    }
+}
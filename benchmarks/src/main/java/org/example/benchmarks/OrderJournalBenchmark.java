@@ -0,0 +1,161 @@
+package org.example.benchmarks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.inventoryservice.journal.OrderJournal;
+import org.example.inventoryservice.model.InventoryOrder;
+import org.example.inventoryservice.repository.InventoryOrderJdbcRepository;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes of processed orders to each persistence backend, 100 orders per operation, either one write per
+ * order ({@code batchSize=1}, the single-order listener path) or one write of all 100 (the batch listener):
+ * <ul>
+ *     <li>{@code jpa}: {@code EntityManager.merge} and commit, as {@code InventoryOrderRepository.save} does
+ *     for an entity with an assigned id</li>
+ *     <li>{@code jdbc}: the batch insert of the database order store</li>
+ *     <li>{@code journal}: {@link OrderJournal}, forced to disk by its interval rather than per write</li>
+ * </ul>
+ * The database is an H2 file rather than the in-memory default, so every backend keeps what it writes.
+ * Each iteration starts from an empty table or journal directory. Scores are per order.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderJournalBenchmark {
+
+    private static final int ORDERS = 100;
+
+    @Param({"jpa", "jdbc", "journal"})
+    public String backend;
+
+    @Param({"1", "100"})
+    public int batchSize;
+
+    private Path directory;
+    private JdbcTemplate jdbcTemplate;
+    private InventoryOrderJdbcRepository orderJdbcRepository;
+    private EntityManagerFactory entityManagerFactory;
+    private EntityManager entityManager;
+    private OrderJournal journal;
+    private long nextOrderId;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("order-journal-bench");
+        if (!backend.equals("journal")) {
+            jdbcTemplate = InventoryFixtures.database("jdbc:h2:file:" + directory.resolve("orders").toAbsolutePath());
+            orderJdbcRepository = new InventoryOrderJdbcRepository(jdbcTemplate);
+        }
+        if (backend.equals("jpa")) {
+            LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+            factory.setDataSource(jdbcTemplate.getDataSource());
+            factory.setPackagesToScan("org.example.inventoryservice.model");
+            factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            // Column names as Spring Boot maps them, onto the table created above
+            factory.setJpaPropertyMap(Map.of("hibernate.physical_naming_strategy",
+                    CamelCaseToUnderscoresNamingStrategy.class.getName()));
+            factory.afterPropertiesSet();
+            entityManagerFactory = factory.getObject();
+            entityManager = entityManagerFactory.createEntityManager();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void clear() {
+        if (backend.equals("journal")) {
+            if (journal != null) {
+                journal.stop();
+            }
+            Path journalDirectory = directory.resolve("journal");
+            try {
+                FileSystemUtils.deleteRecursively(journalDirectory);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            journal = new OrderJournal(journalDirectory.toString(), 262_144, false, Duration.ZERO, 0.5,
+                    new SimpleMeterRegistry());
+            journal.start();
+        } else {
+            jdbcTemplate.execute("TRUNCATE TABLE processed_orders");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (journal != null) {
+            journal.stop();
+        }
+        if (entityManagerFactory != null) {
+            entityManager.close();
+            entityManagerFactory.close();
+        }
+        if (jdbcTemplate != null) {
+            jdbcTemplate.execute("SHUTDOWN");
+        }
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public void write() {
+        for (int written = 0; written < ORDERS; written += batchSize) {
+            List<InventoryOrder> orders = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                orders.add(order("order-" + nextOrderId++));
+            }
+            switch (backend) {
+                case "jpa" -> {
+                    entityManager.getTransaction().begin();
+                    orders.forEach(entityManager::merge);
+                    entityManager.getTransaction().commit();
+                    entityManager.clear();
+                }
+                case "jdbc" -> orderJdbcRepository.insertAll(orders);
+                case "journal" -> journal.insertAll(orders);
+                default -> throw new IllegalStateException(backend);
+            }
+        }
+    }
+
+    private static InventoryOrder order(String orderId) {
+        InventoryOrder order = new InventoryOrder();
+        order.setOrderId(orderId);
+        order.setOrderType("IN_STORE");
+        order.setStoreId("store-42");
+        order.setProcessedAt(LocalDateTime.now());
+        return order;
+    }
+}
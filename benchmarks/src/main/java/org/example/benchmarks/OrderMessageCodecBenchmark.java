@@ -0,0 +1,84 @@
+package org.example.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.common.OrderMessage;
+import org.example.common.OrderMessageCodec;
+import org.example.orderservice.model.OrderRequest;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binary {@link OrderMessageCodec} against Jackson JSON (what {@code Jackson2JsonMessageConverter} sends)
+ * for encoding and decoding an order message. The {@code bytes} counter reports the message body size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderMessageCodecBenchmark {
+
+    @Param({"0", "10", "100"})
+    public int detailsSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private OrderMessage message;
+    private byte[] binary;
+    private byte[] json;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Size {
+        public long bytes;
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        OrderRequest request = OrderPayloads.transformer().transform(OrderPayloads.json(detailsSize).getBytes(StandardCharsets.UTF_8),
+                MediaType.APPLICATION_JSON);
+        message = new OrderMessage(request.getOrderId(), request.getOrderType(), request.getStoreId(),
+                request.getDetails());
+        binary = OrderMessageCodec.encode(message);
+        json = objectMapper.writeValueAsBytes(message);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary(Size size) {
+        byte[] body = OrderMessageCodec.encode(message);
+        size.bytes = body.length;
+        return body;
+    }
+
+    @Benchmark
+    public byte[] encodeJson(Size size) throws IOException {
+        byte[] body = objectMapper.writeValueAsBytes(message);
+        size.bytes = body.length;
+        return body;
+    }
+
+    @Benchmark
+    public OrderMessage decodeBinary() {
+        return OrderMessageCodec.decode(binary);
+    }
+
+    @Benchmark
+    public OrderMessage decodeJson() throws IOException {
+        return objectMapper.readValue(json, OrderMessage.class);
+    }
+}
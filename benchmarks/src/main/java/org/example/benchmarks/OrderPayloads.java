@@ -0,0 +1,49 @@
+package org.example.benchmarks;
+
+import org.example.orderservice.transformer.OrderTransformerService;
+import org.example.orderservice.validation.OrderValidator;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Synthetic order payloads with a configurable number of {@code details} entries.
+ */
+public final class OrderPayloads {
+
+    private OrderPayloads() {
+    }
+
+    /**
+     * The transformer as order-service wires it, validating against the default schemas.
+     */
+    public static OrderTransformerService transformer() {
+        return new OrderTransformerService(new OrderValidator(true, "IN_STORE:storeId;DIGITAL:", 64, 1000),
+                DataSize.ofKilobytes(256), DataSize.ofKilobytes(512), 32, 65536);
+    }
+
+    public static String json(int detailsSize) {
+        return json("order-123456", detailsSize);
+    }
+
+    public static String json(String orderId, int detailsSize) {
+        StringBuilder sb = new StringBuilder(128 + detailsSize * 64)
+                .append("{\"orderId\":\"").append(orderId).append("\",\"orderType\":\"IN_STORE\",\"storeId\":\"store-42\",\"details\":{");
+        for (int i = 0; i < detailsSize; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("\"item").append(i).append("\":{\"sku\":\"SKU-").append(i)
+                    .append("\",\"quantity\":").append(i % 7 + 1).append(",\"price\":").append(i + 0.99).append('}');
+        }
+        return sb.append("}}").toString();
+    }
+
+    public static String xml(int detailsSize) {
+        StringBuilder sb = new StringBuilder(128 + detailsSize * 96)
+                .append("<Order><Header><Id>order-123456</Id><Type>IN_STORE</Type><Location>store-42</Location></Header><Details>");
+        for (int i = 0; i < detailsSize; i++) {
+            sb.append("<Item><sku>SKU-").append(i).append("</sku><quantity>").append(i % 7 + 1)
+                    .append("</quantity><price>").append(i + 0.99).append("</price></Item>");
+        }
+        return sb.append("</Details></Order>").toString();
+    }
+}
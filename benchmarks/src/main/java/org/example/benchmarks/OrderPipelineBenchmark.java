@@ -0,0 +1,117 @@
+package org.example.benchmarks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.common.OrderMessage;
+import org.example.inventoryservice.analytics.OrderStatsAggregator;
+import org.example.inventoryservice.idempotency.TieredIdempotencyStore;
+import org.example.inventoryservice.listener.InventoryListener;
+import org.example.inventoryservice.listener.WriteBehindBuffer;
+import org.example.inventoryservice.repository.ProcessedOrderStore;
+import org.example.inventoryservice.repository.StockLevelJdbcRepository;
+import org.example.inventoryservice.stock.StockLedger;
+import org.example.orderservice.model.OrderRequest;
+import org.example.orderservice.service.OrderService;
+import org.example.orderservice.transformer.OrderTransformerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.rabbit.stream.producer.RabbitStreamTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The whole order path in one process: JSON transform, {@link OrderService} publish with confirms,
+ * wire conversion through {@link InProcessBroker}, and the {@link InventoryListener} batch listener with
+ * its idempotency check, stock reservation and JDBC insert into H2. Reported per order; every order is new.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderPipelineBenchmark {
+
+    private static final int BATCH = 100;
+
+    @Param({"binary", "json"})
+    public String wireFormat;
+
+    @Param({"10"})
+    public int detailsSize;
+
+    private final OrderTransformerService transformer = OrderPayloads.transformer();
+    private InProcessBroker broker;
+    private OrderService orderService;
+    private MessageConverter consumerConverter;
+    private JdbcTemplate jdbcTemplate;
+    private InventoryListener listener;
+    private long nextOrderId;
+
+    @Setup
+    public void setUp() {
+        broker = new InProcessBroker(new org.example.orderservice.config.RabbitMQConfig().messageConverter(wireFormat));
+        // Classic AMQP transport: no stream template in the (empty) provider
+        orderService = new OrderService(broker, new StaticListableBeanFactory().getBeanProvider(RabbitStreamTemplate.class),
+                new SyncTaskExecutor(), 10_000, 0, 5_000, 5_000, false, new SimpleMeterRegistry());
+        consumerConverter = new org.example.inventoryservice.config.RabbitMQConfig().messageConverter();
+
+        jdbcTemplate = InventoryFixtures.database();
+        TieredIdempotencyStore idempotencyStore =
+                InventoryFixtures.idempotencyStore(jdbcTemplate, InventoryFixtures.orderCache(), true);
+        ProcessedOrderStore orderStore = InventoryFixtures.orderStore(jdbcTemplate);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WriteBehindBuffer writeBehind =
+                new WriteBehindBuffer(orderStore, idempotencyStore, false, 1, 1, 1, meterRegistry);
+        // every SKU of the payloads is stocked, so the ledger takes part without ever running out
+        StockLedger stockLedger = new StockLedger(new StockLevelJdbcRepository(jdbcTemplate), meterRegistry);
+        for (int i = 0; i < detailsSize; i++) {
+            stockLedger.setAvailable("store-42", "SKU-" + i, Long.MAX_VALUE / 2);
+        }
+        // valid orders never fail, so there is no failed-order router on the consumer side
+        listener = new InventoryListener(idempotencyStore, orderStore, null, writeBehind, stockLedger,
+                new OrderStatsAggregator(true, meterRegistry), meterRegistry);
+    }
+
+    @Setup(Level.Iteration)
+    public void clearTable() {
+        jdbcTemplate.execute("TRUNCATE TABLE processed_orders");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void placeAndConsume() throws IOException {
+        List<OrderRequest> orders = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            orders.add(transformer.transform(OrderPayloads.json("order-" + nextOrderId++, detailsSize)
+                    .getBytes(StandardCharsets.UTF_8), MediaType.APPLICATION_JSON));
+        }
+        List<CompletableFuture<Void>> confirms = orderService.publishOrdersAsync(orders);
+
+        List<Message<OrderMessage>> delivered = broker.drain(consumerConverter);
+        listener.processOrders(delivered, null);
+
+        CompletableFuture.allOf(confirms.toArray(CompletableFuture[]::new)).join();
+    }
+}
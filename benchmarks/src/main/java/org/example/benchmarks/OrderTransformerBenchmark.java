@@ -0,0 +1,65 @@
+package org.example.benchmarks;
+
+import org.example.orderservice.model.OrderRequest;
+import org.example.orderservice.transformer.OrderTransformerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming binder ({@link OrderTransformerService}, reading the body bytes as the controller hands them over)
+ * against the previous JsonNode tree transform of the body as a String.
+ * Run with {@code -prof gc} to compare allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderTransformerBenchmark {
+
+    @Param({"json", "xml"})
+    public String format;
+
+    @Param({"0", "10", "100"})
+    public int detailsSize;
+
+    private final OrderTransformerService streaming = OrderPayloads.transformer();
+    private final LegacyTreeOrderTransformer tree = new LegacyTreeOrderTransformer();
+    private String payload;
+    private byte[] body;
+    private String contentType;
+    private MediaType mediaType;
+
+    @Setup
+    public void setUp() {
+        payload = "json".equals(format) ? OrderPayloads.json(detailsSize) : OrderPayloads.xml(detailsSize);
+        body = payload.getBytes(StandardCharsets.UTF_8);
+        contentType = "json".equals(format) ? "application/json" : "application/xml";
+        mediaType = MediaType.parseMediaType(contentType);
+    }
+
+    @Benchmark
+    public OrderRequest streamingBinder() throws IOException {
+        return streaming.transform(body, mediaType);
+    }
+
+    @Benchmark
+    public OrderRequest jsonNodeTree() throws IOException {
+        return tree.transform(payload, contentType);
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files (e.g. from the previous and the current build) benchmark by benchmark
+ * and exits with status 1 if any score got worse by more than the threshold:
+ * <pre>
+ * java -cp benchmarks.jar org.example.benchmarks.ResultComparator baseline.json jmh-result.json [thresholdPercent]
+ * </pre>
+ * Throughput scores regress when they drop, time-based scores when they grow. Benchmarks are matched on
+ * name plus parameters; ones present in only one file are listed but never fail the comparison.
+ */
+public final class ResultComparator {
+
+    private static final double DEFAULT_THRESHOLD_PERCENT = 10.0;
+
+    private ResultComparator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: ResultComparator <baseline.json> <current.json> [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+        Map<String, Score> baseline = read(new File(args[0]));
+        Map<String, Score> current = read(new File(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score now = entry.getValue();
+            Score before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %9s%n", entry.getKey(), "-", now.value(), "new");
+                continue;
+            }
+            double change = (now.value() - before.value()) / before.value() * 100.0;
+            // positive means "got worse" for both kinds of score
+            double worse = now.higherIsBetter() ? -change : change;
+            boolean regressed = worse > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%%%s%n", entry.getKey(), before.value(), now.value(),
+                    change, regressed ? "  REGRESSION" : "");
+        }
+        for (String name : baseline.keySet()) {
+            if (!current.containsKey(name)) {
+                System.out.printf("%-90s %14.3f %14s %9s%n", name, baseline.get(name).value(), "-", "removed");
+            }
+        }
+        System.out.printf("%d regression(s) above %.1f%%%n", regressions, threshold);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    private static Map<String, Score> read(File file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder name = new StringBuilder(result.path("benchmark").asText());
+            Map<String, String> params = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = result.path("params").fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> param = fields.next();
+                params.put(param.getKey(), param.getValue().asText());
+            }
+            if (!params.isEmpty()) {
+                name.append(params);
+            }
+            JsonNode metric = result.path("primaryMetric");
+            scores.put(name.toString(), new Score(metric.path("score").asDouble(),
+                    "thrpt".equals(result.path("mode").asText())));
+        }
+        return scores;
+    }
+
+    private record Score(double value, boolean higherIsBetter) {
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.benchmarks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.common.OrderMessage;
+import org.example.inventoryservice.repository.StockLevelJdbcRepository;
+import org.example.inventoryservice.stock.StockLedger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link StockLedger} reservations from 8 threads at once, as listener consumers make them:
+ * {@code hotSkus=1} is a flash sale where every order is for the same SKU, {@code hotSkus=1000} spreads
+ * the orders out. Each operation reserves a three-line order and releases it again, so stock never runs out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class StockLedgerBenchmark {
+
+    private static final int ORDERS = 1024;
+
+    @Param({"1", "1000"})
+    public int hotSkus;
+
+    private StockLedger ledger;
+    private OrderMessage[] orders;
+
+    @Setup
+    public void setUp() {
+        ledger = new StockLedger(new StockLevelJdbcRepository(InventoryFixtures.database()), new SimpleMeterRegistry());
+        for (int i = 0; i < hotSkus; i++) {
+            ledger.setAvailable("store-42", "SKU-" + i, 1_000_000_000L);
+        }
+        orders = new OrderMessage[ORDERS];
+        for (int i = 0; i < ORDERS; i++) {
+            Map<String, Object> details = new LinkedHashMap<>();
+            for (int line = 0; line < 3; line++) {
+                details.put("item" + line, Map.of("sku", "SKU-" + (i + line) % hotSkus, "quantity", line + 1));
+            }
+            orders[i] = new OrderMessage("order-" + i, "IN_STORE", "store-42", details);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public void reserveAndRelease(Cursor cursor) {
+        ledger.reserve(orders[cursor.next++ & (ORDERS - 1)]).release();
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.benchmarks;
+
+import org.example.orderservice.transformer.OrderTransformerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test for the threading model of the request path: a burst of {@code requests} concurrent
+ * orders, each parsed and then blocked for {@code blockingMillis} (the broker confirm or a DB write).
+ * {@code platform} is a fixed pool the size of Tomcat's default {@code server.tomcat.threads.max};
+ * {@code virtual} runs every request on its own virtual thread, as {@code spring.threads.virtual.enabled} does.
+ * <p>
+ * Needs a Java 21 runtime for the {@code virtual} variant.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ThreadingModelBenchmark {
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    public String threading;
+
+    @Param({"1000", "10000"})
+    public int requests;
+
+    @Param({"10"})
+    public int blockingMillis;
+
+    private final OrderTransformerService transformer = OrderPayloads.transformer();
+    private final byte[] payload = OrderPayloads.json(10).getBytes(StandardCharsets.UTF_8);
+    private ExecutorService platformPool;
+    private Executor executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("virtual".equals(threading)) {
+            executor = new VirtualThreadTaskExecutor("load-");
+        } else {
+            platformPool = Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+            executor = platformPool;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (platformPool != null) {
+            platformPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Time until the whole burst has been served; requests / time is the sustained throughput.
+     */
+    @Benchmark
+    public void burst() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(requests);
+        for (int i = 0; i < requests; i++) {
+            executor.execute(() -> {
+                try {
+                    transformer.transform(payload, MediaType.APPLICATION_JSON);
+                    Thread.sleep(blockingMillis);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+}
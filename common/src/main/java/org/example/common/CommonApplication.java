@@ -1,13 +0,0 @@
-package org.example.common;
-
-import org.springframework.boot.SpringApplication;
-import org.springframework.boot.autoconfigure.SpringBootApplication;
-
-@SpringBootApplication
-public class CommonApplication {
-
-    public static void main(String[] args) {
-        SpringApplication.run(CommonApplication.class, args);
-    }
-
-}
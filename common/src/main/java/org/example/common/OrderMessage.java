@@ -2,23 +2,42 @@ package org.example.common;
 
 
 import java.io.Serializable;
-
+import java.util.Map;
+
+/**
+ * Order as it travels from order-service to inventory-service, whichever wire format carries it.
+ * <p>
+ * {@link #SCHEMA_VERSION} is written in front of every binary payload by {@link OrderMessageCodec}. New
+ * fields get a new field number there, so consumers on an older version skip them instead of failing.
+ */
 public class OrderMessage implements Serializable {
+
+    public static final int SCHEMA_VERSION = 1;
+
     private String orderId;
-    private String item;
+    private String orderType;
+    private String storeId;
+    private Map<String, Object> details;
 
     // Constructors, getters, setters
     public OrderMessage() {}
 
-    public OrderMessage(String orderId, String item) {
+    public OrderMessage(String orderId, String orderType, String storeId, Map<String, Object> details) {
         this.orderId = orderId;
-        this.item = item;
+        this.orderType = orderType;
+        this.storeId = storeId;
+        this.details = details;
     }
 
     public String getOrderId() { return orderId; }
     public void setOrderId(String orderId) { this.orderId = orderId; }
 
-    public String getItem() { return item; }
-    public void setItem(String item) { this.item = item; }
-}
+    public String getOrderType() { return orderType; }
+    public void setOrderType(String orderType) { this.orderType = orderType; }
+
+    public String getStoreId() { return storeId; }
+    public void setStoreId(String storeId) { this.storeId = storeId; }
 
+    public Map<String, Object> getDetails() { return details; }
+    public void setDetails(Map<String, Object> details) { this.details = details; }
+}
@@ -0,0 +1,389 @@
+package org.example.common;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of {@link OrderMessage}, laid out like a small protobuf message:
+ * <pre>
+ * payload := version:varint field*
+ * field   := tag:varint value          tag = fieldNumber &lt;&lt; 3 | wireType
+ * </pre>
+ * Wire type 0 is a varint, wire type 2 a length-prefixed byte string. Fields 1-3 are the UTF-8 orderId,
+ * orderType and storeId, field 4 the details map. Absent (null) fields are simply not written, and
+ * unknown field numbers are skipped on decode, so adding a field does not need a new version. The version
+ * only changes when an existing field changes meaning; newer versions are rejected.
+ * <p>
+ * Details values carry a one-byte type: integers are zigzag varints, doubles 8 bytes, strings, lists and
+ * maps length- or count-prefixed. Decoding gives back the same Java types Jackson produces for the JSON
+ * wire format ({@code Integer}, {@code Long}, {@code Double}, {@code String}, {@code List}, {@code Map}, ...).
+ */
+public final class OrderMessageCodec {
+
+    private static final int WIRE_VARINT = 0;
+    private static final int WIRE_BYTES = 2;
+
+    private static final int FIELD_ORDER_ID = 1;
+    private static final int FIELD_ORDER_TYPE = 2;
+    private static final int FIELD_STORE_ID = 3;
+    private static final int FIELD_DETAILS = 4;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_FALSE = 1;
+    private static final byte TYPE_TRUE = 2;
+    private static final byte TYPE_INT = 3;
+    private static final byte TYPE_LONG = 4;
+    private static final byte TYPE_DOUBLE = 5;
+    private static final byte TYPE_STRING = 6;
+    private static final byte TYPE_LIST = 7;
+    private static final byte TYPE_MAP = 8;
+    private static final byte TYPE_DECIMAL = 9;
+    private static final byte TYPE_BIG_INTEGER = 10;
+    private static final byte TYPE_BYTES = 11;
+
+    private OrderMessageCodec() {
+    }
+
+    public static byte[] encode(OrderMessage message) {
+        Output out = new Output(64);
+        out.writeVarint(OrderMessage.SCHEMA_VERSION);
+        writeString(out, FIELD_ORDER_ID, message.getOrderId());
+        writeString(out, FIELD_ORDER_TYPE, message.getOrderType());
+        writeString(out, FIELD_STORE_ID, message.getStoreId());
+        if (message.getDetails() != null) {
+            out.writeVarint(FIELD_DETAILS << 3 | WIRE_BYTES);
+            // Length prefix is patched in once the map has been written
+            int lengthAt = out.reserveLength();
+            writeMapBody(out, message.getDetails());
+            out.patchLength(lengthAt);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException truncated or malformed payload, or a newer schema version
+     */
+    public static OrderMessage decode(byte[] payload) {
+        Input in = new Input(payload);
+        long version = in.readVarint();
+        if (version < 1 || version > OrderMessage.SCHEMA_VERSION) {
+            throw new IllegalArgumentException("Unsupported order message version " + version);
+        }
+        OrderMessage message = new OrderMessage();
+        while (in.hasRemaining()) {
+            long tag = in.readVarint();
+            int field = (int) (tag >>> 3);
+            int wireType = (int) (tag & 0x7);
+            switch (field) {
+                case FIELD_ORDER_ID -> message.setOrderId(readString(in, wireType));
+                case FIELD_ORDER_TYPE -> message.setOrderType(readString(in, wireType));
+                case FIELD_STORE_ID -> message.setStoreId(readString(in, wireType));
+                case FIELD_DETAILS -> {
+                    expectWireType(wireType, WIRE_BYTES, field);
+                    int end = in.readLengthEnd();
+                    message.setDetails(readMapBody(in));
+                    in.expectPosition(end);
+                }
+                default -> skip(in, wireType, field);
+            }
+        }
+        return message;
+    }
+
+    private static void writeString(Output out, int field, String value) {
+        if (value != null) {
+            out.writeVarint(field << 3 | WIRE_BYTES);
+            out.writeString(value);
+        }
+    }
+
+    private static void writeMapBody(Output out, Map<?, ?> map) {
+        out.writeVarint(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            out.writeString(String.valueOf(entry.getKey()));
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    private static void writeValue(Output out, Object value) {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value instanceof String s) {
+            out.writeByte(TYPE_STRING);
+            out.writeString(s);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(TYPE_INT);
+            out.writeVarint(zigzag(((Number) value).longValue()));
+        } else if (value instanceof Long l) {
+            out.writeByte(TYPE_LONG);
+            out.writeVarint(zigzag(l));
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeLong(Double.doubleToRawLongBits(((Number) value).doubleValue()));
+        } else if (value instanceof Boolean b) {
+            out.writeByte(b ? TYPE_TRUE : TYPE_FALSE);
+        } else if (value instanceof Map<?, ?> map) {
+            out.writeByte(TYPE_MAP);
+            writeMapBody(out, map);
+        } else if (value instanceof List<?> list) {
+            out.writeByte(TYPE_LIST);
+            out.writeVarint(list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof BigDecimal decimal) {
+            out.writeByte(TYPE_DECIMAL);
+            out.writeString(decimal.toString());
+        } else if (value instanceof BigInteger integer) {
+            out.writeByte(TYPE_BIG_INTEGER);
+            out.writeString(integer.toString());
+        } else if (value instanceof byte[] bytes) {
+            out.writeByte(TYPE_BYTES);
+            out.writeVarint(bytes.length);
+            out.writeBytes(bytes);
+        } else {
+            throw new IllegalArgumentException("Unsupported details value type: " + value.getClass().getName());
+        }
+    }
+
+    private static String readString(Input in, int wireType) {
+        if (wireType != WIRE_BYTES) {
+            throw new IllegalArgumentException("Expected a string but found wire type " + wireType);
+        }
+        return in.readString();
+    }
+
+    private static Map<String, Object> readMapBody(Input in) {
+        int size = in.readCount();
+        Map<String, Object> map = new LinkedHashMap<>(Math.max(4, (int) (size / 0.75f) + 1));
+        for (int i = 0; i < size; i++) {
+            String key = in.readString();
+            map.put(key, readValue(in));
+        }
+        return map;
+    }
+
+    private static Object readValue(Input in) {
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_FALSE:
+                return Boolean.FALSE;
+            case TYPE_TRUE:
+                return Boolean.TRUE;
+            case TYPE_INT:
+                return (int) unzigzag(in.readVarint());
+            case TYPE_LONG:
+                return unzigzag(in.readVarint());
+            case TYPE_DOUBLE:
+                return Double.longBitsToDouble(in.readLong());
+            case TYPE_STRING:
+                return in.readString();
+            case TYPE_LIST: {
+                int size = in.readCount();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            }
+            case TYPE_MAP:
+                return readMapBody(in);
+            case TYPE_DECIMAL:
+                return new BigDecimal(in.readString());
+            case TYPE_BIG_INTEGER:
+                return new BigInteger(in.readString());
+            case TYPE_BYTES:
+                return in.readBytes(in.readCount());
+            default:
+                throw new IllegalArgumentException("Unknown details value type " + type);
+        }
+    }
+
+    private static void skip(Input in, int wireType, int field) {
+        switch (wireType) {
+            case WIRE_VARINT -> in.readVarint();
+            case WIRE_BYTES -> in.skip(in.readCount());
+            default -> throw new IllegalArgumentException(
+                    "Unknown wire type " + wireType + " for field " + field);
+        }
+    }
+
+    private static void expectWireType(int wireType, int expected, int field) {
+        if (wireType != expected) {
+            throw new IllegalArgumentException("Unexpected wire type " + wireType + " for field " + field);
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Output {
+
+        private byte[] buffer;
+        private int position;
+
+        Output(int initialCapacity) {
+            this.buffer = new byte[initialCapacity];
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeVarint(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeBytes(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            writeBytes(bytes);
+        }
+
+        /**
+         * Reserve a fixed 5-byte varint (padded with continuation bits) for a length written later.
+         */
+        int reserveLength() {
+            ensureCapacity(5);
+            int at = position;
+            position += 5;
+            return at;
+        }
+
+        void patchLength(int at) {
+            int length = position - at - 5;
+            for (int i = 0; i < 4; i++) {
+                buffer[at + i] = (byte) ((length & 0x7F) | 0x80);
+                length >>>= 7;
+            }
+            buffer[at + 4] = (byte) length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+    }
+
+    private static final class Input {
+
+        private final byte[] buffer;
+        private int position;
+
+        Input(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        boolean hasRemaining() {
+            return position < buffer.length;
+        }
+
+        byte readByte() {
+            require(1);
+            return buffer[position++];
+        }
+
+        long readVarint() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint at offset " + position);
+        }
+
+        int readCount() {
+            long count = readVarint();
+            if (count < 0 || count > buffer.length - position) {
+                throw new IllegalArgumentException("Length " + count + " exceeds the remaining payload");
+            }
+            return (int) count;
+        }
+
+        /**
+         * Read a length prefix and return the offset at which the prefixed value ends.
+         */
+        int readLengthEnd() {
+            int length = readCount();
+            return position + length;
+        }
+
+        void expectPosition(int end) {
+            if (position != end) {
+                throw new IllegalArgumentException("Field length mismatch at offset " + position);
+            }
+        }
+
+        long readLong() {
+            require(8);
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (buffer[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        String readString() {
+            int length = readCount();
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        byte[] readBytes(int length) {
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        void skip(int length) {
+            position += length;
+        }
+
+        private void require(int bytes) {
+            if (position + bytes > buffer.length) {
+                throw new IllegalArgumentException("Truncated order message at offset " + position);
+            }
+        }
+    }
+}
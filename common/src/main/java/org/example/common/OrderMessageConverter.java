@@ -0,0 +1,39 @@
+package org.example.common;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractMessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+/**
+ * AMQP converter for the binary {@link OrderMessageCodec} format. Services register it in a
+ * {@code ContentTypeDelegatingMessageConverter} under {@link #CONTENT_TYPE}, next to the JSON converter,
+ * so consumers pick the decoder from each message's content-type header.
+ */
+public class OrderMessageConverter extends AbstractMessageConverter {
+
+    public static final String CONTENT_TYPE = "application/x-order-message";
+    public static final String SCHEMA_VERSION_HEADER = "x-order-schema-version";
+
+    @Override
+    protected Message createMessage(Object object, MessageProperties messageProperties) {
+        if (!(object instanceof OrderMessage order)) {
+            throw new MessageConversionException("Cannot encode " + object.getClass().getName()
+                    + " as " + CONTENT_TYPE + ", expected " + OrderMessage.class.getName());
+        }
+        byte[] body = OrderMessageCodec.encode(order);
+        messageProperties.setContentType(CONTENT_TYPE);
+        messageProperties.setContentLength(body.length);
+        messageProperties.setHeader(SCHEMA_VERSION_HEADER, OrderMessage.SCHEMA_VERSION);
+        return new Message(body, messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        try {
+            return OrderMessageCodec.decode(message.getBody());
+        } catch (IllegalArgumentException e) {
+            throw new MessageConversionException("Cannot decode order message: " + e.getMessage(), e);
+        }
+    }
+}
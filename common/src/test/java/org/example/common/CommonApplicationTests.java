@@ -1,13 +0,0 @@
-package org.example.common;
-
-import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.context.SpringBootTest;
-
-@SpringBootTest
-class CommonApplicationTests {
-
-    @Test
-    void contextLoads() {
-    }
-
-}
@@ -0,0 +1,71 @@
+package org.example.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderMessageCodecTests {
+
+    @Test
+    void roundTripsAllFieldsAndDetailTypes() {
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("sku", "A-1");
+        nested.put("qty", 3);
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("count", -42);
+        details.put("total", 12_000_000_000L);
+        details.put("price", 9.99);
+        details.put("gift", true);
+        details.put("note", null);
+        details.put("discount", new BigDecimal("0.15"));
+        details.put("items", List.of(nested, "loose", 7));
+        details.put("label", "café ☕");
+        OrderMessage message = new OrderMessage("order-1", "DIGITAL", "store-9", details);
+
+        OrderMessage decoded = OrderMessageCodec.decode(OrderMessageCodec.encode(message));
+
+        assertThat(decoded.getOrderId()).isEqualTo("order-1");
+        assertThat(decoded.getOrderType()).isEqualTo("DIGITAL");
+        assertThat(decoded.getStoreId()).isEqualTo("store-9");
+        assertThat(decoded.getDetails()).isEqualTo(details);
+        assertThat(decoded.getDetails().get("count")).isInstanceOf(Integer.class);
+        assertThat(decoded.getDetails().get("total")).isInstanceOf(Long.class);
+    }
+
+    @Test
+    void keepsNullFieldsNull() {
+        OrderMessage decoded = OrderMessageCodec.decode(OrderMessageCodec.encode(new OrderMessage()));
+
+        assertThat(decoded.getOrderId()).isNull();
+        assertThat(decoded.getDetails()).isNull();
+    }
+
+    @Test
+    void skipsFieldsAddedByNewerProducers() {
+        byte[] encoded = OrderMessageCodec.encode(new OrderMessage("order-1", "IN_STORE", "store-1", Map.of()));
+        // field 15 as a varint and field 16 as a byte string, neither known to this version
+        byte[] extra = {(byte) (15 << 3), 0x01, (byte) 0x82, 0x01, 0x02, 'h', 'i'};
+        byte[] payload = Arrays.copyOf(encoded, encoded.length + extra.length);
+        System.arraycopy(extra, 0, payload, encoded.length, extra.length);
+
+        assertThat(OrderMessageCodec.decode(payload).getStoreId()).isEqualTo("store-1");
+    }
+
+    @Test
+    void rejectsNewerVersionsAndTruncatedPayloads() {
+        byte[] encoded = OrderMessageCodec.encode(new OrderMessage("order-1", "IN_STORE", "store-1", Map.of()));
+
+        byte[] newer = encoded.clone();
+        newer[0] = (byte) (OrderMessage.SCHEMA_VERSION + 1);
+        assertThatThrownBy(() -> OrderMessageCodec.decode(newer)).hasMessageContaining("version");
+        assertThatThrownBy(() -> OrderMessageCodec.decode(Arrays.copyOf(encoded, encoded.length - 3)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.inventoryservice.analytics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rolling order counts of one store and order type, as served by {@code GET /inventory/stats}.
+ *
+ * @param sliding   totals over the last {@code 1m}, {@code 5m}, {@code 15m} and {@code 60m}, up to now
+ * @param perMinute tumbling one-minute windows, the last completed minute first; as many as requested
+ */
+public record OrderStats(String storeId, String orderType, Map<String, Totals> sliding, List<Totals> perMinute) {
+
+    /**
+     * @param units item units over all item lines ({@code sku} + {@code quantity}) of the orders
+     */
+    public record Totals(long orders, long units) {
+
+        static final Totals ZERO = new Totals(0, 0);
+    }
+}
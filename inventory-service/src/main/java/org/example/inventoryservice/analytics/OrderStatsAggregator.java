@@ -0,0 +1,187 @@
+package org.example.inventoryservice.analytics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.common.OrderMessage;
+import org.example.inventoryservice.stock.StockLedger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Order counts and item units per (storeId, orderType), updated by the listener as it processes orders,
+ * so dashboards read them from memory instead of running GROUP BY queries on {@code processed_orders}.
+ * <p>
+ * Each key has two rings of primitive slots: 60 one-second slots and 60 one-minute slots. A slot is
+ * stamped with the second (minute) it holds and reset when the ring comes round to it again, so nothing
+ * has to expire the old data. Sliding windows are summed from the rings when read: the last minute from
+ * the seconds ring, 5/15/60 minutes from the minutes ring (including the current partial minute).
+ * Tumbling windows are the completed minute slots.
+ * <p>
+ * Writers take a per-key lock for a handful of array updates; keys with no orders in the last hour are
+ * dropped every minute. Counts are per instance and start over on restart.
+ */
+@Component
+public class OrderStatsAggregator {
+
+    static final int SLOTS = 60;
+    private static final int[] SLIDING_MINUTES = {5, 15, 60};
+
+    private final boolean enabled;
+    private final Map<StatsKey, Series> series = new ConcurrentHashMap<>();
+
+    public OrderStatsAggregator(@Value("${inventory.stats.enabled:true}") boolean enabled, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        Gauge.builder("inventory.stats.series", series, Map::size)
+                .description("Store/order type pairs with rolling order stats")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Count a processed order.
+     */
+    public void record(OrderMessage order) {
+        record(order, System.currentTimeMillis());
+    }
+
+    void record(OrderMessage order, long nowMillis) {
+        if (!enabled) {
+            return;
+        }
+        StatsKey key = new StatsKey(Objects.toString(order.getStoreId(), ""), Objects.toString(order.getOrderType(), ""));
+        series.computeIfAbsent(key, k -> new Series()).add(nowMillis / 1_000, units(order));
+    }
+
+    /**
+     * @param storeId   only this store, or {@code null} for all
+     * @param orderType only this order type, or {@code null} for all
+     * @param minutes   completed one-minute windows to include, at most 59
+     * @return the stats per key, ordered by storeId and orderType
+     */
+    public List<OrderStats> snapshot(String storeId, String orderType, int minutes) {
+        return snapshot(storeId, orderType, minutes, System.currentTimeMillis());
+    }
+
+    List<OrderStats> snapshot(String storeId, String orderType, int minutes, long nowMillis) {
+        long second = nowMillis / 1_000;
+        int tumbling = Math.max(0, Math.min(minutes, SLOTS - 1));
+        List<OrderStats> stats = new ArrayList<>();
+        series.forEach((key, values) -> {
+            if ((storeId == null || storeId.equals(key.storeId())) && (orderType == null || orderType.equals(key.orderType()))) {
+                stats.add(values.stats(key, second, tumbling));
+            }
+        });
+        stats.sort(Comparator.comparing(OrderStats::storeId).thenComparing(OrderStats::orderType));
+        return stats;
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdle() {
+        long second = System.currentTimeMillis() / 1_000;
+        series.values().removeIf(values -> second - values.lastSecond >= SLOTS * 60L);
+    }
+
+    private static long units(OrderMessage order) {
+        try {
+            long units = 0;
+            for (long quantity : StockLedger.lines(order.getDetails()).values()) {
+                units += quantity;
+            }
+            return units;
+        } catch (IllegalArgumentException e) {
+            // Only counted as an order; the ledger decides what happens to invalid lines
+            return 0;
+        }
+    }
+
+    private record StatsKey(String storeId, String orderType) {
+    }
+
+    private static final class Series {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final long[] secondStamps = stamps();
+        private final long[] secondOrders = new long[SLOTS];
+        private final long[] secondUnits = new long[SLOTS];
+        private final long[] minuteStamps = stamps();
+        private final long[] minuteOrders = new long[SLOTS];
+        private final long[] minuteUnits = new long[SLOTS];
+        private volatile long lastSecond;
+
+        void add(long second, long units) {
+            lock.lock();
+            try {
+                add(secondStamps, secondOrders, secondUnits, second, units);
+                add(minuteStamps, minuteOrders, minuteUnits, second / 60, units);
+                lastSecond = Math.max(lastSecond, second);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        OrderStats stats(StatsKey key, long second, int tumbling) {
+            long minute = second / 60;
+            Map<String, OrderStats.Totals> sliding = new LinkedHashMap<>();
+            List<OrderStats.Totals> perMinute = new ArrayList<>(tumbling);
+            lock.lock();
+            try {
+                sliding.put("1m", sum(secondStamps, secondOrders, secondUnits, second, SLOTS));
+                for (int window : SLIDING_MINUTES) {
+                    sliding.put(window + "m", sum(minuteStamps, minuteOrders, minuteUnits, minute, window));
+                }
+                for (int i = 1; i <= tumbling; i++) {
+                    perMinute.add(sum(minuteStamps, minuteOrders, minuteUnits, minute - i, 1));
+                }
+            } finally {
+                lock.unlock();
+            }
+            return new OrderStats(key.storeId(), key.orderType(), sliding, perMinute);
+        }
+
+        private static void add(long[] stamps, long[] orders, long[] units, long stamp, long quantity) {
+            int slot = (int) (stamp % SLOTS);
+            if (stamps[slot] != stamp) {
+                if (stamps[slot] > stamp) {
+                    // Older than the ring reaches
+                    return;
+                }
+                stamps[slot] = stamp;
+                orders[slot] = 0;
+                units[slot] = 0;
+            }
+            orders[slot]++;
+            units[slot] += quantity;
+        }
+
+        /**
+         * Totals of the {@code count} slots up to and including {@code last}.
+         */
+        private static OrderStats.Totals sum(long[] stamps, long[] orders, long[] units, long last, int count) {
+            long orderSum = 0;
+            long unitSum = 0;
+            for (int slot = 0; slot < SLOTS; slot++) {
+                long stamp = stamps[slot];
+                if (stamp <= last && stamp > last - count) {
+                    orderSum += orders[slot];
+                    unitSum += units[slot];
+                }
+            }
+            return orderSum == 0 ? OrderStats.Totals.ZERO : new OrderStats.Totals(orderSum, unitSum);
+        }
+
+        private static long[] stamps() {
+            long[] stamps = new long[SLOTS];
+            Arrays.fill(stamps, -1);
+            return stamps;
+        }
+    }
+}
@@ -2,9 +2,13 @@ package org.example.inventoryservice.config;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.example.inventoryservice.model.InventoryOrder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 @Configuration
@@ -15,6 +19,45 @@ public class CaffeineConfig {
         return Caffeine.newBuilder()
                 .expireAfterWrite(10, TimeUnit.MINUTES)
                 .maximumSize(10_000)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Read-through cache for {@code GET /inventory/orders}, kept apart from the idempotency cache so
+     * status polling cannot evict entries the listener depends on. Processed orders never change and are
+     * kept for {@code ttl-ms}; misses are cached as {@code Optional.empty()} for the much shorter
+     * {@code negative-ttl-ms}, so a client polling for an order that is still on its way sees it soon
+     * after it is written without every poll reaching the database.
+     */
+    @Bean
+    public Cache<String, Optional<InventoryOrder>> orderLookupCache(
+            @Value("${inventory.lookup.cache.maximum-size:50000}") long maximumSize,
+            @Value("${inventory.lookup.cache.ttl-ms:600000}") long ttlMs,
+            @Value("${inventory.lookup.cache.negative-ttl-ms:1000}") long negativeTtlMs) {
+        long ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        long negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(negativeTtlMs);
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, Optional<InventoryOrder>>() {
+                    @Override
+                    public long expireAfterCreate(String orderId, Optional<InventoryOrder> order, long currentTime) {
+                        return order.isPresent() ? ttlNanos : negativeTtlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String orderId, Optional<InventoryOrder> order, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(orderId, order, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String orderId, Optional<InventoryOrder> order, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
                 .build();
     }
 }
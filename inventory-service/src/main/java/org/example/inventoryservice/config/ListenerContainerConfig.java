@@ -0,0 +1,50 @@
+package org.example.inventoryservice.config;
+
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.rabbit.config.ContainerCustomizer;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ListenerContainerConfig {
+
+    /**
+     * Container factory for {@code InventoryListener#processOrders}: the consumer collects up to
+     * {@code inventory.listener.batch.size} messages (or whatever arrived within the receive timeout)
+     * and hands them over as one list, acked together once the listener returns.
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory batchListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            ObjectProvider<ContainerCustomizer<SimpleMessageListenerContainer>> containerCustomizer,
+            @Value("${inventory.listener.batch.size:100}") int batchSize,
+            @Value("${inventory.listener.batch.receive-timeout-ms:200}") long receiveTimeoutMs) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(receiveTimeoutMs);
+        containerCustomizer.ifUnique(factory::setContainerCustomizer);
+        return factory;
+    }
+
+    /**
+     * With write-behind persistence the listener returns before its orders are committed, so every
+     * container acks manually once {@code WriteBehindBuffer} has flushed them. Boot applies this
+     * customizer to the default factory as well (per-message and partition listeners).
+     */
+    @Bean
+    @ConditionalOnProperty(name = "inventory.persistence.write-behind.enabled", havingValue = "true")
+    public ContainerCustomizer<SimpleMessageListenerContainer> manualAckContainerCustomizer() {
+        return container -> container.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.inventoryservice.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.inventoryservice.model.InventoryOrder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Optional;
+
+@Configuration
+public class MetricsConfig {
+
+    // Hit/miss/eviction counters of the idempotency cache (cache_gets_total{cache="orderCache",result=...})
+    @Bean
+    public MeterBinder orderCacheMetrics(Cache<String, Boolean> orderCache) {
+        return registry -> CaffeineCacheMetrics.monitor(registry, orderCache, "orderCache");
+    }
+
+    @Bean
+    public MeterBinder orderLookupCacheMetrics(Cache<String, Optional<InventoryOrder>> orderLookupCache) {
+        return registry -> CaffeineCacheMetrics.monitor(registry, orderLookupCache, "orderLookupCache");
+    }
+}
@@ -0,0 +1,108 @@
+package org.example.inventoryservice.config;
+
+import org.example.common.OrderMessage;
+import org.example.inventoryservice.listener.InventoryListener;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.CustomExchange;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.annotation.RabbitListenerConfigurer;
+import org.springframework.amqp.rabbit.config.ContainerCustomizer;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.api.ChannelAwareMessageListener;
+import org.springframework.amqp.support.SimpleAmqpHeaderMapper;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.MessageHeaders;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-store ordering: order-service publishes to a consistent-hash exchange with the storeId as routing
+ * key, which spreads stores over {@code inventory.listener.ordering.partitions} sub-queues. Every
+ * sub-queue gets its own container with exactly one consumer and a prefetch of one, whatever the
+ * {@code spring.rabbitmq.listener.simple.*} settings, so all orders of a store are processed in publish
+ * order while partitions are processed in parallel.
+ * <p>
+ * Requires the {@code rabbitmq_consistent_hash_exchange} broker plugin.
+ */
+@Configuration
+@ConditionalOnProperty(name = "inventory.listener.ordering.enabled", havingValue = "true")
+public class OrderedConsumptionConfig {
+
+    public static final String PARTITIONED_EXCHANGE = "orders.partitioned";
+    public static final String PARTITION_QUEUE_PREFIX = "orders.queue.p";
+
+    private final int partitions;
+
+    public OrderedConsumptionConfig(@Value("${inventory.listener.ordering.partitions:4}") int partitions) {
+        this.partitions = partitions;
+    }
+
+    @Bean
+    public Declarables partitionedOrderTopology() {
+        List<Declarable> declarables = new ArrayList<>();
+        CustomExchange exchange = new CustomExchange(PARTITIONED_EXCHANGE, "x-consistent-hash", true, false);
+        declarables.add(exchange);
+        for (int i = 0; i < partitions; i++) {
+            Queue queue = new Queue(PARTITION_QUEUE_PREFIX + i, true);
+            declarables.add(queue);
+            // For consistent-hash exchanges the binding key is the partition weight
+            declarables.add(new Binding(queue.getName(), Binding.DestinationType.QUEUE,
+                    PARTITIONED_EXCHANGE, "1", null));
+            declarables.add(RetryConfig.returnBinding(queue.getName()));
+        }
+        return new Declarables(declarables);
+    }
+
+    /**
+     * Built through Boot's configurer like the other factories (ack mode, executor), then pinned to one
+     * consumer that holds one unacked order at a time.
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory partitionListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            ObjectProvider<ContainerCustomizer<SimpleMessageListenerContainer>> containerCustomizer) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setConcurrentConsumers(1);
+        factory.setMaxConcurrentConsumers(1);
+        factory.setPrefetchCount(1);
+        containerCustomizer.ifUnique(factory::setContainerCustomizer);
+        return factory;
+    }
+
+    @Bean
+    public RabbitListenerConfigurer partitionListenersConfigurer(InventoryListener inventoryListener,
+                                                                 MessageConverter messageConverter,
+                                                                 @Qualifier("partitionListenerContainerFactory")
+                                                                 SimpleRabbitListenerContainerFactory partitionListenerContainerFactory) {
+        SimpleAmqpHeaderMapper headerMapper = new SimpleAmqpHeaderMapper();
+        return registrar -> {
+            for (int i = 0; i < partitions; i++) {
+                SimpleRabbitListenerEndpoint endpoint = new SimpleRabbitListenerEndpoint();
+                endpoint.setId("inventoryPartitionListener-" + i);
+                endpoint.setQueueNames(PARTITION_QUEUE_PREFIX + i);
+                endpoint.setConcurrency("1");
+                endpoint.setMessageListener((ChannelAwareMessageListener) (message, channel) -> {
+                    message.getMessageProperties().setInferredArgumentType(OrderMessage.class);
+                    inventoryListener.processOrder((OrderMessage) messageConverter.fromMessage(message), channel,
+                            new MessageHeaders(headerMapper.toHeaders(message.getMessageProperties())));
+                });
+                registrar.registerEndpoint(endpoint, partitionListenerContainerFactory);
+            }
+        };
+    }
+}
@@ -1,15 +1,52 @@
 package org.example.inventoryservice.config;
 
+import org.example.common.OrderMessageConverter;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class RabbitMQConfig {
     public static final String QUEUE = "orders.queue";
+    public static final String EXCHANGE = "orders.exchange";
+    public static final String ROUTING_KEY = "orders.key";
 
     @Bean
     public Queue queue() {
-        return new Queue(QUEUE, false);
+        // Durable, matching order-service; a mismatched redeclare is refused by the broker
+        return new Queue(QUEUE, true);
+    }
+
+    // Declared on both sides so the queue is bound whichever service starts first
+    @Bean
+    public DirectExchange ordersExchange() {
+        return new DirectExchange(EXCHANGE);
+    }
+
+    @Bean
+    public Binding ordersBinding(Queue queue, DirectExchange ordersExchange) {
+        return BindingBuilder.bind(queue).to(ordersExchange).with(ROUTING_KEY);
+    }
+
+    /**
+     * Order messages are decoded by their content type: the binary {@code OrderMessageCodec} format or JSON.
+     * JSON is also the default for anything this service sends itself (DLQ entries).
+     */
+    @Bean
+    public MessageConverter messageConverter() {
+        // order-service stamps its own class name in __TypeId__, so bind to the listener's parameter type instead
+        Jackson2JsonMessageConverter json = new Jackson2JsonMessageConverter();
+        json.setAlwaysConvertToInferredType(true);
+        ContentTypeDelegatingMessageConverter converter = new ContentTypeDelegatingMessageConverter(json);
+        converter.addDelegate(MessageProperties.CONTENT_TYPE_JSON, json);
+        converter.addDelegate(OrderMessageConverter.CONTENT_TYPE, new OrderMessageConverter());
+        return converter;
     }
 }
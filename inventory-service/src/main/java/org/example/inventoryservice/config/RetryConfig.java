@@ -0,0 +1,62 @@
+package org.example.inventoryservice.config;
+
+import org.example.inventoryservice.retry.FailedOrderRouter;
+import org.example.inventoryservice.retry.RetryPolicy;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.HeadersExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Retry and dead-letter topology. Failed orders wait in a TTL queue per backoff step
+ * ({@code inventory.retry.<delay>ms}); on expiry the broker dead-letters them to a headers exchange
+ * that routes on {@link FailedOrderRouter#ORIGINAL_QUEUE_HEADER}, back to the queue they came from.
+ * Orders that are not retried end up in {@link #DLQ_QUEUE}.
+ */
+@Configuration
+public class RetryConfig {
+
+    public static final String RETRY_RETURN_EXCHANGE = "inventory.retry.return";
+    public static final String DLQ_EXCHANGE = "inventory-dlq-exchange";
+    public static final String DLQ_ROUTING_KEY = "dlq.inventory";
+    public static final String DLQ_QUEUE = "inventory.dlq";
+
+    @Bean
+    public Declarables retryTopology(RetryPolicy retryPolicy) {
+        List<Declarable> declarables = new ArrayList<>();
+        HeadersExchange returnExchange = new HeadersExchange(RETRY_RETURN_EXCHANGE, true, false);
+        declarables.add(returnExchange);
+        for (long delayMs : retryPolicy.distinctDelaysMs()) {
+            declarables.add(QueueBuilder.durable(RetryPolicy.delayQueueName(delayMs))
+                    .ttl((int) delayMs)
+                    .deadLetterExchange(RETRY_RETURN_EXCHANGE)
+                    .build());
+        }
+        declarables.add(returnBinding(RabbitMQConfig.QUEUE));
+
+        DirectExchange dlqExchange = new DirectExchange(DLQ_EXCHANGE, true, false);
+        Queue dlq = QueueBuilder.durable(DLQ_QUEUE).build();
+        declarables.add(dlqExchange);
+        declarables.add(dlq);
+        declarables.add(BindingBuilder.bind(dlq).to(dlqExchange).with(DLQ_ROUTING_KEY));
+        return new Declarables(declarables);
+    }
+
+    /**
+     * Route expired retries of {@code queue} back to it.
+     */
+    public static Binding returnBinding(String queue) {
+        return new Binding(queue, Binding.DestinationType.QUEUE, RETRY_RETURN_EXCHANGE, "",
+                Map.of("x-match", "all", FailedOrderRouter.ORIGINAL_QUEUE_HEADER, queue));
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.inventoryservice.config;
+
+import com.rabbitmq.stream.Environment;
+import com.rabbitmq.stream.OffsetSpecification;
+import org.example.inventoryservice.listener.InventoryListener;
+import org.example.inventoryservice.listener.OrderStreamListener;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.rabbit.stream.config.SuperStream;
+import org.springframework.rabbit.stream.listener.StreamListenerContainer;
+
+import java.util.Map;
+
+/**
+ * Stream transport ({@code inventory.transport=stream}, with {@code orders.transport=stream} in
+ * order-service): orders are read from the {@code orders.stream} super stream, whose partitions are
+ * picked by storeId hash.
+ * <p>
+ * Every instance joins as {@code inventory.stream.consumer-name} with single-active-consumer, so the
+ * broker gives each partition to exactly one consumer across all instances and hands it to another one
+ * when that instance goes away. Adding instances spreads the partitions; per-store order holds because
+ * a partition only ever has one reader. Offsets are tracked on the broker ({@link OrderStreamListener});
+ * a consumer name that has never stored one starts at {@code inventory.stream.initial-offset}, so
+ * starting under a new name with {@code first} replays the whole retained stream.
+ * <p>
+ * The classic listeners keep consuming {@code orders.queue}, where retries and DLQ replays arrive.
+ * Needs the {@code rabbitmq_stream} broker plugin.
+ */
+@Configuration
+@ConditionalOnProperty(name = "inventory.transport", havingValue = "stream")
+public class StreamConsumptionConfig {
+
+    public static final String SUPER_STREAM = "orders.stream";
+
+    public StreamConsumptionConfig(
+            @Value("${inventory.persistence.write-behind.enabled:false}") boolean writeBehindEnabled) {
+        // Offsets are stored from the listener thread, before a write-behind flush would have committed
+        if (writeBehindEnabled) {
+            throw new IllegalStateException(
+                    "inventory.transport=stream cannot be combined with inventory.persistence.write-behind.enabled");
+        }
+    }
+
+    // Same declaration as order-service; partition counts must match
+    @Bean
+    public SuperStream orderSuperStream(@Value("${inventory.stream.partitions:4}") int partitions,
+                                        @Value("${inventory.stream.max-age:7D}") String maxAge) {
+        return new SuperStream(SUPER_STREAM, partitions, Map.of("x-max-age", maxAge));
+    }
+
+    @Bean
+    public StreamListenerContainer orderStreamListenerContainer(
+            Environment environment, InventoryListener inventoryListener, MessageConverter messageConverter,
+            @Value("${inventory.stream.consumer-name:inventory-service}") String consumerName,
+            @Value("${inventory.stream.consumers:1}") int consumers,
+            @Value("${inventory.stream.initial-offset:first}") String initialOffset,
+            @Value("${inventory.stream.offset-store-interval:100}") int offsetStoreInterval,
+            @Value("${inventory.stream.route-retry-ms:1000}") long routeRetryMs) {
+        OffsetSpecification startAt = OrderStreamListener.initialOffset(initialOffset);
+        StreamListenerContainer container = new StreamListenerContainer(environment);
+        container.superStream(SUPER_STREAM, consumerName, consumers);
+        container.setConsumerCustomizer((id, builder) -> builder
+                .offset(startAt)
+                .consumerUpdateListener(context -> OrderStreamListener.resumeFrom(context.consumer(), startAt))
+                .manualTrackingStrategy()
+                .builder());
+        container.setupMessageListener(new OrderStreamListener(inventoryListener, messageConverter, offsetStoreInterval,
+                routeRetryMs));
+        return container;
+    }
+}
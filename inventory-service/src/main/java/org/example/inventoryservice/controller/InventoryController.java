@@ -1,13 +1,39 @@
 package org.example.inventoryservice.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.example.inventoryservice.idempotency.IdempotencyStats;
+import org.example.inventoryservice.idempotency.IdempotencyStore;
 import org.example.inventoryservice.model.InventoryOrder;;
+import org.example.inventoryservice.model.OrderCursor;
+import org.example.inventoryservice.model.OrderFilter;
+import org.example.inventoryservice.model.OrderLookupResult;
+import org.example.inventoryservice.retry.DeadLetterReplayer;
 import org.example.inventoryservice.service.InventoryService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 
 
     @RestController
@@ -16,21 +42,139 @@ import org.springframework.web.bind.annotation.RestController;
 
         // private final InventoryOrderRepository orderRepository;
         private final InventoryService inventoryService;
+        private final IdempotencyStore idempotencyStore;
+        private final DeadLetterReplayer deadLetterReplayer;
+        private final int maxLookupIds;
+        private final int maxPageSize;
+        private final ObjectWriter orderWriter;
 
-        public InventoryController(InventoryService inventoryService) {
+        public InventoryController(InventoryService inventoryService, IdempotencyStore idempotencyStore,
+                                   DeadLetterReplayer deadLetterReplayer,
+                                   @Value("${inventory.lookup.max-ids:500}") int maxLookupIds,
+                                   @Value("${inventory.query.max-page-size:1000}") int maxPageSize,
+                                   ObjectMapper objectMapper) {
             this.inventoryService = inventoryService;
+            this.idempotencyStore = idempotencyStore;
+            this.deadLetterReplayer = deadLetterReplayer;
+            this.maxLookupIds = maxLookupIds;
+            this.maxPageSize = maxPageSize;
+            this.orderWriter = objectMapper.writerFor(InventoryOrder.class);
         }
 
+        // Keyset pages in (processedAt, orderId) order, e.g. ?storeId=store-1&from=2024-05-01T00:00&to=2024-05-02T00:00;
+        // pass the page's next cursor as after to get the following one
+        @GetMapping("/orders")
+        public ResponseEntity<?> findProcessedOrders(
+                @RequestParam(required = false) String storeId,
+                @RequestParam(required = false) String orderType,
+                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                @RequestParam(required = false) String after,
+                @RequestParam(defaultValue = "100") int limit) {
+            if (limit < 1 || limit > maxPageSize) {
+                return ResponseEntity.badRequest().body("limit must be between 1 and " + maxPageSize);
+            }
+            if (from != null && to != null && !from.isBefore(to)) {
+                return ResponseEntity.badRequest().body("from must be before to");
+            }
+            OrderCursor cursor;
+            try {
+                cursor = after != null ? OrderCursor.decode(after) : null;
+            } catch (IllegalArgumentException exception) {
+                return ResponseEntity.badRequest().body(exception.getMessage());
+            }
+            return ResponseEntity.ok(inventoryService.findOrders(new OrderFilter(storeId, orderType, from, to), cursor, limit));
+        }
 
+        // Every matching order as NDJSON, read page by page so memory stays bounded however many rows match
+        @GetMapping("/orders:export")
+        public ResponseEntity<StreamingResponseBody> exportProcessedOrders(
+                @RequestParam(required = false) String storeId,
+                @RequestParam(required = false) String orderType,
+                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+            if (from != null && to != null && !from.isBefore(to)) {
+                return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN)
+                        .body(out -> out.write("from must be before to".getBytes(StandardCharsets.UTF_8)));
+            }
+            OrderFilter filter = new OrderFilter(storeId, orderType, from, to);
+            StreamingResponseBody body = outputStream -> {
+                OutputStream out = new BufferedOutputStream(outputStream, 64 * 1024);
+                inventoryService.exportOrders(filter, page -> {
+                    for (InventoryOrder order : page) {
+                        out.write(orderWriter.writeValueAsBytes(order));
+                        out.write('\n');
+                    }
+                    out.flush();
+                });
+                out.flush();
+            };
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+        }
+
+
+        // Processed orders never change, so the ETag lets polling clients revalidate with If-None-Match (304)
         @GetMapping("/orders/{orderId}")
-        public ResponseEntity<?> getProcessedOrder(@PathVariable String orderId) {
-            try {
-                InventoryOrder inventoryOrder = inventoryService.getProcessedOrder(orderId);
-                return ResponseEntity.ok(inventoryOrder);
-            } catch (RuntimeException exception) {
+        public ResponseEntity<?> getProcessedOrder(@PathVariable String orderId, WebRequest request) {
+            Optional<InventoryOrder> inventoryOrder = inventoryService.findProcessedOrder(orderId);
+            if (inventoryOrder.isEmpty()) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body("Order Not Found");
             }
+            String etag = etag(inventoryOrder.get());
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+            return ResponseEntity.ok().eTag(etag).body(inventoryOrder.get());
+        }
+
+        // Status of many orders in one call, at most inventory.lookup.max-ids per request
+        @PostMapping("/orders:lookup")
+        public ResponseEntity<?> lookupProcessedOrders(@RequestBody List<String> orderIds) {
+            if (orderIds.size() > maxLookupIds) {
+                return ResponseEntity.badRequest()
+                        .body("At most " + maxLookupIds + " orderIds per lookup");
+            }
+            for (String orderId : orderIds) {
+                if (orderId == null || orderId.isBlank()) {
+                    return ResponseEntity.badRequest().body("orderIds must not contain null or blank ids");
+                }
+            }
+            Map<String, InventoryOrder> found = inventoryService.findProcessedOrders(new LinkedHashSet<>(orderIds));
+            OrderLookupResult result = new OrderLookupResult();
+            for (String orderId : orderIds) {
+                InventoryOrder inventoryOrder = found.get(orderId);
+                if (inventoryOrder != null) {
+                    result.getFound().add(inventoryOrder);
+                } else {
+                    result.getMissing().add(orderId);
+                }
+            }
+            return ResponseEntity.ok(result);
+        }
+
+        // Hit ratios per tier and measured vs expected filter false positive rate
+        @GetMapping("/idempotency/stats")
+        public IdempotencyStats getIdempotencyStats() {
+            return idempotencyStore.stats();
+        }
+
+        // Put up to max dead-lettered orders back on their queue, paced by inventory.dlq.replay.*
+        @PostMapping("/dlq/replay")
+        public ResponseEntity<?> replayDeadLetters(@RequestParam(defaultValue = "1000") int max) {
+            try {
+                return ResponseEntity.ok(Map.of("replayed", deadLetterReplayer.replay(max)));
+            } catch (IllegalStateException exception) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(exception.getMessage());
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Replay interrupted");
+            }
+        }
+
+        private static String etag(InventoryOrder order) {
+            return "\"" + Integer.toHexString(Objects.hash(order.getOrderId(), order.getOrderType(),
+                    order.getStoreId(), order.getProcessedAt())) + "\"";
         }
     }
 
@@ -0,0 +1,33 @@
+package org.example.inventoryservice.controller;
+
+import org.example.inventoryservice.analytics.OrderStats;
+import org.example.inventoryservice.analytics.OrderStatsAggregator;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Rolling order stats from the in-memory {@link OrderStatsAggregator}; dashboards poll this instead of
+ * querying {@code processed_orders}.
+ */
+@RestController
+@RequestMapping("/inventory/stats")
+public class StatsController {
+
+    private final OrderStatsAggregator orderStats;
+
+    public StatsController(OrderStatsAggregator orderStats) {
+        this.orderStats = orderStats;
+    }
+
+    // e.g. /inventory/stats?storeId=store-1&minutes=15 for the store's last 15 one-minute windows
+    @GetMapping
+    public List<OrderStats> getStats(@RequestParam(required = false) String storeId,
+                                     @RequestParam(required = false) String orderType,
+                                     @RequestParam(defaultValue = "0") int minutes) {
+        return orderStats.snapshot(storeId, orderType, minutes);
+    }
+}
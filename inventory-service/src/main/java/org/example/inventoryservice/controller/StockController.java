@@ -0,0 +1,47 @@
+package org.example.inventoryservice.controller;
+
+import org.example.inventoryservice.stock.StockLedger;
+import org.example.inventoryservice.stock.StockStatus;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Stock levels straight from the in-memory {@link StockLedger}; neither endpoint touches the database.
+ */
+@RestController
+@RequestMapping("/inventory/stock")
+public class StockController {
+
+    private final StockLedger stockLedger;
+
+    public StockController(StockLedger stockLedger) {
+        this.stockLedger = stockLedger;
+    }
+
+    @GetMapping("/{storeId}/{sku}")
+    public ResponseEntity<?> getStock(@PathVariable String storeId, @PathVariable String sku) {
+        return stockLedger.status(storeId, sku)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body("SKU not tracked"));
+    }
+
+    // Absolute level after a delivery or stock count, e.g. {"available": 120}
+    @PutMapping("/{storeId}/{sku}")
+    public ResponseEntity<?> setStock(@PathVariable String storeId, @PathVariable String sku,
+                                      @RequestBody StockUpdate update) {
+        if (update.available() < 0) {
+            return ResponseEntity.badRequest().body("available must not be negative");
+        }
+        stockLedger.setAvailable(storeId, sku, update.available());
+        return ResponseEntity.ok(stockLedger.status(storeId, sku).orElseThrow());
+    }
+
+    public record StockUpdate(long available) {
+    }
+}
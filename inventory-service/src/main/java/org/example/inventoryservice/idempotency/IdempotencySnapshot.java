@@ -0,0 +1,72 @@
+package org.example.inventoryservice.idempotency;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The idempotency cache's orderIds as written on shutdown: magic, version, the time it was written, the
+ * number of ids, each id as length-prefixed UTF-8, and a CRC32C of all of it. Written to a temporary file
+ * and moved into place, so a reader sees either the previous snapshot or the new one.
+ */
+record IdempotencySnapshot(Instant writtenAt, List<String> orderIds) {
+
+    private static final int MAGIC = 0x49445331;
+    private static final short VERSION = 1;
+
+    static void write(Path path, Collection<String> orderIds) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        CheckedOutputStream checked = new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporary)), new CRC32C());
+        try (DataOutputStream out = new DataOutputStream(checked)) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(Instant.now().toEpochMilli());
+            out.writeInt(orderIds.size());
+            for (String orderId : orderIds) {
+                out.writeUTF(orderId);
+            }
+            out.writeInt((int) checked.getChecksum().getValue());
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @throws IOException if the file cannot be read or is not a complete snapshot
+     */
+    static IdempotencySnapshot read(Path path) throws IOException {
+        CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(path)), new CRC32C());
+        try (DataInputStream in = new DataInputStream(checked)) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                throw new IOException("Not an idempotency snapshot: " + path);
+            }
+            Instant writtenAt = Instant.ofEpochMilli(in.readLong());
+            int count = in.readInt();
+            List<String> orderIds = new ArrayList<>(Math.min(count, 1 << 16));
+            for (int i = 0; i < count; i++) {
+                orderIds.add(in.readUTF());
+            }
+            int expected = (int) checked.getChecksum().getValue();
+            if (in.readInt() != expected) {
+                throw new IOException("Idempotency snapshot is corrupt: " + path);
+            }
+            return new IdempotencySnapshot(writtenAt, orderIds);
+        }
+    }
+}
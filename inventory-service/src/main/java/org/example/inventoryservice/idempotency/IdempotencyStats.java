@@ -0,0 +1,21 @@
+package org.example.inventoryservice.idempotency;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class IdempotencyStats {
+    private long lookups;
+    private long cacheHits;
+    private double cacheHitRatio;
+    private long filterNegatives;       // lookups answered "new" by the filter without a DB read
+    private long dbLookups;
+    private long dbHits;
+    private long falsePositives;        // filter said "maybe", DB said "new"
+    private double falsePositiveRate;   // measured: falsePositives / (falsePositives + filterNegatives)
+    private double expectedFalsePositiveRate;
+    private long filterElements;
+    private long filterSizeBytes;
+    private boolean filterReady;
+}
@@ -0,0 +1,31 @@
+package org.example.inventoryservice.idempotency;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Remembers which orders have already been processed so redelivered or resubmitted orders are skipped.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * @return true if the order has already been processed
+     */
+    boolean isProcessed(String orderId);
+
+    /**
+     * Bulk variant of {@link #isProcessed(String)}.
+     *
+     * @return the subset of {@code orderIds} that has already been processed
+     */
+    Set<String> findProcessed(Collection<String> orderIds);
+
+    /**
+     * Record an order as processed. Call only after the order has been persisted.
+     */
+    void markProcessed(String orderId);
+
+    void markProcessed(Collection<String> orderIds);
+
+    IdempotencyStats stats();
+}
@@ -0,0 +1,129 @@
+package org.example.inventoryservice.idempotency;
+
+import org.example.inventoryservice.repository.ProcessedOrderStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Gets the idempotency store ready before the Rabbit listener containers start consuming: rebuilds the
+ * filter, then warms the cache so the redeliveries that follow a restart are answered from memory
+ * instead of each costing a store lookup. The cache is loaded from the snapshot written on the last
+ * graceful shutdown if it is younger than {@code warmup.window}, otherwise from the newest orders
+ * processed within that window, at most {@code warmup.max-orders} either way.
+ * <p>
+ * Lifecycle phase -1 starts after the order store (the journal recovers at -2) and ahead of the listener
+ * endpoint registry, and stops after the write-behind buffer (phase 0) has flushed, so the snapshot
+ * includes its last orders.
+ */
+@Component
+public class IdempotencyStoreInitializer implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStoreInitializer.class);
+
+    private final TieredIdempotencyStore idempotencyStore;
+    private final ProcessedOrderStore orderStore;
+    private final Path snapshotPath;
+    private final Duration warmupWindow;
+    private final int warmupMaxOrders;
+    private volatile boolean running;
+
+    public IdempotencyStoreInitializer(TieredIdempotencyStore idempotencyStore, ProcessedOrderStore orderStore,
+                                       @Value("${inventory.idempotency.snapshot.path:data/idempotency.snapshot}") String snapshotPath,
+                                       @Value("${inventory.idempotency.warmup.window:10m}") Duration warmupWindow,
+                                       @Value("${inventory.idempotency.warmup.max-orders:10000}") int warmupMaxOrders) {
+        this.idempotencyStore = idempotencyStore;
+        this.orderStore = orderStore;
+        this.snapshotPath = snapshotPath.isBlank() ? null : Paths.get(snapshotPath);
+        this.warmupWindow = warmupWindow;
+        this.warmupMaxOrders = warmupMaxOrders;
+    }
+
+    @Override
+    public void start() {
+        idempotencyStore.rebuild();
+        if (warmupMaxOrders > 0) {
+            warmUp();
+        }
+        running = true;
+    }
+
+    private void warmUp() {
+        long start = System.nanoTime();
+        String source = "snapshot";
+        List<String> orderIds = readSnapshot();
+        if (orderIds == null) {
+            source = "store";
+            orderIds = orderStore.findRecentOrderIds(LocalDateTime.now().minus(warmupWindow), warmupMaxOrders);
+        }
+        idempotencyStore.warm(orderIds);
+        logger.info("Idempotency cache warmed: source={}, orders={}, tookMs={}",
+                source, orderIds.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * @return the snapshot's orderIds, or {@code null} if there is no usable snapshot
+     */
+    private List<String> readSnapshot() {
+        if (snapshotPath == null || !Files.exists(snapshotPath)) {
+            return null;
+        }
+        try {
+            IdempotencySnapshot snapshot = IdempotencySnapshot.read(snapshotPath);
+            if (snapshot.writtenAt().isBefore(Instant.now().minus(warmupWindow))) {
+                logger.info("Idempotency snapshot from {} is older than the warm-up window, loading from the store",
+                        snapshot.writtenAt());
+                return null;
+            }
+            List<String> orderIds = snapshot.orderIds();
+            return orderIds.size() > warmupMaxOrders ? orderIds.subList(0, warmupMaxOrders) : orderIds;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not read idempotency snapshot {}, loading from the store: error={}",
+                    snapshotPath, e.toString(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Write the snapshot for the next start. Ids processed after it are still found through the filter and
+     * the store, so a failed or missing snapshot only costs the warm-up.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        if (snapshotPath == null || warmupMaxOrders <= 0) {
+            return;
+        }
+        List<String> orderIds = idempotencyStore.cachedOrderIds();
+        if (orderIds.size() > warmupMaxOrders) {
+            orderIds = orderIds.subList(0, warmupMaxOrders);
+        }
+        try {
+            IdempotencySnapshot.write(snapshotPath, orderIds);
+            logger.info("Idempotency snapshot written: path={}, orders={}", snapshotPath, orderIds.size());
+        } catch (IOException e) {
+            logger.warn("Could not write idempotency snapshot {}: error={}", snapshotPath, e.toString(), e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return -1;
+    }
+}
@@ -0,0 +1,174 @@
+package org.example.inventoryservice.idempotency;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe scalable Bloom filter over order ids.
+ * <p>
+ * Starts with one slice sized for {@code initialCapacity} elements. When a slice is full a new one
+ * with twice the capacity and half the error rate is added. Slice error rates form a geometric series
+ * summing to {@code falsePositiveRate}, so the compound rate stays below it however many ids are inserted.
+ * Reads and inserts are lock-free; only adding a slice takes a lock.
+ */
+public class ScalableBloomFilter {
+
+    private static final int GROWTH_FACTOR = 2;
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private final CopyOnWriteArrayList<Slice> slices = new CopyOnWriteArrayList<>();
+    private final ReentrantLock growLock = new ReentrantLock();
+
+    public ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        if (initialCapacity <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid Bloom filter sizing: capacity=" + initialCapacity
+                    + ", falsePositiveRate=" + falsePositiveRate);
+        }
+        slices.add(new Slice(initialCapacity, falsePositiveRate * (1 - TIGHTENING_RATIO)));
+    }
+
+    /**
+     * @return false if the id was definitely never added, true if it may have been
+     */
+    public boolean mightContain(String id) {
+        long hash1 = hash(id);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1L;
+        for (Slice slice : slices) {
+            if (slice.mightContain(hash1, hash2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void put(String id) {
+        long hash1 = hash(id);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1L;
+        Slice current = slices.get(slices.size() - 1);
+        if (current.isFull()) {
+            current = grow(current);
+        }
+        current.put(hash1, hash2);
+    }
+
+    public long approximateElementCount() {
+        long count = 0;
+        for (Slice slice : slices) {
+            count += slice.count.get();
+        }
+        return count;
+    }
+
+    public long sizeInBytes() {
+        long bytes = 0;
+        for (Slice slice : slices) {
+            bytes += (long) slice.bits.length() * Long.BYTES;
+        }
+        return bytes;
+    }
+
+    /**
+     * Upper bound of the compound false positive rate over all slices.
+     */
+    public double expectedFalsePositiveRate() {
+        double notFalsePositive = 1.0;
+        for (Slice slice : slices) {
+            notFalsePositive *= 1.0 - slice.falsePositiveRate;
+        }
+        return 1.0 - notFalsePositive;
+    }
+
+    private Slice grow(Slice full) {
+        growLock.lock();
+        try {
+            Slice last = slices.get(slices.size() - 1);
+            if (last == full) {
+                last = new Slice(full.capacity * GROWTH_FACTOR, full.falsePositiveRate * TIGHTENING_RATIO);
+                slices.add(last);
+            }
+            return last;
+        } finally {
+            growLock.unlock();
+        }
+    }
+
+    // FNV-1a over the UTF-16 chars, finished with the murmur3 64-bit mixer
+    private static long hash(String id) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            h ^= id.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Slice {
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final long numBits;
+        private final int numHashes;
+        private final AtomicLongArray bits;
+        private final AtomicLong count = new AtomicLong();
+
+        Slice(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.min(Integer.MAX_VALUE - 8, (optimalBits + 63) >>> 6);
+            this.bits = new AtomicLongArray(words);
+            this.numBits = (long) words << 6;
+            this.numHashes = Math.max(1, (int) Math.round((double) numBits / capacity * Math.log(2)));
+        }
+
+        boolean isFull() {
+            return count.get() >= capacity;
+        }
+
+        boolean mightContain(long hash1, long hash2) {
+            long combined = hash1;
+            for (int i = 0; i < numHashes; i++) {
+                long index = (combined & Long.MAX_VALUE) % numBits;
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+                combined += hash2;
+            }
+            return true;
+        }
+
+        void put(long hash1, long hash2) {
+            long combined = hash1;
+            boolean changed = false;
+            for (int i = 0; i < numHashes; i++) {
+                long index = (combined & Long.MAX_VALUE) % numBits;
+                changed |= setBit((int) (index >>> 6), 1L << index);
+                combined += hash2;
+            }
+            if (changed) {
+                count.incrementAndGet();
+            }
+        }
+
+        private boolean setBit(int word, long mask) {
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    return false;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+            return true;
+        }
+    }
+}
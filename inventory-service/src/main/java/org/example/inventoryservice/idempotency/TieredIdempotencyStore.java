@@ -0,0 +1,211 @@
+package org.example.inventoryservice.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.inventoryservice.repository.ProcessedOrderStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Three tiers, checked in order:
+ * <ol>
+ *     <li>the {@code orderCache} Caffeine cache (recently processed ids)</li>
+ *     <li>a scalable Bloom filter over every processed id; a negative answer is final, so most new
+ *     orders never reach the database</li>
+ *     <li>the {@link ProcessedOrderStore} ({@code processed_orders}, or the journal's index), only for ids
+ *     the filter reports as possibly processed</li>
+ * </ol>
+ * The filter is rebuilt from the store at startup by {@link IdempotencyStoreInitializer};
+ * until then every cache miss goes to the database.
+ * <p>
+ * The filter only knows the ids this instance wrote or loaded at startup, so its negatives are only final
+ * while this instance is the single writer of the store. It is therefore off when another instance may
+ * write orders too: with {@code inventory.idempotency.bloom.single-writer=false} (several instances on
+ * {@code orders.queue}) and with the stream transport, whose partitions move between instances. Every
+ * cache miss then goes to the store.
+ */
+@Component
+public class TieredIdempotencyStore implements IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(TieredIdempotencyStore.class);
+
+    private final Cache<String, Boolean> orderCache;
+    private final ProcessedOrderStore orderStore;
+    private final boolean filterEnabled;
+    private final ScalableBloomFilter filter;
+    private volatile boolean filterReady;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder filterNegatives = new LongAdder();
+    private final LongAdder dbLookups = new LongAdder();
+    private final LongAdder dbHits = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final Timer existsTimer;
+    private final Timer existsBatchTimer;
+
+    public TieredIdempotencyStore(Cache<String, Boolean> orderCache,
+                                  ProcessedOrderStore orderStore,
+                                  @Value("${inventory.idempotency.bloom.enabled:true}") boolean filterEnabled,
+                                  @Value("${inventory.idempotency.bloom.single-writer:true}") boolean singleWriter,
+                                  @Value("${inventory.transport:amqp}") String transport,
+                                  @Value("${inventory.idempotency.bloom.expected-insertions:1000000}") long expectedInsertions,
+                                  @Value("${inventory.idempotency.bloom.false-positive-rate:0.01}") double falsePositiveRate,
+                                  MeterRegistry meterRegistry) {
+        this.orderCache = orderCache;
+        this.orderStore = orderStore;
+        boolean streamTransport = "stream".equalsIgnoreCase(transport);
+        if (filterEnabled && (!singleWriter || streamTransport)) {
+            logger.info("Idempotency filter off, other instances may write processed orders: singleWriter={}, transport={}",
+                    singleWriter, transport);
+        }
+        this.filterEnabled = filterEnabled && singleWriter && !streamTransport;
+        this.filter = this.filterEnabled ? new ScalableBloomFilter(expectedInsertions, falsePositiveRate) : null;
+        this.existsTimer = existsTimer(meterRegistry, "single");
+        this.existsBatchTimer = existsTimer(meterRegistry, "batch");
+    }
+
+    private static Timer existsTimer(MeterRegistry meterRegistry, String mode) {
+        return Timer.builder("inventory.db.exists")
+                .description("processed_orders existence checks behind the cache and filter")
+                .tag("mode", mode)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean isProcessed(String orderId) {
+        lookups.increment();
+        if (orderCache.getIfPresent(orderId) != null) {
+            cacheHits.increment();
+            return true;
+        }
+        if (filterReady && !filter.mightContain(orderId)) {
+            filterNegatives.increment();
+            return false;
+        }
+        dbLookups.increment();
+        if (existsTimer.record(() -> orderStore.existsById(orderId))) {
+            dbHits.increment();
+            orderCache.put(orderId, true);  // add to cache for faster lookup next time
+            return true;
+        }
+        if (filterReady) {
+            falsePositives.increment();
+        }
+        return false;
+    }
+
+    @Override
+    public Set<String> findProcessed(Collection<String> orderIds) {
+        lookups.add(orderIds.size());
+        Set<String> processed = new HashSet<>(orderCache.getAllPresent(orderIds).keySet());
+        cacheHits.add(processed.size());
+
+        boolean useFilter = filterReady;
+        List<String> candidates = new ArrayList<>(orderIds.size() - processed.size());
+        for (String orderId : orderIds) {
+            if (processed.contains(orderId)) {
+                continue;
+            }
+            if (useFilter && !filter.mightContain(orderId)) {
+                filterNegatives.increment();
+            } else {
+                candidates.add(orderId);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return processed;
+        }
+
+        dbLookups.add(candidates.size());
+        List<String> existing = existsBatchTimer.record(() -> orderStore.findExistingOrderIds(candidates));
+        dbHits.add(existing.size());
+        if (useFilter) {
+            falsePositives.add(candidates.size() - existing.size());
+        }
+        for (String orderId : existing) {
+            processed.add(orderId);
+            orderCache.put(orderId, true);
+        }
+        return processed;
+    }
+
+    @Override
+    public void markProcessed(String orderId) {
+        orderCache.put(orderId, true);
+        if (filterEnabled) {
+            filter.put(orderId);
+        }
+    }
+
+    @Override
+    public void markProcessed(Collection<String> orderIds) {
+        for (String orderId : orderIds) {
+            markProcessed(orderId);
+        }
+    }
+
+    /**
+     * Put orders known to be processed into the cache, so their redeliveries after a restart are answered
+     * without a store lookup. Only for ids that are in the store (and so in the rebuilt filter).
+     */
+    public void warm(Collection<String> orderIds) {
+        for (String orderId : orderIds) {
+            orderCache.put(orderId, true);
+        }
+    }
+
+    /**
+     * @return a copy of the orderIds in the cache, i.e. the recently processed orders
+     */
+    public List<String> cachedOrderIds() {
+        return List.copyOf(orderCache.asMap().keySet());
+    }
+
+    /**
+     * Add every id in the order store to the filter and start trusting its negative answers.
+     * Additive, so ids marked while the rebuild runs are never lost.
+     */
+    public void rebuild() {
+        if (!filterEnabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        orderStore.forEachOrderId(filter::put);
+        filterReady = true;
+        logger.info("Idempotency filter rebuilt: elements={}, sizeBytes={}, tookMs={}",
+                filter.approximateElementCount(), filter.sizeInBytes(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public IdempotencyStats stats() {
+        long totalLookups = lookups.sum();
+        long hits = cacheHits.sum();
+        long negatives = filterNegatives.sum();
+        long positives = falsePositives.sum();
+        return IdempotencyStats.builder()
+                .lookups(totalLookups)
+                .cacheHits(hits)
+                .cacheHitRatio(totalLookups == 0 ? 0.0 : (double) hits / totalLookups)
+                .filterNegatives(negatives)
+                .dbLookups(dbLookups.sum())
+                .dbHits(dbHits.sum())
+                .falsePositives(positives)
+                .falsePositiveRate(negatives + positives == 0 ? 0.0 : (double) positives / (negatives + positives))
+                .expectedFalsePositiveRate(filterEnabled ? filter.expectedFalsePositiveRate() : 0.0)
+                .filterElements(filterEnabled ? filter.approximateElementCount() : 0)
+                .filterSizeBytes(filterEnabled ? filter.sizeInBytes() : 0)
+                .filterReady(filterReady)
+                .build();
+    }
+}
@@ -0,0 +1,155 @@
+package org.example.inventoryservice.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One journal file, mapped whole: a header slot followed by {@link OrderRecord#SIZE}-byte record slots.
+ * Slots are written once, in order, by the journal's single writer; readers only read slots below
+ * {@link #next()}, or slots the orderId index has handed them.
+ */
+final class JournalSegment {
+
+    private static final int MAGIC = 0x4F4A4E4C;
+    private static final short VERSION = 1;
+
+    private final long sequence;
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+
+    // Written under the journal's write lock
+    private volatile int next = 1;
+    private int live;
+    private long newestSecond = Long.MIN_VALUE;
+
+    private JournalSegment(long sequence, Path path, MappedByteBuffer buffer) {
+        this.sequence = sequence;
+        this.path = path;
+        this.buffer = buffer;
+        this.capacity = buffer.capacity() / OrderRecord.SIZE;
+    }
+
+    static Path path(Path directory, long sequence) {
+        return directory.resolve(String.format("segment-%016d.journal", sequence));
+    }
+
+    static JournalSegment create(Path directory, long sequence, int records) {
+        Path path = path(directory, sequence);
+        MappedByteBuffer buffer = map(path, (long) (records + 1) * OrderRecord.SIZE,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer.putInt(0, MAGIC);
+        buffer.putShort(4, VERSION);
+        buffer.putShort(6, (short) OrderRecord.SIZE);
+        buffer.putLong(8, sequence);
+        buffer.force();
+        return new JournalSegment(sequence, path, buffer);
+    }
+
+    static JournalSegment open(Path path) {
+        MappedByteBuffer buffer = map(path, -1, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION || buffer.getShort(6) != OrderRecord.SIZE) {
+            throw new IllegalStateException("Not an order journal segment: " + path);
+        }
+        return new JournalSegment(buffer.getLong(8), path, buffer);
+    }
+
+    private static MappedByteBuffer map(Path path, long size, StandardOpenOption... options) {
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size < 0 ? channel.size() : size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map journal segment " + path, e);
+        }
+    }
+
+    long sequence() {
+        return sequence;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    int next() {
+        return next;
+    }
+
+    int free() {
+        return capacity - next;
+    }
+
+    int records() {
+        return next - 1;
+    }
+
+    int live() {
+        return live;
+    }
+
+    long newestSecond() {
+        return newestSecond;
+    }
+
+    /**
+     * A read-only view of one slot, safe to use from any thread.
+     */
+    ByteBuffer slot(int slot) {
+        return buffer.slice(slot * OrderRecord.SIZE, OrderRecord.SIZE).asReadOnlyBuffer();
+    }
+
+    /**
+     * Copy encoded records into the slots from {@link #next()} on and move past them.
+     */
+    void append(byte[] records, int count) {
+        buffer.put(next * OrderRecord.SIZE, records, 0, count * OrderRecord.SIZE);
+        next += count;
+    }
+
+    /**
+     * Account for a record now pointed at by the index (recovery, or a write).
+     */
+    void added(long processedAtSecond) {
+        live++;
+        newestSecond = Math.max(newestSecond, processedAtSecond);
+    }
+
+    void superseded() {
+        live--;
+    }
+
+    /**
+     * After recovery: continue writing at {@code slot}, clearing the slots up to {@code end} that held
+     * records of a write that never committed.
+     */
+    void truncate(int slot, int end) {
+        int length = (Math.min(end, capacity) - slot) * OrderRecord.SIZE;
+        if (length > 0) {
+            buffer.put(slot * OrderRecord.SIZE, new byte[length]);
+        }
+        next = slot;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void delete() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete journal segment " + path, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return path.getFileName().toString();
+    }
+}
@@ -0,0 +1,504 @@
+package org.example.inventoryservice.journal;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.inventoryservice.model.InventoryOrder;
+import org.example.inventoryservice.model.OrderCursor;
+import org.example.inventoryservice.model.OrderFilter;
+import org.example.inventoryservice.repository.ProcessedOrderStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Processed orders in an append-only journal of memory-mapped segment files, for edge nodes that need
+ * durable, cheap writes without a database server ({@code inventory.persistence.backend=journal}).
+ * <p>
+ * Each order is one fixed-layout {@link OrderRecord}; a write (one order, or a whole batch) is a single
+ * copy into the mapped segment, and its last record carries the commit flag. An in-memory index maps every
+ * orderId to its record, so existence checks never touch the files. A segment that cannot take the next
+ * write is forced to disk and a new one is started.
+ * <p>
+ * Recovery on start replays the segments in order: records are indexed up to each commit, a later record
+ * for the same orderId wins, and the tail of a write that never committed (the process died mid-copy) is
+ * cleared so writing continues after the last commit.
+ * <p>
+ * Durability: written records are in the page cache as soon as the write returns, so they survive the
+ * process dying. They reach the disk when the OS writes them back, or when forced every
+ * {@code force-interval-ms} (bounding what a power loss can take), or on every write with
+ * {@code force-every-write}.
+ * <p>
+ * Compaction rewrites full segments whose live records (not replaced by a later save of the same orderId)
+ * have dropped below {@code compaction.live-ratio}, copying them to the current segment, and deletes
+ * segments whose newest order is older than {@code retention} (0 keeps every order, like
+ * {@code processed_orders}). Compaction holds the write lock while it copies a segment.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.persistence.backend", havingValue = "journal")
+public class OrderJournal implements ProcessedOrderStore, SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderJournal.class);
+
+    private static final Comparator<InventoryOrder> PAGE_ORDER =
+            Comparator.comparing(InventoryOrder::getProcessedAt).thenComparing(InventoryOrder::getOrderId);
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final boolean forceEveryWrite;
+    private final Duration retention;
+    private final double compactionLiveRatio;
+
+    private final Map<String, Long> index = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, JournalSegment> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Counter compactedRecords;
+    private volatile JournalSegment active;
+    private volatile boolean unforced;
+    private volatile boolean running;
+
+    public OrderJournal(@Value("${inventory.persistence.journal.dir:data/journal}") String directory,
+                        @Value("${inventory.persistence.journal.segment-records:262144}") int segmentRecords,
+                        @Value("${inventory.persistence.journal.force-every-write:false}") boolean forceEveryWrite,
+                        @Value("${inventory.persistence.journal.retention:0s}") Duration retention,
+                        @Value("${inventory.persistence.journal.compaction.live-ratio:0.5}") double compactionLiveRatio,
+                        MeterRegistry meterRegistry) {
+        this.directory = Paths.get(directory);
+        this.segmentRecords = segmentRecords;
+        this.forceEveryWrite = forceEveryWrite;
+        this.retention = retention;
+        this.compactionLiveRatio = compactionLiveRatio;
+        this.compactedRecords = Counter.builder("inventory.journal.compaction.records")
+                .description("Live records copied forward by journal compaction")
+                .register(meterRegistry);
+        Gauge.builder("inventory.journal.orders", index, Map::size)
+                .description("Orders in the journal index")
+                .register(meterRegistry);
+        Gauge.builder("inventory.journal.segments", segments, Map::size)
+                .description("Journal segment files")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void save(InventoryOrder order) {
+        write(List.of(order), true);
+    }
+
+    @Override
+    public void insertAll(List<InventoryOrder> orders) {
+        if (!orders.isEmpty()) {
+            write(orders, false);
+        }
+    }
+
+    private void write(List<InventoryOrder> orders, boolean replace) {
+        if (orders.size() > segmentRecords) {
+            throw new IllegalArgumentException("A write of " + orders.size()
+                    + " orders does not fit a journal segment of " + segmentRecords);
+        }
+        // Encoded outside the lock; a field that does not fit fails the write before anything is copied
+        byte[] records = new byte[orders.size() * OrderRecord.SIZE];
+        for (int i = 0; i < orders.size(); i++) {
+            OrderRecord.encode(orders.get(i), i == orders.size() - 1, records, i * OrderRecord.SIZE);
+        }
+        writeLock.lock();
+        try {
+            checkRunning();
+            if (!replace) {
+                Set<String> seen = new HashSet<>();
+                for (InventoryOrder order : orders) {
+                    if (index.containsKey(order.getOrderId()) || !seen.add(order.getOrderId())) {
+                        throw new DuplicateKeyException("Order already in the journal: " + order.getOrderId());
+                    }
+                }
+            }
+            if (active.free() < orders.size()) {
+                roll();
+            }
+            int first = active.next();
+            active.append(records, orders.size());
+            for (int i = 0; i < orders.size(); i++) {
+                InventoryOrder order = orders.get(i);
+                index(order.getOrderId(), position(active, first + i), epochSecond(order));
+            }
+            afterWrite();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Point the index at a new record, accounting for the record it replaces.
+     */
+    private void index(String orderId, long position, long processedAtSecond) {
+        Long previous = index.put(orderId, position);
+        if (previous != null) {
+            JournalSegment segment = segments.get(sequence(previous));
+            if (segment != null) {
+                segment.superseded();
+            }
+        }
+        segments.get(sequence(position)).added(processedAtSecond);
+    }
+
+    private void afterWrite() {
+        if (forceEveryWrite) {
+            active.force();
+        } else {
+            unforced = true;
+        }
+    }
+
+    private void roll() {
+        active.force();
+        JournalSegment next = JournalSegment.create(directory, active.sequence() + 1, segmentRecords);
+        segments.put(next.sequence(), next);
+        logger.info("Journal segment {} full, continuing in {}", active, next);
+        active = next;
+    }
+
+    @Override
+    public boolean existsById(String orderId) {
+        return index.containsKey(orderId);
+    }
+
+    @Override
+    public List<String> findExistingOrderIds(Collection<String> orderIds) {
+        List<String> existing = new ArrayList<>();
+        for (String orderId : orderIds) {
+            if (index.containsKey(orderId)) {
+                existing.add(orderId);
+            }
+        }
+        return existing;
+    }
+
+    @Override
+    public Optional<InventoryOrder> findById(String orderId) {
+        while (true) {
+            Long position = index.get(orderId);
+            if (position == null) {
+                return Optional.empty();
+            }
+            JournalSegment segment = segments.get(sequence(position));
+            if (segment != null) {
+                return Optional.of(OrderRecord.decode(segment.slot(slot(position))));
+            }
+            // Compaction moved the record and deleted its segment in between; the index has the new position
+        }
+    }
+
+    @Override
+    public List<InventoryOrder> findAllById(Collection<String> orderIds) {
+        List<InventoryOrder> orders = new ArrayList<>(orderIds.size());
+        for (String orderId : orderIds) {
+            findById(orderId).ifPresent(orders::add);
+        }
+        return orders;
+    }
+
+    /**
+     * The journal has no secondary indexes: every page scans all live records, keeping the {@code limit}
+     * first matches. Fine for the occasional reconciliation query on an edge node, not for bulk exports.
+     */
+    @Override
+    public List<InventoryOrder> findPage(OrderFilter filter, OrderCursor after, int limit) {
+        PriorityQueue<InventoryOrder> page = new PriorityQueue<>(limit + 1, PAGE_ORDER.reversed());
+        forEachLive((orderId, segment, slot) -> {
+            InventoryOrder order = OrderRecord.decode(segment.slot(slot));
+            if (matches(order, filter, after)) {
+                page.add(order);
+                if (page.size() > limit) {
+                    page.poll();
+                }
+            }
+        });
+        List<InventoryOrder> orders = new ArrayList<>(page);
+        orders.sort(PAGE_ORDER);
+        return orders;
+    }
+
+    private static boolean matches(InventoryOrder order, OrderFilter filter, OrderCursor after) {
+        if (order.getProcessedAt() == null
+                || filter.storeId() != null && !filter.storeId().equals(order.getStoreId())
+                || filter.orderType() != null && !filter.orderType().equals(order.getOrderType())
+                || filter.from() != null && order.getProcessedAt().isBefore(filter.from())
+                || filter.to() != null && !order.getProcessedAt().isBefore(filter.to())) {
+            return false;
+        }
+        if (after == null) {
+            return true;
+        }
+        int byTime = order.getProcessedAt().compareTo(after.processedAt());
+        return byTime > 0 || byTime == 0 && order.getOrderId().compareTo(after.orderId()) > 0;
+    }
+
+    @Override
+    public List<String> findRecentOrderIds(LocalDateTime since, int limit) {
+        long sinceSecond = since.toEpochSecond(ZoneOffset.UTC);
+        PriorityQueue<InventoryOrder> newest = new PriorityQueue<>(limit + 1, PAGE_ORDER);
+        forEachLive((orderId, segment, slot) -> {
+            ByteBuffer record = segment.slot(slot);
+            if (OrderRecord.processedAtSecond(record) >= sinceSecond) {
+                InventoryOrder order = OrderRecord.decode(record);
+                if (!order.getProcessedAt().isBefore(since)) {
+                    newest.add(order);
+                    if (newest.size() > limit) {
+                        newest.poll();
+                    }
+                }
+            }
+        });
+        List<InventoryOrder> orders = new ArrayList<>(newest);
+        orders.sort(PAGE_ORDER.reversed());
+        List<String> orderIds = new ArrayList<>(orders.size());
+        for (InventoryOrder order : orders) {
+            orderIds.add(order.getOrderId());
+        }
+        return orderIds;
+    }
+
+    @Override
+    public void forEachOrderId(Consumer<String> consumer) {
+        index.keySet().forEach(consumer);
+    }
+
+    /**
+     * Visit every record the index points at, segment by segment in file order.
+     */
+    private void forEachLive(LiveRecordVisitor visitor) {
+        for (JournalSegment segment : segments.values()) {
+            int end = segment.next();
+            long base = position(segment, 0);
+            for (int slot = 1; slot < end; slot++) {
+                ByteBuffer record = segment.slot(slot);
+                String orderId = OrderRecord.orderId(record);
+                Long position = index.get(orderId);
+                if (position != null && position == base + slot) {
+                    visitor.visit(orderId, segment, slot);
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.persistence.journal.force-interval-ms:100}")
+    public void forceToDisk() {
+        if (!unforced || !running) {
+            return;
+        }
+        unforced = false;
+        JournalSegment segment = active;
+        segment.force();
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.persistence.journal.compaction.interval-ms:60000}")
+    public void compact() {
+        if (!running) {
+            return;
+        }
+        long cutoff = retention.isZero() ? Long.MIN_VALUE : LocalDateTime.now().minus(retention).toEpochSecond(ZoneOffset.UTC);
+        for (JournalSegment segment : List.copyOf(segments.values())) {
+            writeLock.lock();
+            try {
+                if (segment == active || !running) {
+                    continue;
+                }
+                if (segment.newestSecond() < cutoff || segment.live() < segment.records() * compactionLiveRatio) {
+                    rewrite(segment, cutoff);
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Copy the segment's live, unexpired records to the active segment, then delete it. The copies are
+     * forced before the file goes; if the process dies in between, recovery finds both and the later copy
+     * wins.
+     */
+    private void rewrite(JournalSegment segment, long cutoff) {
+        long base = position(segment, 0);
+        int copied = 0;
+        int expired = 0;
+        byte[] record = new byte[OrderRecord.SIZE];
+        for (int slot = 1; slot < segment.next(); slot++) {
+            ByteBuffer source = segment.slot(slot);
+            String orderId = OrderRecord.orderId(source);
+            long position = base + slot;
+            if (!index.getOrDefault(orderId, -1L).equals(position)) {
+                continue;
+            }
+            long processedAtSecond = OrderRecord.processedAtSecond(source);
+            if (processedAtSecond != Long.MIN_VALUE && processedAtSecond < cutoff) {
+                index.remove(orderId, position);
+                expired++;
+                continue;
+            }
+            source.get(0, record);
+            OrderRecord.markCommitted(record, 0);
+            if (active.free() < 1) {
+                roll();
+            }
+            int target = active.next();
+            active.append(record, 1);
+            index.put(orderId, position(active, target));
+            active.added(processedAtSecond);
+            copied++;
+        }
+        active.force();
+        segments.remove(segment.sequence());
+        segment.delete();
+        compactedRecords.increment(copied);
+        logger.info("Journal segment {} compacted: copied={}, expired={}, dropped={}",
+                segment, copied, expired, segment.records() - copied - expired);
+    }
+
+    /**
+     * Map the segment files and rebuild the index from them.
+     */
+    @Override
+    public void start() {
+        long start = System.nanoTime();
+        writeLock.lock();
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing.filter(path -> path.getFileName().toString().matches("segment-\\d+\\.journal"))
+                        .sorted()
+                        .toList();
+            }
+            int discarded = 0;
+            for (Path file : files) {
+                JournalSegment segment = JournalSegment.open(file);
+                segments.put(segment.sequence(), segment);
+                discarded += replay(segment);
+            }
+            active = segments.isEmpty()
+                    ? JournalSegment.create(directory, 1, segmentRecords)
+                    : segments.lastEntry().getValue();
+            segments.putIfAbsent(active.sequence(), active);
+            running = true;
+            logger.info("Order journal recovered: dir={}, segments={}, orders={}, discardedRecords={}, tookMs={}",
+                    directory.toAbsolutePath(), segments.size(), index.size(), discarded,
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the order journal in " + directory, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Index the segment's records up to its last commit and clear what follows it.
+     *
+     * @return the records discarded because their write never committed
+     */
+    private int replay(JournalSegment segment) {
+        int committed = 1;
+        int slot = 1;
+        for (; slot < segment.capacity(); slot++) {
+            int flags = OrderRecord.check(segment.slot(slot));
+            if (flags < 0) {
+                break;
+            }
+            if ((flags & OrderRecord.COMMIT) != 0) {
+                for (int replayed = committed; replayed <= slot; replayed++) {
+                    ByteBuffer record = segment.slot(replayed);
+                    index(OrderRecord.orderId(record), position(segment, replayed), OrderRecord.processedAtSecond(record));
+                }
+                committed = slot + 1;
+            }
+        }
+        // Also clears the slot that failed the check, in case it holds part of a record
+        segment.truncate(committed, slot + 1);
+        if (slot > committed) {
+            logger.warn("Journal segment {} ends in an uncommitted write, discarded {} records", segment, slot - committed);
+        }
+        return slot - committed;
+    }
+
+    @Override
+    public void stop() {
+        writeLock.lock();
+        try {
+            if (running) {
+                active.force();
+                running = false;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Recovered before the idempotency store is rebuilt and warmed from it (phase -1), stopped after
+     * the write-behind buffer has flushed into it.
+     */
+    @Override
+    public int getPhase() {
+        return -2;
+    }
+
+    private void checkRunning() {
+        if (!running) {
+            throw new IllegalStateException("Order journal is not open");
+        }
+    }
+
+    private static long position(JournalSegment segment, int slot) {
+        return segment.sequence() << 32 | slot;
+    }
+
+    private static long sequence(long position) {
+        return position >>> 32;
+    }
+
+    private static int slot(long position) {
+        return (int) position;
+    }
+
+    private static long epochSecond(InventoryOrder order) {
+        return order.getProcessedAt() != null ? order.getProcessedAt().toEpochSecond(ZoneOffset.UTC) : Long.MIN_VALUE;
+    }
+
+    @FunctionalInterface
+    private interface LiveRecordVisitor {
+        void visit(String orderId, JournalSegment segment, int slot);
+    }
+}
@@ -0,0 +1,143 @@
+package org.example.inventoryservice.journal;
+
+import org.example.inventoryservice.model.InventoryOrder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32C;
+
+/**
+ * Fixed layout of one order in a journal segment, {@value #SIZE} bytes:
+ * <pre>
+ *   0  int   CRC32C of bytes 4..255
+ *   4  byte  flags, {@link #COMMIT} on the last record of a write
+ *   5  byte  orderId length    (UTF-8 bytes, at most 96)
+ *   6  byte  orderType length  (at most 32)
+ *   7  byte  storeId length    (at most 96)
+ *   8  long  processedAt, epoch seconds (UTC)
+ *  16  int   processedAt nanos, -1 without a processedAt
+ *  20  orderId, orderType, storeId, each in its own fixed slot
+ * </pre>
+ * A slot that was never written (or only partly) fails the CRC, which is how recovery finds the end of
+ * a segment.
+ */
+final class OrderRecord {
+
+    static final int SIZE = 256;
+    static final byte COMMIT = 1;
+
+    private static final int FLAGS = 4;
+    private static final int LENGTHS = 5;
+    private static final int SECONDS = 8;
+    private static final int NANOS = 16;
+    private static final int ORDER_ID = 20;
+    private static final int ORDER_ID_MAX = 96;
+    private static final int ORDER_TYPE = ORDER_ID + ORDER_ID_MAX;
+    private static final int ORDER_TYPE_MAX = 32;
+    private static final int STORE_ID = ORDER_TYPE + ORDER_TYPE_MAX;
+    private static final int STORE_ID_MAX = 96;
+
+    private OrderRecord() {
+    }
+
+    /**
+     * Encode the order into {@code target} at {@code offset}.
+     *
+     * @throws IllegalArgumentException if the order has no id or a field does not fit its slot
+     */
+    static void encode(InventoryOrder order, boolean commit, byte[] target, int offset) {
+        if (order.getOrderId() == null || order.getOrderId().isEmpty()) {
+            throw new IllegalArgumentException("Order has no orderId");
+        }
+        ByteBuffer record = ByteBuffer.wrap(target, offset, SIZE).slice();
+        record.put(FLAGS, commit ? COMMIT : 0);
+        record.put(LENGTHS, field(record, ORDER_ID, ORDER_ID_MAX, "orderId", order.getOrderId()));
+        record.put(LENGTHS + 1, field(record, ORDER_TYPE, ORDER_TYPE_MAX, "orderType", order.getOrderType()));
+        record.put(LENGTHS + 2, field(record, STORE_ID, STORE_ID_MAX, "storeId", order.getStoreId()));
+        LocalDateTime processedAt = order.getProcessedAt();
+        record.putLong(SECONDS, processedAt != null ? processedAt.toEpochSecond(ZoneOffset.UTC) : 0);
+        record.putInt(NANOS, processedAt != null ? processedAt.getNano() : -1);
+        seal(record);
+    }
+
+    /**
+     * Set the commit flag of an encoded record (a copy made by compaction stands on its own).
+     */
+    static void markCommitted(byte[] target, int offset) {
+        ByteBuffer record = ByteBuffer.wrap(target, offset, SIZE).slice();
+        record.put(FLAGS, COMMIT);
+        seal(record);
+    }
+
+    /**
+     * @return the record's flags, or -1 if the slot does not hold a complete record
+     */
+    static int check(ByteBuffer record) {
+        CRC32C crc = new CRC32C();
+        crc.update(record.slice(FLAGS, SIZE - FLAGS));
+        if ((int) crc.getValue() != record.getInt(0) || record.get(LENGTHS) == 0) {
+            return -1;
+        }
+        return record.get(FLAGS);
+    }
+
+    static String orderId(ByteBuffer record) {
+        return string(record, ORDER_ID, ORDER_ID_MAX, LENGTHS);
+    }
+
+    static long processedAtSecond(ByteBuffer record) {
+        return record.getInt(NANOS) < 0 ? Long.MIN_VALUE : record.getLong(SECONDS);
+    }
+
+    static InventoryOrder decode(ByteBuffer record) {
+        InventoryOrder order = new InventoryOrder();
+        order.setOrderId(orderId(record));
+        order.setOrderType(string(record, ORDER_TYPE, ORDER_TYPE_MAX, LENGTHS + 1));
+        order.setStoreId(string(record, STORE_ID, STORE_ID_MAX, LENGTHS + 2));
+        int nanos = record.getInt(NANOS);
+        if (nanos >= 0) {
+            order.setProcessedAt(LocalDateTime.ofEpochSecond(record.getLong(SECONDS), nanos, ZoneOffset.UTC));
+        }
+        return order;
+    }
+
+    private static void seal(ByteBuffer record) {
+        CRC32C crc = new CRC32C();
+        crc.update(record.slice(FLAGS, SIZE - FLAGS));
+        record.putInt(0, (int) crc.getValue());
+    }
+
+    /**
+     * Write the value into its slot; length 0 stands for null, so an empty string is stored as one
+     * byte past the maximum and read back as "".
+     */
+    private static byte field(ByteBuffer record, int offset, int max, String name, String value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value.isEmpty()) {
+            return (byte) (max + 1);
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > max) {
+            throw new IllegalArgumentException(name + " is longer than the journal's " + max + " bytes: " + value);
+        }
+        record.put(offset, bytes);
+        return (byte) bytes.length;
+    }
+
+    private static String string(ByteBuffer record, int offset, int max, int lengthAt) {
+        int length = Byte.toUnsignedInt(record.get(lengthAt));
+        if (length == 0) {
+            return null;
+        }
+        if (length > max) {
+            return "";
+        }
+        byte[] bytes = new byte[length];
+        record.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
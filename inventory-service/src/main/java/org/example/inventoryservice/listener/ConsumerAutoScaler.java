@@ -0,0 +1,75 @@
+package org.example.inventoryservice.listener;
+
+import org.example.inventoryservice.config.RabbitMQConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sizes the consumers of {@code orders.queue} from its depth: one extra consumer per
+ * {@code inventory.listener.autoscale.messages-per-consumer} ready messages, between the container's
+ * configured concurrency and max-concurrency. Complements the container's own activity-based scaling,
+ * which only reacts after consumers are already busy.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.listener.autoscale.enabled", havingValue = "true")
+public class ConsumerAutoScaler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsumerAutoScaler.class);
+
+    private final AmqpAdmin amqpAdmin;
+    private final RabbitListenerEndpointRegistry registry;
+    private final int minConsumers;
+    private final int maxConsumers;
+    private final int messagesPerConsumer;
+    private volatile int currentTarget = -1;
+
+    public ConsumerAutoScaler(AmqpAdmin amqpAdmin, RabbitListenerEndpointRegistry registry,
+                              @Value("${spring.rabbitmq.listener.simple.concurrency:1}") int minConsumers,
+                              @Value("${spring.rabbitmq.listener.simple.max-concurrency:1}") int maxConsumers,
+                              @Value("${inventory.listener.autoscale.messages-per-consumer:1000}") int messagesPerConsumer) {
+        this.amqpAdmin = amqpAdmin;
+        this.registry = registry;
+        this.minConsumers = minConsumers;
+        this.maxConsumers = Math.max(minConsumers, maxConsumers);
+        this.messagesPerConsumer = messagesPerConsumer;
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.listener.autoscale.interval-ms:5000}")
+    public void rescale() {
+        QueueInformation queue;
+        try {
+            queue = amqpAdmin.getQueueInfo(RabbitMQConfig.QUEUE);
+        } catch (AmqpException e) {
+            logger.warn("Could not read depth of {}: error={}", RabbitMQConfig.QUEUE, e.getMessage());
+            return;
+        }
+        if (queue == null) {
+            return;
+        }
+        int target = (int) Math.min(maxConsumers, minConsumers + (long) queue.getMessageCount() / messagesPerConsumer);
+        if (target == currentTarget) {
+            return;
+        }
+        logger.info("Rescaling consumers of {}: depth={}, consumers={} -> {}",
+                RabbitMQConfig.QUEUE, queue.getMessageCount(), currentTarget, target);
+        for (MessageListenerContainer container : registry.getListenerContainers()) {
+            if (container instanceof SimpleMessageListenerContainer simple
+                    && simple.isRunning()
+                    && simple.getQueueNames().length == 1
+                    && RabbitMQConfig.QUEUE.equals(simple.getQueueNames()[0])) {
+                simple.setConcurrentConsumers(target);
+            }
+        }
+        currentTarget = target;
+    }
+}
@@ -1,100 +1,365 @@
 package org.example.inventoryservice.listener;
 
-import com.github.benmanes.caffeine.cache.Cache;
-
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.common.OrderMessage;
+import org.example.inventoryservice.analytics.OrderStatsAggregator;
+import org.example.inventoryservice.config.RabbitMQConfig;
+import org.example.inventoryservice.idempotency.IdempotencyStore;
 import org.example.inventoryservice.model.InventoryOrder;
-import org.example.inventoryservice.repository.InventoryOrderRepository;
+import org.example.inventoryservice.repository.ProcessedOrderStore;
+import org.example.inventoryservice.retry.FailedOrderRouter;
+import org.example.inventoryservice.stock.InsufficientStockException;
+import org.example.inventoryservice.stock.StockLedger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
 import org.springframework.stereotype.Component;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class InventoryListener {
     private static final Logger logger = LoggerFactory.getLogger(InventoryListener.class);
-    private final Cache<String, Boolean> orderCache;
-    private final InventoryOrderRepository orderRepository;
-    private final RabbitTemplate rabbitTemplate;
+    private final IdempotencyStore idempotencyStore;
+    private final ProcessedOrderStore orderStore;
+    private final FailedOrderRouter failedOrderRouter;
+    private final WriteBehindBuffer writeBehind;
+    private final StockLedger stockLedger;
+    private final OrderStatsAggregator orderStats;
+    private final Timer saveTimer;
+    private final Timer saveBatchTimer;
+    private final Timer lagTimer;
 
-    public InventoryListener(Cache<String, Boolean> orderCache, InventoryOrderRepository orderRepository, RabbitTemplate rabbitTemplate) {
-        this.orderCache = orderCache;
-        this.orderRepository = orderRepository;
-        this.rabbitTemplate = rabbitTemplate;
+    public InventoryListener(IdempotencyStore idempotencyStore, ProcessedOrderStore orderStore,
+                             FailedOrderRouter failedOrderRouter, WriteBehindBuffer writeBehind, StockLedger stockLedger,
+                             OrderStatsAggregator orderStats, MeterRegistry meterRegistry) {
+        this.idempotencyStore = idempotencyStore;
+        this.orderStore = orderStore;
+        this.failedOrderRouter = failedOrderRouter;
+        this.writeBehind = writeBehind;
+        this.stockLedger = stockLedger;
+        this.orderStats = orderStats;
+        this.saveTimer = saveTimer(meterRegistry, "single");
+        this.saveBatchTimer = saveTimer(meterRegistry, "batch");
+        // Publisher timestamp (set by order-service) to the moment the listener picks the order up
+        this.lagTimer = Timer.builder("inventory.order.lag")
+                .description("Time from publish in order-service to processing here")
+                .register(meterRegistry);
     }
 
-    @RabbitListener(queues = "orders-queue")
-    public void processOrder(InventoryOrder order) {
-        String orderId = order.getOrderId();
+    private static Timer saveTimer(MeterRegistry meterRegistry, String mode) {
+        return Timer.builder("inventory.db.save")
+                .description("Inserts into processed_orders")
+                .tag("mode", mode)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Batch mode (default): duplicates for the whole batch are resolved with one idempotency store
+     * lookup (cache, filter, then at most one DB query), new orders take their stock from {@link StockLedger}
+     * and are written with a single batch insert, and the batch is acked together when this method returns.
+     * Orders the ledger rejects are routed to the DLQ. If anything in the batch path fails, every order is
+     * re-processed one by one. New orders are counted in {@link OrderStatsAggregator} once written (or
+     * queued for write-behind).
+     * <p>
+     * With write-behind enabled, new orders are handed to {@link WriteBehindBuffer} instead and each
+     * message is acked once its order has been committed; rejects once routed and duplicates last. Once
+     * the first order has been handed over there is no per-message fallback: an order that cannot be
+     * submitted or routed is requeued on its own.
+     */
+    @RabbitListener(id = "inventoryBatchListener", queues = RabbitMQConfig.QUEUE,
+            containerFactory = "batchListenerContainerFactory",
+            autoStartup = "${inventory.listener.batch.enabled:true}")
+    public void processOrders(List<Message<OrderMessage>> messages, Channel channel) {
+        List<Message<OrderMessage>> valid = new ArrayList<>(messages.size());
+        for (Message<OrderMessage> message : messages) {
+            recordLag(message.getHeaders().get(AmqpHeaders.TIMESTAMP, Date.class));
+            if (message.getPayload().getOrderId() == null) {
+                routeFailure(channel, deliveryTag(message.getHeaders()), () -> failedOrderRouter.deadLetter(
+                        message.getPayload(), message.getHeaders(), new IllegalArgumentException("Order has no orderId")));
+            } else {
+                valid.add(message);
+            }
+        }
+        Batch batch;
+        try {
+            batch = prepareBatch(valid);
+            if (!writeBehind.isEnabled()) {
+                writeBatch(batch, messages.size(), channel);
+                return;
+            }
+        } catch (Exception e) {
+            logger.warn("Batch of {} orders failed, falling back to per-message processing: error={}",
+                    valid.size(), e.getMessage(), e);
+            valid.forEach(message -> handle(message.getPayload(), channel, message.getHeaders()));
+            return;
+        }
+        // From here on messages are acked one by one, so a failure is settled per message, never by a fallback
+        queueBatch(batch, messages.size(), channel);
+    }
+
+    @RabbitListener(id = "inventoryOrderListener", queues = RabbitMQConfig.QUEUE,
+            autoStartup = "#{!${inventory.listener.batch.enabled:true}}")
+    public void processOrder(OrderMessage order, Channel channel, MessageHeaders headers) {
+        recordLag(headers.get(AmqpHeaders.TIMESTAMP, Date.class));
+        handle(order, channel, headers);
+    }
 
-        logger.info("Received order for processing: orderId={}, orderType={}, storeId={}",
-                orderId, order.getOrderType(), order.getStoreId());
+    /**
+     * Failures are handed to {@link FailedOrderRouter}: transient ones come back after a backoff,
+     * the rest go to the DLQ. Either way the delivery itself is acked.
+     */
+    private void handle(OrderMessage order, Channel channel, MessageHeaders headers) {
+        String orderId = order.getOrderId();
+        long deliveryTag = deliveryTag(headers);
         try {
-            // Check cache for idempotency
-            if (orderCache.getIfPresent(orderId) != null) {
-                System.out.println("Duplicate order detected in cache, skipping: " + orderId);
+            // Check cache, filter and DB for idempotency
+            if (idempotencyStore.isProcessed(orderId) || writeBehind.isPending(orderId)) {
+                logger.debug("Duplicate order detected, skipping: orderId={}", orderId);
+                ack(channel, deliveryTag);
                 return;
             }
 
-            // Check DB for idempotency
-            if (orderRepository.existsById(orderId)) {
-                System.out.println("Duplicate order detected in DB, skipping: " + orderId);
-                orderCache.put(orderId, true);  // add to cache for faster lookup next time
+            // Take stock for the item lines; an oversell throws and the order is dead-lettered
+            StockLedger.Reservation reservation = stockLedger.reserve(order);
+
+            if (writeBehind.isEnabled()) {
+                // Saved, marked processed and acked by the flusher
+                try {
+                    writeBehind.submit(toProcessed(order), channel, deliveryTag, reservation::release);
+                } catch (InterruptedException e) {
+                    reservation.release();
+                    throw e;
+                }
+                orderStats.record(order);
+                logger.debug("Order queued for write-behind: orderId={}", orderId);
                 return;
             }
-            // Process order
-            logger.info("Processing new order: orderId={}", orderId);
 
             // Save processed order
-            InventoryOrder inventoryOrder = new InventoryOrder();
-            inventoryOrder.setOrderId(orderId);
-            inventoryOrder.setOrderType(order.getOrderType());
-            inventoryOrder.setStoreId(order.getStoreId());
-            inventoryOrder.setProcessedAt(LocalDateTime.now());
-            orderRepository.save(inventoryOrder);
-            logger.debug("Order saved to database: orderId={}", orderId);
-            // Add to cache
-            orderCache.put(orderId, true);
-            logger.debug("Order added to cache: orderId={}", orderId);
-            // Update inventory logic here (simplified)
-            logger.info("Inventory successfully updated for order: orderId={}", orderId);
+            InventoryOrder processed = toProcessed(order);
+            try {
+                saveTimer.record(() -> orderStore.save(processed));
+            } catch (RuntimeException e) {
+                reservation.release();
+                throw e;
+            }
+            // Add to cache and filter
+            idempotencyStore.markProcessed(orderId);
+            orderStats.record(order);
+            logger.debug("Order processed: orderId={}, orderType={}, storeId={}",
+                    orderId, order.getOrderType(), order.getStoreId());
         }
+    catch (InterruptedException e) {
+        // Container is stopping; the unacked message is redelivered
+        Thread.currentThread().interrupt();
+    }
     catch (Exception e) {
-        logger.error("Error processing order: orderId={}, error={}", orderId, e.getMessage(), e);
-        sendToDeadLetterQueue(order, e);
+        logger.debug("Error processing order: orderId={}", orderId, e);
+        routeFailure(channel, deliveryTag, () -> failedOrderRouter.route(order, headers, e));
     }
 }
 
-    private void sendToDeadLetterQueue(InventoryOrder order, Exception error) {
+    /**
+     * Sorts the batch into duplicates, orders the ledger rejects and new orders holding a reservation.
+     * Nothing is acked, written or routed here, so a failure can still fall back per message.
+     */
+    private Batch prepareBatch(List<Message<OrderMessage>> messages) {
+        // Collapse redeliveries of the same order inside one batch
+        Map<String, Message<OrderMessage>> candidates = new LinkedHashMap<>();
+        List<Message<OrderMessage>> duplicates = new ArrayList<>();
+        for (Message<OrderMessage> message : messages) {
+            if (candidates.putIfAbsent(message.getPayload().getOrderId(), message) != null) {
+                logger.debug("Duplicate order detected in batch, skipping: orderId={}", message.getPayload().getOrderId());
+                duplicates.add(message);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return new Batch(duplicates, List.of(), List.of(), List.of());
+        }
+
+        Set<String> processed = idempotencyStore.findProcessed(candidates.keySet());
+        List<Message<OrderMessage>> newMessages = new ArrayList<>(candidates.size() - processed.size());
+        for (Message<OrderMessage> message : candidates.values()) {
+            String orderId = message.getPayload().getOrderId();
+            if (processed.contains(orderId) || writeBehind.isPending(orderId)) {
+                duplicates.add(message);
+            } else {
+                newMessages.add(message);
+            }
+        }
+
+        // Take stock for the new orders; rejected ones are only routed once the rest has gone through,
+        // so that if the batch fails before that, the per-message fallback routes them exactly once
+        List<Message<OrderMessage>> accepted = new ArrayList<>(newMessages.size());
+        List<StockLedger.Reservation> reservations = new ArrayList<>(newMessages.size());
+        List<RejectedOrder> rejected = new ArrayList<>();
         try {
-            logger.warn("Sending failed order to DLQ: orderId={}, reason={}",
-                    order.getOrderId(), error.getMessage());
+            for (Message<OrderMessage> message : newMessages) {
+                try {
+                    reservations.add(stockLedger.reserve(message.getPayload()));
+                    accepted.add(message);
+                } catch (InsufficientStockException | IllegalArgumentException e) {
+                    rejected.add(new RejectedOrder(message, e));
+                }
+            }
+        } catch (RuntimeException e) {
+            // The fallback reserves again
+            reservations.forEach(StockLedger.Reservation::release);
+            throw e;
+        }
+        return new Batch(duplicates, accepted, reservations, rejected);
+    }
 
-            // Create DLQ message with error details
-            InventoryOrderDLQ dlqMessage = InventoryOrderDLQ.builder()
-                    .originalOrder(order)
-                    .errorMessage(error.getMessage())
-                    .failedAt(LocalDateTime.now())
-                    .retryCount(getRetryCount(order)) // Get from message headers if available
-                    .build();
+    private void writeBatch(Batch batch, int received, Channel channel) {
+        List<InventoryOrder> newOrders = new ArrayList<>(batch.accepted().size());
+        for (Message<OrderMessage> message : batch.accepted()) {
+            newOrders.add(toProcessed(message.getPayload()));
+        }
+        if (!newOrders.isEmpty()) {
+            try {
+                saveBatchTimer.record(() -> orderStore.insertAll(newOrders));
+            } catch (RuntimeException e) {
+                batch.reservations().forEach(StockLedger.Reservation::release);
+                throw e;
+            }
+        }
+        for (InventoryOrder order : newOrders) {
+            idempotencyStore.markProcessed(order.getOrderId());
+        }
+        batch.accepted().forEach(message -> orderStats.record(message.getPayload()));
+        routeRejected(batch.rejected(), channel);
+        logger.info("Batch processed: received={}, new={}, duplicates={}, rejected={}",
+                received, newOrders.size(), batch.duplicates().size(), batch.rejected().size());
+    }
 
-            // Send to DLQ using RabbitTemplate
-            rabbitTemplate.convertAndSend("inventory-dlq-exchange", "dlq.inventory", dlqMessage);
+    /**
+     * Write-behind: new orders are acked by the flusher once committed, rejected ones once routed.
+     * Duplicates are acked last, after everything that can fail.
+     */
+    private void queueBatch(Batch batch, int received, Channel channel) {
+        submitAll(batch.accepted(), batch.reservations(), channel);
+        routeRejected(batch.rejected(), channel);
+        batch.duplicates().forEach(message -> ack(channel, deliveryTag(message.getHeaders())));
+        logger.info("Batch queued for write-behind: received={}, new={}, duplicates={}, rejected={}",
+                received, batch.accepted().size(), batch.duplicates().size(), batch.rejected().size());
+    }
 
-            logger.info("Successfully sent order to DLQ: orderId={}", order.getOrderId());
+    /**
+     * Orders that could not be handed to the buffer get their stock back and are requeued (or, when the
+     * container is stopping, left unacked for redelivery).
+     */
+    private void submitAll(List<Message<OrderMessage>> messages, List<StockLedger.Reservation> reservations,
+                           Channel channel) {
+        int submitted = 0;
+        try {
+            for (Message<OrderMessage> message : messages) {
+                writeBehind.submit(toProcessed(message.getPayload()), channel, deliveryTag(message.getHeaders()),
+                        reservations.get(submitted)::release);
+                orderStats.record(message.getPayload());
+                submitted++;
+            }
+        } catch (InterruptedException e) {
+            // Container is stopping; orders not yet submitted stay unacked and are redelivered
+            reservations.subList(submitted, reservations.size()).forEach(StockLedger.Reservation::release);
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            logger.error("Write-behind submit failed, requeueing {} orders: error={}",
+                    messages.size() - submitted, e.getMessage(), e);
+            reservations.subList(submitted, reservations.size()).forEach(StockLedger.Reservation::release);
+            messages.subList(submitted, messages.size()).forEach(message -> requeue(channel, deliveryTag(message.getHeaders())));
+        }
+    }
 
-        } catch (Exception dlqError) {
-            logger.error("Failed to send message to DLQ: orderId={}, dlqError={}",
-                    order.getOrderId(), dlqError.getMessage(), dlqError);
+    private void routeRejected(List<RejectedOrder> rejected, Channel channel) {
+        for (RejectedOrder order : rejected) {
+            Message<OrderMessage> message = order.message();
+            routeFailure(channel, deliveryTag(message.getHeaders()),
+                    () -> failedOrderRouter.route(message.getPayload(), message.getHeaders(), order.error()));
         }
     }
-    private int getRetryCount(InventoryOrder order) {
-        // You can get this from RabbitMQ message headers if configured
-        // For now, return a default value
-        return 3;
+
+    /**
+     * Manual ack, only used with write-behind; otherwise the container acks when the listener returns.
+     */
+    private void ack(Channel channel, long deliveryTag) {
+        if (!writeBehind.isEnabled()) {
+            return;
+        }
+        try {
+            channel.basicAck(deliveryTag, false);
+        } catch (IOException e) {
+            logger.warn("Could not ack deliveryTag={}, the message will be redelivered: error={}",
+                    deliveryTag, e.getMessage());
+        }
+    }
+
+    private void recordLag(Date publishedAt) {
+        if (publishedAt != null) {
+            lagTimer.record(Math.max(0, System.currentTimeMillis() - publishedAt.getTime()), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Ack once the failed order has been republished for retry or to the DLQ. If that publish failed,
+     * the delivery goes back to the broker instead: nacked with requeue under manual acks, otherwise
+     * by rethrowing so the container rejects it (and the rest of its batch; processed ones are then
+     * skipped as duplicates).
+     */
+    private void routeFailure(Channel channel, long deliveryTag, Runnable routing) {
+        try {
+            routing.run();
+        } catch (RuntimeException e) {
+            logger.error("Could not route failed order, requeueing deliveryTag={}: error={}", deliveryTag, e.getMessage());
+            if (!writeBehind.isEnabled()) {
+                throw e;
+            }
+            requeue(channel, deliveryTag);
+            return;
+        }
+        ack(channel, deliveryTag);
     }
-}
 
+    private void requeue(Channel channel, long deliveryTag) {
+        try {
+            channel.basicNack(deliveryTag, false, true);
+        } catch (IOException e) {
+            logger.warn("Could not nack deliveryTag={}, the broker redelivers it when the channel closes: error={}",
+                    deliveryTag, e.getMessage());
+        }
+    }
 
+    private long deliveryTag(MessageHeaders headers) {
+        Long deliveryTag = headers.get(AmqpHeaders.DELIVERY_TAG, Long.class);
+        return deliveryTag != null ? deliveryTag : 0L;
+    }
+
+    private record RejectedOrder(Message<OrderMessage> message, Exception error) {
+    }
+
+    private record Batch(List<Message<OrderMessage>> duplicates, List<Message<OrderMessage>> accepted,
+                         List<StockLedger.Reservation> reservations, List<RejectedOrder> rejected) {
+    }
+
+    private InventoryOrder toProcessed(OrderMessage order) {
+        InventoryOrder inventoryOrder = new InventoryOrder();
+        inventoryOrder.setOrderId(order.getOrderId());
+        inventoryOrder.setOrderType(order.getOrderType());
+        inventoryOrder.setStoreId(order.getStoreId());
+        inventoryOrder.setProcessedAt(LocalDateTime.now());
+        return inventoryOrder;
+    }
+}
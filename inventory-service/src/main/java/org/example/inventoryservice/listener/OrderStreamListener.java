@@ -0,0 +1,123 @@
+package org.example.inventoryservice.listener;
+
+import com.rabbitmq.stream.Consumer;
+import com.rabbitmq.stream.MessageHandler;
+import com.rabbitmq.stream.NoOffsetException;
+import com.rabbitmq.stream.OffsetSpecification;
+import org.example.common.OrderMessage;
+import org.example.inventoryservice.config.RabbitMQConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.support.SimpleAmqpHeaderMapper;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.rabbit.stream.listener.StreamMessageListener;
+import org.springframework.rabbit.stream.support.StreamMessageProperties;
+import org.springframework.rabbit.stream.support.converter.DefaultStreamMessageConverter;
+import org.springframework.rabbit.stream.support.converter.StreamMessageConverter;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds orders from the {@code orders.stream} super stream into {@link InventoryListener#processOrder}.
+ * <p>
+ * Streams have no acks: the consumer's position is an offset stored on the broker under the consumer
+ * name. It is stored after every {@code offsetStoreInterval}-th processed message, so a restart or a
+ * partition moving to another instance re-reads at most that many orders, which the idempotency store
+ * skips as duplicates. Failed orders go through {@link org.example.inventoryservice.retry.FailedOrderRouter}
+ * as usual; retries come back through the classic {@code orders.queue}.
+ * <p>
+ * A stream does not redeliver, so a failed order that cannot be routed either (the broker refuses the retry
+ * or DLQ publish) is not let go: the order is processed again every {@code routeRetryMs} until it is handled
+ * or routed, holding up its partition. Returning would let the next stored offset move past it.
+ */
+public class OrderStreamListener implements StreamMessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStreamListener.class);
+
+    private final InventoryListener inventoryListener;
+    private final MessageConverter messageConverter;
+    private final StreamMessageConverter streamConverter = new DefaultStreamMessageConverter();
+    private final SimpleAmqpHeaderMapper headerMapper = new SimpleAmqpHeaderMapper();
+    private final int offsetStoreInterval;
+    private final long routeRetryMs;
+
+    public OrderStreamListener(InventoryListener inventoryListener, MessageConverter messageConverter,
+                               int offsetStoreInterval, long routeRetryMs) {
+        this.inventoryListener = inventoryListener;
+        this.messageConverter = messageConverter;
+        this.offsetStoreInterval = Math.max(1, offsetStoreInterval);
+        this.routeRetryMs = routeRetryMs;
+    }
+
+    @Override
+    public void onStreamMessage(com.rabbitmq.stream.Message streamMessage, MessageHandler.Context context) {
+        process(streamConverter.toMessage(streamMessage, new StreamMessageProperties(context)));
+        if (context.offset() % offsetStoreInterval == 0) {
+            context.storeOffset();
+        }
+    }
+
+    @Override
+    public void onMessage(Message message) {
+        process(message);
+    }
+
+    private void process(Message message) {
+        StreamMessageProperties properties = (StreamMessageProperties) message.getMessageProperties();
+        // order-service stamps the publish time as the AMQP 1.0 creation time
+        if (properties.getCreationTime() > 0) {
+            properties.setTimestamp(new Date(properties.getCreationTime()));
+        }
+        // Where FailedOrderRouter sends retries back to; streams cannot be republished into
+        properties.setConsumerQueue(RabbitMQConfig.QUEUE);
+        properties.setInferredArgumentType(OrderMessage.class);
+        OrderMessage order = (OrderMessage) messageConverter.fromMessage(message);
+        MessageHeaders headers = new MessageHeaders(headerMapper.toHeaders(properties));
+        for (int attempt = 1; ; attempt++) {
+            try {
+                // No channel: stream transport runs without write-behind, so the listener never acks by hand
+                inventoryListener.processOrder(order, null, headers);
+                return;
+            } catch (AmqpException e) {
+                logger.error("Failed order could not be routed, holding the stream partition: orderId={}, "
+                        + "attempt={}, retryInMs={}, error={}", order.getOrderId(), attempt, routeRetryMs, e.getMessage());
+                try {
+                    TimeUnit.MILLISECONDS.sleep(routeRetryMs);
+                } catch (InterruptedException interrupted) {
+                    // Stopping: leave without storing an offset, the order is read again on the next start
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Where a consumer starts when it becomes the active one for a partition: right after the offset
+     * last stored under its name, or {@code initialOffset} the first time that name reads the stream.
+     */
+    public static OffsetSpecification resumeFrom(Consumer consumer, OffsetSpecification initialOffset) {
+        try {
+            return OffsetSpecification.offset(consumer.storedOffset() + 1);
+        } catch (NoOffsetException e) {
+            return initialOffset;
+        }
+    }
+
+    /**
+     * @param offset {@code first}, {@code last}, {@code next} or an ISO-8601 instant
+     */
+    public static OffsetSpecification initialOffset(String offset) {
+        return switch (offset) {
+            case "first" -> OffsetSpecification.first();
+            case "last" -> OffsetSpecification.last();
+            case "next" -> OffsetSpecification.next();
+            default -> OffsetSpecification.timestamp(Instant.parse(offset).toEpochMilli());
+        };
+    }
+}
@@ -0,0 +1,257 @@
+package org.example.inventoryservice.listener;
+
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.inventoryservice.idempotency.IdempotencyStore;
+import org.example.inventoryservice.model.InventoryOrder;
+import org.example.inventoryservice.repository.ProcessedOrderStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind stage between {@link InventoryListener} and {@code processed_orders}.
+ * <p>
+ * Listener threads hand over accepted orders together with their channel and delivery tag and return
+ * immediately. A single flusher thread writes them as one batch once {@code flush-size} orders
+ * are buffered or {@code flush-interval-ms} has passed since the first one, and only after that commit
+ * are the orders marked processed in the idempotency store and their messages acked. A crash before
+ * the commit therefore leaves the messages unacked and the broker redelivers them.
+ * <p>
+ * Orders that are buffered but not yet committed are tracked in a pending set, which the listener
+ * checks alongside the idempotency store so a redelivery arriving in between is not written twice.
+ * The queue is bounded: when it is full, listener threads block, and the prefetch of their consumers
+ * stops further deliveries.
+ */
+@Component
+public class WriteBehindBuffer implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindBuffer.class);
+
+    private final ProcessedOrderStore orderStore;
+    private final IdempotencyStore idempotencyStore;
+    private final boolean enabled;
+    private final int flushSize;
+    private final long flushIntervalMs;
+    private final BlockingQueue<PendingWrite> queue;
+    private final Set<String> pendingOrderIds = ConcurrentHashMap.newKeySet();
+    private final Timer saveTimer;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public WriteBehindBuffer(ProcessedOrderStore orderStore,
+                             IdempotencyStore idempotencyStore,
+                             @Value("${inventory.persistence.write-behind.enabled:false}") boolean enabled,
+                             @Value("${inventory.persistence.write-behind.capacity:10000}") int capacity,
+                             @Value("${inventory.persistence.write-behind.flush-size:500}") int flushSize,
+                             @Value("${inventory.persistence.write-behind.flush-interval-ms:50}") long flushIntervalMs,
+                             MeterRegistry meterRegistry) {
+        this.orderStore = orderStore;
+        this.idempotencyStore = idempotencyStore;
+        this.enabled = enabled;
+        this.flushSize = flushSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.saveTimer = Timer.builder("inventory.db.save")
+                .description("Inserts into processed_orders")
+                .tag("mode", "write-behind")
+                .register(meterRegistry);
+        Gauge.builder("inventory.write-behind.size", queue, BlockingQueue::size)
+                .description("Orders buffered and not yet flushed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether listener containers run with manual acks and hand their orders to this buffer.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Buffer an order; its message is acked by the flusher once the order is committed. Blocks while
+     * the buffer is full.
+     *
+     * @param onDiscard run if this write is not committed after all (requeued, or already written by
+     *                  another delivery of the same order), e.g. to give back its stock reservation
+     */
+    public void submit(InventoryOrder order, Channel channel, long deliveryTag, Runnable onDiscard)
+            throws InterruptedException {
+        pendingOrderIds.add(order.getOrderId());
+        try {
+            queue.put(new PendingWrite(order, channel, deliveryTag, onDiscard));
+        } catch (InterruptedException e) {
+            pendingOrderIds.remove(order.getOrderId());
+            throw e;
+        }
+    }
+
+    /**
+     * @return true if the order has been accepted but its flush has not committed yet
+     */
+    public boolean isPending(String orderId) {
+        return pendingOrderIds.contains(orderId);
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    private void runFlusher() {
+        List<PendingWrite> batch = new ArrayList<>(flushSize);
+        // After stop() the loop keeps going until the buffer is empty
+        while (running || !queue.isEmpty()) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queue.drainTo(batch);
+                flush(batch);
+                return;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Wait for the first order, then keep collecting until the batch is full or the flush interval
+     * since that first order has passed.
+     */
+    private void collect(List<PendingWrite> batch) throws InterruptedException {
+        PendingWrite first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (batch.size() < flushSize) {
+            queue.drainTo(batch, flushSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= flushSize || remaining <= 0) {
+                return;
+            }
+            PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<PendingWrite> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<InventoryOrder> orders = new ArrayList<>(batch.size());
+        for (PendingWrite write : batch) {
+            orders.add(write.order());
+        }
+        try {
+            saveTimer.record(() -> orderStore.insertAll(orders));
+            for (PendingWrite write : batch) {
+                committed(write);
+            }
+            logger.debug("Write-behind flushed {} orders", batch.size());
+        } catch (Exception e) {
+            // One bad row fails the whole batch; retry row by row so the others still go through
+            logger.warn("Write-behind flush of {} orders failed, retrying one by one: error={}",
+                    batch.size(), e.getMessage());
+            for (PendingWrite write : batch) {
+                flushOne(write);
+            }
+        }
+    }
+
+    private void flushOne(PendingWrite write) {
+        String orderId = write.order().getOrderId();
+        try {
+            orderStore.insertAll(List.of(write.order()));
+            committed(write);
+        } catch (DuplicateKeyException e) {
+            logger.info("Duplicate order detected on write, skipping: orderId={}", orderId);
+            write.onDiscard().run();
+            committed(write);
+        } catch (Exception e) {
+            logger.error("Write-behind insert failed, requeueing: orderId={}, error={}", orderId, e.getMessage(), e);
+            pendingOrderIds.remove(orderId);
+            write.onDiscard().run();
+            try {
+                write.channel().basicNack(write.deliveryTag(), false, true);
+            } catch (IOException | RuntimeException nackError) {
+                logger.warn("Could not nack orderId={}, the broker redelivers it when the channel closes: error={}",
+                        orderId, nackError.getMessage());
+            }
+        }
+    }
+
+    private void committed(PendingWrite write) {
+        String orderId = write.order().getOrderId();
+        idempotencyStore.markProcessed(orderId);
+        pendingOrderIds.remove(orderId);
+        try {
+            write.channel().basicAck(write.deliveryTag(), false);
+        } catch (IOException | RuntimeException e) {
+            // Already committed, so the redelivery is detected as a duplicate
+            logger.warn("Could not ack orderId={} after commit: error={}", orderId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::runFlusher, "inventory-write-behind");
+        flusher.start();
+        logger.info("Write-behind enabled: flushSize={}, flushIntervalMs={}", flushSize, flushIntervalMs);
+    }
+
+    /**
+     * Runs after the listener containers have stopped (lower phase), so no more orders arrive and the
+     * rest of the buffer is flushed before the context closes.
+     */
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private record PendingWrite(InventoryOrder order, Channel channel, long deliveryTag, Runnable onDiscard) {
+    }
+}
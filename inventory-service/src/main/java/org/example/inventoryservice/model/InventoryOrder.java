@@ -2,12 +2,18 @@ package org.example.inventoryservice.model;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "processed_orders")
+// Each index ends in the keyset order (processedAt, orderId) of GET /inventory/orders, so a filtered page is one range scan
+@Table(name = "processed_orders", indexes = {
+        @Index(name = "idx_processed_orders_store", columnList = "storeId, processedAt, orderId"),
+        @Index(name = "idx_processed_orders_type", columnList = "orderType, processedAt, orderId"),
+        @Index(name = "idx_processed_orders_processed_at", columnList = "processedAt, orderId")
+})
 public class InventoryOrder {
 
     @Id
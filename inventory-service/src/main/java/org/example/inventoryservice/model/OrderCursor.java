@@ -0,0 +1,38 @@
+package org.example.inventoryservice.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in the (processedAt, orderId) order of processed orders: the last row of a page. Clients get
+ * it as an opaque token ({@link #encode()}) and pass it back as {@code after} for the next page.
+ */
+public record OrderCursor(LocalDateTime processedAt, String orderId) {
+
+    public String encode() {
+        String position = processedAt + "|" + orderId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static OrderCursor decode(String token) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = position.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            return new OrderCursor(LocalDateTime.parse(position.substring(0, separator)), position.substring(separator + 1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+
+    public static OrderCursor of(InventoryOrder order) {
+        return new OrderCursor(order.getProcessedAt(), order.getOrderId());
+    }
+}
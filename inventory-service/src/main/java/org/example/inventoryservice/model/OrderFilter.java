@@ -0,0 +1,12 @@
+package org.example.inventoryservice.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Which processed orders to page through; {@code null} fields do not filter.
+ *
+ * @param from processed at or after (inclusive)
+ * @param to   processed before (exclusive)
+ */
+public record OrderFilter(String storeId, String orderType, LocalDateTime from, LocalDateTime to) {
+}
@@ -0,0 +1,16 @@
+package org.example.inventoryservice.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response of {@code POST /inventory/orders:lookup}: the processed orders in request order, and the
+ * ids that have not been processed (yet).
+ */
+@Data
+public class OrderLookupResult {
+    private List<InventoryOrder> found = new ArrayList<>();
+    private List<String> missing = new ArrayList<>();
+}
@@ -0,0 +1,16 @@
+package org.example.inventoryservice.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response of {@code GET /inventory/orders}: one page in (processedAt, orderId) order, and the cursor to
+ * pass as {@code after} for the next one ({@code null} on the last page).
+ */
+@Data
+public class OrderPage {
+    private List<InventoryOrder> orders = new ArrayList<>();
+    private String next;
+}
@@ -0,0 +1,94 @@
+package org.example.inventoryservice.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Units of a SKU available in a store. The live value is held by {@code StockLedger}; this table is its
+ * periodic snapshot and what the ledger is loaded from on startup.
+ */
+@Entity
+@Table(name = "stock_levels")
+@IdClass(StockLevel.Key.class)
+public class StockLevel {
+
+    @Id
+    private String storeId;
+
+    @Id
+    private String sku;
+
+    private long available;
+    private LocalDateTime updatedAt;
+
+    public StockLevel() {
+    }
+
+    public StockLevel(String storeId, String sku, long available, LocalDateTime updatedAt) {
+        this.storeId = storeId;
+        this.sku = sku;
+        this.available = available;
+        this.updatedAt = updatedAt;
+    }
+
+    public String getStoreId() {
+        return storeId;
+    }
+
+    public void setStoreId(String storeId) {
+        this.storeId = storeId;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+
+    public long getAvailable() {
+        return available;
+    }
+
+    public void setAvailable(long available) {
+        this.available = available;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public static class Key implements Serializable {
+        private String storeId;
+        private String sku;
+
+        public Key() {
+        }
+
+        public Key(String storeId, String sku) {
+            this.storeId = storeId;
+            this.sku = sku;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(storeId, key.storeId) && Objects.equals(sku, key.sku);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(storeId, sku);
+        }
+    }
+}
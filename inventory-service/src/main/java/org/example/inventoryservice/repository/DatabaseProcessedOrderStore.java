@@ -0,0 +1,86 @@
+package org.example.inventoryservice.repository;
+
+import org.example.inventoryservice.model.InventoryOrder;
+import org.example.inventoryservice.model.OrderCursor;
+import org.example.inventoryservice.model.OrderFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * {@code processed_orders} in the configured database: single orders and lookups through JPA, batch
+ * inserts, pages and id scans through plain JDBC.
+ */
+@Repository
+@ConditionalOnProperty(name = "inventory.persistence.backend", havingValue = "database", matchIfMissing = true)
+public class DatabaseProcessedOrderStore implements ProcessedOrderStore {
+
+    private final InventoryOrderRepository orderRepository;
+    private final InventoryOrderJdbcRepository orderJdbcRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public DatabaseProcessedOrderStore(InventoryOrderRepository orderRepository,
+                                       InventoryOrderJdbcRepository orderJdbcRepository,
+                                       JdbcTemplate jdbcTemplate) {
+        this.orderRepository = orderRepository;
+        this.orderJdbcRepository = orderJdbcRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void save(InventoryOrder order) {
+        orderRepository.save(order);
+    }
+
+    @Override
+    public void insertAll(List<InventoryOrder> orders) {
+        orderJdbcRepository.insertAll(orders);
+    }
+
+    @Override
+    public boolean existsById(String orderId) {
+        return orderRepository.existsById(orderId);
+    }
+
+    @Override
+    public List<String> findExistingOrderIds(Collection<String> orderIds) {
+        return orderRepository.findExistingOrderIds(orderIds);
+    }
+
+    @Override
+    public Optional<InventoryOrder> findById(String orderId) {
+        return orderRepository.findById(orderId);
+    }
+
+    @Override
+    public List<InventoryOrder> findAllById(Collection<String> orderIds) {
+        return orderRepository.findAllById(orderIds);
+    }
+
+    @Override
+    public List<InventoryOrder> findPage(OrderFilter filter, OrderCursor after, int limit) {
+        return orderJdbcRepository.findPage(filter, after, limit);
+    }
+
+    @Override
+    public List<String> findRecentOrderIds(LocalDateTime since, int limit) {
+        return orderJdbcRepository.findRecentOrderIds(since, limit);
+    }
+
+    @Override
+    public void forEachOrderId(Consumer<String> consumer) {
+        jdbcTemplate.query(con -> {
+            var statement = con.prepareStatement("SELECT order_id FROM processed_orders");
+            statement.setFetchSize(10_000);
+            return statement;
+        }, rs -> {
+            consumer.accept(rs.getString(1));
+        });
+    }
+}
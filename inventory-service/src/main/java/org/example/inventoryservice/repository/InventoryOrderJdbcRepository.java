@@ -0,0 +1,104 @@
+package org.example.inventoryservice.repository;
+
+import org.example.inventoryservice.model.InventoryOrder;
+import org.example.inventoryservice.model.OrderCursor;
+import org.example.inventoryservice.model.OrderFilter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plain JDBC access to {@code processed_orders} for bulk writes that would otherwise cost one
+ * persist and flush per entity through JPA, and for keyset-paged reads that map rows straight to
+ * detached {@link InventoryOrder}s without going through the persistence context.
+ */
+@Repository
+public class InventoryOrderJdbcRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO processed_orders (order_id, order_type, store_id, processed_at) VALUES (?, ?, ?, ?)";
+
+    private static final RowMapper<InventoryOrder> ORDER_ROW_MAPPER = (rs, rowNum) -> {
+        InventoryOrder order = new InventoryOrder();
+        order.setOrderId(rs.getString(1));
+        order.setOrderType(rs.getString(2));
+        order.setStoreId(rs.getString(3));
+        order.setProcessedAt(rs.getTimestamp(4).toLocalDateTime());
+        return order;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public InventoryOrderJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert all orders as one JDBC batch in a single transaction; either every row is written or none.
+     */
+    @Transactional
+    public void insertAll(List<InventoryOrder> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, orders, orders.size(), (ps, order) -> {
+            ps.setString(1, order.getOrderId());
+            ps.setString(2, order.getOrderType());
+            ps.setString(3, order.getStoreId());
+            ps.setTimestamp(4, order.getProcessedAt() != null ? Timestamp.valueOf(order.getProcessedAt()) : null);
+        });
+    }
+
+    /**
+     * One page of orders matching the filter, in (processedAt, orderId) order, starting after the cursor.
+     * Seeks on the index instead of using OFFSET, so page N costs the same as page 1. Orders without a
+     * processedAt are never returned.
+     */
+    public List<InventoryOrder> findPage(OrderFilter filter, OrderCursor after, int limit) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT order_id, order_type, store_id, processed_at FROM processed_orders WHERE processed_at IS NOT NULL");
+        List<Object> args = new ArrayList<>(8);
+        if (filter.storeId() != null) {
+            sql.append(" AND store_id = ?");
+            args.add(filter.storeId());
+        }
+        if (filter.orderType() != null) {
+            sql.append(" AND order_type = ?");
+            args.add(filter.orderType());
+        }
+        if (filter.from() != null) {
+            sql.append(" AND processed_at >= ?");
+            args.add(Timestamp.valueOf(filter.from()));
+        }
+        if (filter.to() != null) {
+            sql.append(" AND processed_at < ?");
+            args.add(Timestamp.valueOf(filter.to()));
+        }
+        if (after != null) {
+            // Expanded row-value comparison (processed_at, order_id) > (?, ?), which every database can seek on
+            Timestamp processedAt = Timestamp.valueOf(after.processedAt());
+            sql.append(" AND (processed_at > ? OR (processed_at = ? AND order_id > ?))");
+            args.add(processedAt);
+            args.add(processedAt);
+            args.add(after.orderId());
+        }
+        sql.append(" ORDER BY processed_at, order_id FETCH FIRST ? ROWS ONLY");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), ORDER_ROW_MAPPER, args.toArray());
+    }
+
+    /**
+     * Ids of the newest orders processed at or after {@code since}, read off the processedAt index.
+     */
+    public List<String> findRecentOrderIds(LocalDateTime since, int limit) {
+        return jdbcTemplate.queryForList("SELECT order_id FROM processed_orders WHERE processed_at >= ? "
+                        + "ORDER BY processed_at DESC, order_id DESC FETCH FIRST ? ROWS ONLY",
+                String.class, Timestamp.valueOf(since), limit);
+    }
+}
@@ -2,8 +2,17 @@ package org.example.inventoryservice.repository;
 
 import org.example.inventoryservice.model.InventoryOrder;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface InventoryOrderRepository extends JpaRepository<InventoryOrder, String> {
+
+    // Id-only projection for bulk duplicate checks, no entity hydration
+    @Query("select o.orderId from InventoryOrder o where o.orderId in :orderIds")
+    List<String> findExistingOrderIds(@Param("orderIds") Collection<String> orderIds);
 }
@@ -0,0 +1,58 @@
+package org.example.inventoryservice.repository;
+
+import org.example.inventoryservice.model.InventoryOrder;
+import org.example.inventoryservice.model.OrderCursor;
+import org.example.inventoryservice.model.OrderFilter;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Where processed orders are kept, selected by {@code inventory.persistence.backend}:
+ * {@code database} (default) is {@code processed_orders} through {@link DatabaseProcessedOrderStore},
+ * {@code journal} is the local memory-mapped {@link org.example.inventoryservice.journal.OrderJournal}.
+ */
+public interface ProcessedOrderStore {
+
+    /**
+     * Write one order, replacing an order with the same id.
+     */
+    void save(InventoryOrder order);
+
+    /**
+     * Write all orders at once; either every order is written or none.
+     *
+     * @throws org.springframework.dao.DuplicateKeyException if an order with one of the ids already exists
+     */
+    void insertAll(List<InventoryOrder> orders);
+
+    boolean existsById(String orderId);
+
+    /**
+     * @return the ids among {@code orderIds} that have been written
+     */
+    List<String> findExistingOrderIds(Collection<String> orderIds);
+
+    Optional<InventoryOrder> findById(String orderId);
+
+    List<InventoryOrder> findAllById(Collection<String> orderIds);
+
+    /**
+     * One page of orders matching the filter, in (processedAt, orderId) order, starting after the cursor.
+     * Orders without a processedAt are never returned.
+     */
+    List<InventoryOrder> findPage(OrderFilter filter, OrderCursor after, int limit);
+
+    /**
+     * Ids of the orders processed at or after {@code since}, newest first, at most {@code limit}.
+     */
+    List<String> findRecentOrderIds(LocalDateTime since, int limit);
+
+    /**
+     * Hand every stored orderId to the consumer, e.g. to rebuild the idempotency filter.
+     */
+    void forEachOrderId(Consumer<String> consumer);
+}
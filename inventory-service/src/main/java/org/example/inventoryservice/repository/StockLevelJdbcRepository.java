@@ -0,0 +1,47 @@
+package org.example.inventoryservice.repository;
+
+import org.example.inventoryservice.model.StockLevel;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * JDBC access to {@code stock_levels} for the ledger's load and snapshot, one batch per snapshot.
+ */
+@Repository
+public class StockLevelJdbcRepository {
+
+    private static final String SELECT_SQL = "SELECT store_id, sku, available, updated_at FROM stock_levels";
+    private static final String UPSERT_SQL =
+            "MERGE INTO stock_levels (store_id, sku, available, updated_at) KEY (store_id, sku) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StockLevelJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<StockLevel> findAll() {
+        return jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> {
+            Timestamp updatedAt = rs.getTimestamp("updated_at");
+            return new StockLevel(rs.getString("store_id"), rs.getString("sku"), rs.getLong("available"),
+                    updatedAt != null ? updatedAt.toLocalDateTime() : null);
+        });
+    }
+
+    @Transactional
+    public void upsertAll(List<StockLevel> levels) {
+        if (levels.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, levels, levels.size(), (ps, level) -> {
+            ps.setString(1, level.getStoreId());
+            ps.setString(2, level.getSku());
+            ps.setLong(3, level.getAvailable());
+            ps.setTimestamp(4, level.getUpdatedAt() != null ? Timestamp.valueOf(level.getUpdatedAt()) : null);
+        });
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.inventoryservice.retry;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.GetResponse;
+import org.example.inventoryservice.config.RabbitMQConfig;
+import org.example.inventoryservice.config.RetryConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves dead-lettered orders back to the queue they failed on, e.g. once the cause has been fixed.
+ * Messages are taken from {@link RetryConfig#DLQ_QUEUE} in batches of {@code inventory.dlq.replay.batch-size},
+ * each batch on one channel: get, republish unchanged apart from the failure headers (the retry count
+ * starts over), ack. Batches are paced so the replay stays under {@code inventory.dlq.replay.rate-per-second}
+ * and does not swamp the listeners that are also draining live traffic.
+ * <p>
+ * One replay runs at a time; a message is acked only after its republish on the same channel, so a
+ * replay that dies halfway leaves the rest of the batch in the DLQ.
+ */
+@Service
+public class DeadLetterReplayer {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterReplayer.class);
+
+    private final RabbitTemplate rabbitTemplate;
+    private final int batchSize;
+    private final int ratePerSecond;
+    private final ReentrantLock replayLock = new ReentrantLock();
+
+    public DeadLetterReplayer(RabbitTemplate rabbitTemplate,
+                              @Value("${inventory.dlq.replay.batch-size:100}") int batchSize,
+                              @Value("${inventory.dlq.replay.rate-per-second:500}") int ratePerSecond) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.batchSize = Math.max(1, batchSize);
+        this.ratePerSecond = Math.max(1, ratePerSecond);
+    }
+
+    /**
+     * Replay up to {@code maxMessages} dead-lettered orders.
+     *
+     * @return the number of orders put back
+     * @throws IllegalStateException if another replay is still running
+     */
+    public int replay(int maxMessages) throws InterruptedException {
+        if (!replayLock.tryLock()) {
+            throw new IllegalStateException("A DLQ replay is already running");
+        }
+        try {
+            long batchNanos = TimeUnit.SECONDS.toNanos(1) * batchSize / ratePerSecond;
+            int replayed = 0;
+            while (replayed < maxMessages) {
+                long start = System.nanoTime();
+                int limit = Math.min(batchSize, maxMessages - replayed);
+                Integer moved = rabbitTemplate.execute(channel -> {
+                    int count = 0;
+                    while (count < limit) {
+                        GetResponse response = channel.basicGet(RetryConfig.DLQ_QUEUE, false);
+                        if (response == null) {
+                            break;
+                        }
+                        AMQP.BasicProperties properties = response.getProps();
+                        Map<String, Object> headers = properties.getHeaders() != null
+                                ? new HashMap<>(properties.getHeaders()) : new HashMap<>();
+                        Object queue = headers.remove(FailedOrderRouter.ORIGINAL_QUEUE_HEADER);
+                        headers.remove(FailedOrderRouter.RETRY_COUNT_HEADER);
+                        headers.remove(FailedOrderRouter.EXCEPTION_TYPE_HEADER);
+                        headers.remove(FailedOrderRouter.EXCEPTION_MESSAGE_HEADER);
+                        headers.remove(FailedOrderRouter.FAILED_AT_HEADER);
+                        // Default exchange: the routing key is the queue name
+                        channel.basicPublish("", queue != null ? queue.toString() : RabbitMQConfig.QUEUE,
+                                properties.builder().headers(headers).build(), response.getBody());
+                        channel.basicAck(response.getEnvelope().getDeliveryTag(), false);
+                        count++;
+                    }
+                    return count;
+                });
+                replayed += moved;
+                if (moved < limit) {
+                    break;
+                }
+                long remaining = batchNanos - (System.nanoTime() - start);
+                if (remaining > 0 && replayed < maxMessages) {
+                    TimeUnit.NANOSECONDS.sleep(remaining);
+                }
+            }
+            logger.info("DLQ replay finished: replayed={}", replayed);
+            return replayed;
+        } finally {
+            replayLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.example.inventoryservice.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.common.OrderMessage;
+import org.example.inventoryservice.config.RabbitMQConfig;
+import org.example.inventoryservice.config.RetryConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Decides what happens to an order the listener could not process. Transient failures are republished
+ * to the delay queue of the next attempt; when its TTL expires the broker dead-letters the message
+ * through {@link RetryConfig#RETRY_RETURN_EXCHANGE} back to the queue it was consumed from. Business
+ * failures, and transient ones that ran out of attempts, go to {@link RetryConfig#DLQ_QUEUE}.
+ * <p>
+ * The attempt count travels in {@link #RETRY_COUNT_HEADER}; the broker's own {@code x-death} header is
+ * not used because every retry is a new publish. Dead-lettered messages carry the order unchanged plus
+ * the failure in {@code x-exception-*} headers, so {@link DeadLetterReplayer} can put them back as they are.
+ */
+@Component
+public class FailedOrderRouter {
+
+    public static final String RETRY_COUNT_HEADER = "x-retry-count";
+    public static final String ORIGINAL_QUEUE_HEADER = "x-original-queue";
+    public static final String EXCEPTION_TYPE_HEADER = "x-exception-type";
+    public static final String EXCEPTION_MESSAGE_HEADER = "x-exception-message";
+    public static final String FAILED_AT_HEADER = "x-failed-at";
+
+    private static final Logger logger = LoggerFactory.getLogger(FailedOrderRouter.class);
+
+    public enum Outcome {
+        RETRY_SCHEDULED,
+        DEAD_LETTERED
+    }
+
+    private final RabbitTemplate rabbitTemplate;
+    private final RetryPolicy retryPolicy;
+    private final Counter retriesScheduled;
+    private final Counter dlqSent;
+    private final Counter dlqFailed;
+
+    public FailedOrderRouter(RabbitTemplate rabbitTemplate, RetryPolicy retryPolicy, MeterRegistry meterRegistry) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.retryPolicy = retryPolicy;
+        this.retriesScheduled = Counter.builder("inventory.retry.scheduled")
+                .description("Orders republished to a delay queue after a transient failure")
+                .register(meterRegistry);
+        this.dlqSent = dlqCounter(meterRegistry, "sent");
+        this.dlqFailed = dlqCounter(meterRegistry, "failed");
+    }
+
+    private static Counter dlqCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("inventory.dlq.sent")
+                .description("Orders routed to the dead letter queue")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Schedule a retry or dead-letter the order. The caller acks the original delivery afterwards.
+     *
+     * @param headers headers of the failed delivery (retry count and consumer queue are read from them)
+     * @throws AmqpException if the order could not be republished; the original delivery must then be
+     *                       requeued rather than acked
+     */
+    public Outcome route(OrderMessage order, MessageHeaders headers, Exception error) {
+        int retries = retryCount(headers);
+        String queue = originalQueue(headers);
+        if (retryPolicy.isTransient(error) && retries < retryPolicy.maxAttempts()) {
+            int attempt = retries + 1;
+            rabbitTemplate.convertAndSend("", retryPolicy.delayQueue(attempt), order, message -> {
+                MessageProperties properties = message.getMessageProperties();
+                properties.setHeader(RETRY_COUNT_HEADER, attempt);
+                properties.setHeader(ORIGINAL_QUEUE_HEADER, queue);
+                return message;
+            });
+            retriesScheduled.increment();
+            logger.warn("Transient failure, retrying order in {}ms: orderId={}, attempt={}/{}, error={}",
+                    retryPolicy.delayMs(attempt), order.getOrderId(), attempt, retryPolicy.maxAttempts(),
+                    error.getMessage());
+            return Outcome.RETRY_SCHEDULED;
+        }
+        deadLetter(order, queue, retries, error);
+        return Outcome.DEAD_LETTERED;
+    }
+
+    /**
+     * Dead-letter an order without retrying, e.g. one that cannot be processed at all.
+     */
+    public void deadLetter(OrderMessage order, MessageHeaders headers, Exception error) {
+        deadLetter(order, originalQueue(headers), retryCount(headers), error);
+    }
+
+    private void deadLetter(OrderMessage order, String queue, int retries, Exception error) {
+        MessagePostProcessor failureHeaders = message -> {
+            MessageProperties properties = message.getMessageProperties();
+            properties.setHeader(RETRY_COUNT_HEADER, retries);
+            properties.setHeader(ORIGINAL_QUEUE_HEADER, queue);
+            properties.setHeader(EXCEPTION_TYPE_HEADER, error.getClass().getName());
+            properties.setHeader(EXCEPTION_MESSAGE_HEADER, String.valueOf(error.getMessage()));
+            properties.setHeader(FAILED_AT_HEADER, Instant.now().toString());
+            return message;
+        };
+        try {
+            rabbitTemplate.convertAndSend(RetryConfig.DLQ_EXCHANGE, RetryConfig.DLQ_ROUTING_KEY, order, failureHeaders);
+        } catch (AmqpException e) {
+            dlqFailed.increment();
+            throw e;
+        }
+        dlqSent.increment();
+        logger.error("Order sent to DLQ: orderId={}, retries={}, error={}", order.getOrderId(), retries, error.getMessage(), error);
+    }
+
+    private static int retryCount(MessageHeaders headers) {
+        return headers.get(RETRY_COUNT_HEADER) instanceof Number count ? count.intValue() : 0;
+    }
+
+    private static String originalQueue(MessageHeaders headers) {
+        String queue = headers.get(AmqpHeaders.CONSUMER_QUEUE, String.class);
+        if (queue == null) {
+            queue = headers.get(ORIGINAL_QUEUE_HEADER, String.class);
+        }
+        return queue != null ? queue : RabbitMQConfig.QUEUE;
+    }
+}
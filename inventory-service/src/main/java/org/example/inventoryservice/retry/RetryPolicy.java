@@ -0,0 +1,98 @@
+package org.example.inventoryservice.retry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Which failures are retried, and after how long. A failed order is retried at most
+ * {@code inventory.retry.max-attempts} times; attempt {@code n} waits
+ * {@code initial-delay-ms * multiplier^(n-1)}, capped at {@code max-delay-ms}. Each distinct delay is
+ * one TTL queue, named after its delay so that changing the backoff declares new queues instead of
+ * clashing with the arguments of existing ones.
+ * <p>
+ * Only transient failures (lost connections, lock and query timeouts, pool exhaustion) are retried;
+ * anything else is a problem with the order itself and goes to the DLQ on the first failure.
+ */
+@Component
+public class RetryPolicy {
+
+    public static final String DELAY_QUEUE_PREFIX = "inventory.retry.";
+
+    private final int maxAttempts;
+    private final List<Long> delaysMs;
+
+    public RetryPolicy(@Value("${inventory.retry.max-attempts:3}") int maxAttempts,
+                       @Value("${inventory.retry.initial-delay-ms:1000}") long initialDelayMs,
+                       @Value("${inventory.retry.multiplier:4.0}") double multiplier,
+                       @Value("${inventory.retry.max-delay-ms:60000}") long maxDelayMs) {
+        this.maxAttempts = Math.max(0, maxAttempts);
+        List<Long> delays = new ArrayList<>(this.maxAttempts);
+        double delay = initialDelayMs;
+        for (int attempt = 1; attempt <= this.maxAttempts; attempt++) {
+            delays.add(Math.min((long) delay, maxDelayMs));
+            delay *= multiplier;
+        }
+        this.delaysMs = Collections.unmodifiableList(delays);
+    }
+
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @param attempt 1 for the first retry
+     */
+    public long delayMs(int attempt) {
+        return delaysMs.get(attempt - 1);
+    }
+
+    /**
+     * @param attempt 1 for the first retry
+     */
+    public String delayQueue(int attempt) {
+        return delayQueueName(delayMs(attempt));
+    }
+
+    /**
+     * TTL of every delay queue, one entry per distinct delay.
+     */
+    public Set<Long> distinctDelaysMs() {
+        return new LinkedHashSet<>(delaysMs);
+    }
+
+    public static String delayQueueName(long delayMs) {
+        return DELAY_QUEUE_PREFIX + delayMs + "ms";
+    }
+
+    /**
+     * @return true if the failure, or anything in its cause chain, is worth retrying later
+     */
+    public boolean isTransient(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+}
@@ -1,28 +1,105 @@
 package org.example.inventoryservice.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import org.example.inventoryservice.model.InventoryOrder;
-import org.example.inventoryservice.repository.InventoryOrderRepository;
-import org.springframework.http.ResponseEntity;
+import org.example.inventoryservice.model.OrderCursor;
+import org.example.inventoryservice.model.OrderFilter;
+import org.example.inventoryservice.model.OrderPage;
+import org.example.inventoryservice.repository.ProcessedOrderStore;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class InventoryService {
-    private final InventoryOrderRepository orderRepository;
+    private final ProcessedOrderStore orderStore;
+    private final Cache<String, Optional<InventoryOrder>> orderLookupCache;
+    private final int exportPageSize;
 
-    public InventoryService(InventoryOrderRepository orderRepository) {
-        this.orderRepository = orderRepository;
+    public InventoryService(ProcessedOrderStore orderStore, Cache<String, Optional<InventoryOrder>> orderLookupCache,
+                            @Value("${inventory.query.export-page-size:1000}") int exportPageSize) {
+        this.orderStore = orderStore;
+        this.orderLookupCache = orderLookupCache;
+        this.exportPageSize = exportPageSize;
     }
 
+    /**
+     * Read-through lookup of a processed order; misses are cached too (see {@code orderLookupCache}).
+     */
+    public Optional<InventoryOrder> findProcessedOrder(String orderId) {
+        return orderLookupCache.get(orderId, orderStore::findById);
+    }
 
-  public  InventoryOrder getProcessedOrder(String orderId) {
-
-       return orderRepository.findById(orderId)
-               .orElseThrow(() -> new RuntimeException("Order Not Found"));
-
+    /**
+     * Bulk variant: cached orders are served from memory, the rest with one {@code findAllById} query.
+     *
+     * @return the processed orders among {@code orderIds}, by orderId
+     */
+    public Map<String, InventoryOrder> findProcessedOrders(Collection<String> orderIds) {
+        Map<String, Optional<InventoryOrder>> cached = orderLookupCache.getAll(orderIds, missing -> {
+            Map<String, Optional<InventoryOrder>> loaded = new HashMap<>();
+            for (String orderId : missing) {
+                loaded.put(orderId, Optional.empty());
+            }
+            for (InventoryOrder order : orderStore.findAllById(List.copyOf(missing))) {
+                loaded.put(order.getOrderId(), Optional.of(order));
+            }
+            return loaded;
+        });
+        Map<String, InventoryOrder> found = new HashMap<>(cached.size());
+        cached.forEach((orderId, order) -> order.ifPresent(value -> found.put(orderId, value)));
+        return found;
+    }
 
-   }
+    /**
+     * One keyset page of processed orders (not cached: pages are read once, by reconciliation jobs).
+     *
+     * @param after last order of the previous page, or {@code null} for the first page
+     */
+    public OrderPage findOrders(OrderFilter filter, OrderCursor after, int limit) {
+        // One extra row tells whether there is a next page without another query
+        List<InventoryOrder> orders = orderStore.findPage(filter, after, limit + 1);
+        OrderPage page = new OrderPage();
+        if (orders.size() > limit) {
+            orders = orders.subList(0, limit);
+            page.setNext(OrderCursor.of(orders.get(limit - 1)).encode());
+        }
+        page.setOrders(orders);
+        return page;
+    }
 
+    /**
+     * Hand every matching order to the writer, {@code inventory.query.export-page-size} at a time. Each page
+     * is its own short keyset query, so an export of millions of rows holds one page in memory and no
+     * connection or cursor between pages.
+     *
+     * @return the number of orders exported
+     */
+    public long exportOrders(OrderFilter filter, PageWriter writer) throws IOException {
+        long exported = 0;
+        OrderCursor after = null;
+        while (true) {
+            List<InventoryOrder> page = orderStore.findPage(filter, after, exportPageSize);
+            if (page.isEmpty()) {
+                return exported;
+            }
+            writer.write(page);
+            exported += page.size();
+            if (page.size() < exportPageSize) {
+                return exported;
+            }
+            after = OrderCursor.of(page.get(page.size() - 1));
+        }
+    }
 
+    @FunctionalInterface
+    public interface PageWriter {
+        void write(List<InventoryOrder> page) throws IOException;
+    }
 }
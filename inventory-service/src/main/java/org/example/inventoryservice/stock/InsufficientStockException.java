@@ -0,0 +1,13 @@
+package org.example.inventoryservice.stock;
+
+/**
+ * An order asks for more units of a SKU than the store has available. Not retried: the order goes to
+ * the DLQ and can be replayed once the store is restocked.
+ */
+public class InsufficientStockException extends RuntimeException {
+
+    public InsufficientStockException(String storeId, String sku, long requested, long available) {
+        super("Insufficient stock: storeId=" + storeId + ", sku=" + sku
+                + ", requested=" + requested + ", available=" + available);
+    }
+}
@@ -0,0 +1,285 @@
+package org.example.inventoryservice.stock;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.common.OrderMessage;
+import org.example.inventoryservice.model.StockLevel;
+import org.example.inventoryservice.repository.StockLevelJdbcRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory stock per store and SKU, decremented by the orders the listener processes.
+ * <p>
+ * Every (storeId, sku) has one cell whose available quantity is only changed by compare-and-set, so a
+ * reservation either takes all the units it asks for or fails without taking any, and a hot SKU never
+ * oversells however many listener threads hit it. Neither reads nor reservations take a lock. An order
+ * with several lines reserves them one after the other and gives back what it took if a later line
+ * fails.
+ * <p>
+ * Item lines are read from {@link OrderMessage#getDetails()}: every map in it, at any depth, with a
+ * {@code sku} and a {@code quantity} is one line. SKUs the ledger has no stock level for are not limited,
+ * so orders for untracked items keep flowing until a level is set with {@link #setAvailable}.
+ * <p>
+ * Changed cells are written to {@code stock_levels} every {@code inventory.stock.snapshot-interval-ms}
+ * and on shutdown; on startup (lifecycle phase 0, before the listener containers) the ledger is loaded
+ * back from it.
+ */
+@Component
+public class StockLedger implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockLedger.class);
+
+    private final StockLevelJdbcRepository stockLevelRepository;
+    private final Map<StockKey, StockCell> cells = new ConcurrentHashMap<>();
+    private final Counter rejections;
+    private volatile boolean running;
+
+    public StockLedger(StockLevelJdbcRepository stockLevelRepository, MeterRegistry meterRegistry) {
+        this.stockLevelRepository = stockLevelRepository;
+        this.rejections = Counter.builder("inventory.stock.rejected")
+                .description("Orders rejected because a line exceeded the available stock")
+                .register(meterRegistry);
+        Gauge.builder("inventory.stock.skus", cells, Map::size)
+                .description("Store/SKU pairs tracked by the stock ledger")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Take the units of every line of the order.
+     *
+     * @return the reservation to release if the order is not committed after all
+     * @throws InsufficientStockException if any line exceeds its available stock; nothing stays reserved
+     * @throws IllegalArgumentException   if a line has a quantity that is not a positive number
+     */
+    public Reservation reserve(OrderMessage order) {
+        if (cells.isEmpty()) {
+            return Reservation.NONE;
+        }
+        Map<String, Long> lines = lines(order.getDetails());
+        if (lines.isEmpty()) {
+            return Reservation.NONE;
+        }
+        Reservation reservation = new Reservation();
+        for (Map.Entry<String, Long> line : lines.entrySet()) {
+            StockCell cell = cells.get(new StockKey(order.getStoreId(), line.getKey()));
+            if (cell == null) {
+                continue;
+            }
+            long quantity = line.getValue();
+            if (!cell.tryTake(quantity)) {
+                reservation.release();
+                rejections.increment();
+                throw new InsufficientStockException(order.getStoreId(), line.getKey(), quantity, cell.available());
+            }
+            reservation.add(cell, quantity);
+        }
+        return reservation;
+    }
+
+    /**
+     * @return the live stock, or empty if the SKU is not tracked in this store
+     */
+    public Optional<StockStatus> status(String storeId, String sku) {
+        StockCell cell = cells.get(new StockKey(storeId, sku));
+        return cell != null
+                ? Optional.of(new StockStatus(storeId, sku, cell.available(), cell.taken.sum()))
+                : Optional.empty();
+    }
+
+    /**
+     * Set the absolute stock of a SKU, e.g. after a delivery or a stock count. Reservations made
+     * concurrently with this call are overwritten.
+     */
+    public void setAvailable(String storeId, String sku, long available) {
+        if (available < 0) {
+            throw new IllegalArgumentException("Stock cannot be negative: " + available);
+        }
+        cells.computeIfAbsent(new StockKey(storeId, sku), key -> new StockCell(0)).set(available);
+    }
+
+    /**
+     * Write the cells that changed since the last snapshot. A failed write leaves them marked changed,
+     * so the next snapshot tries again.
+     */
+    @Scheduled(fixedDelayString = "${inventory.stock.snapshot-interval-ms:5000}")
+    public void snapshot() {
+        if (!running) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<StockCell> written = new ArrayList<>();
+        List<StockLevel> levels = new ArrayList<>();
+        cells.forEach((key, cell) -> {
+            if (cell.dirty.compareAndSet(true, false)) {
+                written.add(cell);
+                levels.add(new StockLevel(key.storeId(), key.sku(), cell.available(), now));
+            }
+        });
+        try {
+            stockLevelRepository.upsertAll(levels);
+            if (!levels.isEmpty()) {
+                logger.debug("Stock snapshot written: levels={}", levels.size());
+            }
+        } catch (RuntimeException e) {
+            written.forEach(cell -> cell.dirty.set(true));
+            logger.warn("Stock snapshot of {} levels failed, retrying with the next one: error={}",
+                    levels.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void start() {
+        for (StockLevel level : stockLevelRepository.findAll()) {
+            StockCell cell = new StockCell(level.getAvailable());
+            cells.put(new StockKey(level.getStoreId(), level.getSku()), cell);
+        }
+        running = true;
+        logger.info("Stock ledger loaded: levels={}", cells.size());
+    }
+
+    @Override
+    public void stop() {
+        snapshot();
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    /**
+     * Quantity per SKU over all item lines in the details; repeated SKUs are added up.
+     *
+     * @throws IllegalArgumentException if a line has a quantity that is not a positive number
+     */
+    public static Map<String, Long> lines(Map<String, Object> details) {
+        Map<String, Long> lines = new LinkedHashMap<>();
+        if (details != null) {
+            collectLines(details.values(), lines);
+        }
+        return lines;
+    }
+
+    private static void collectLines(Collection<?> values, Map<String, Long> lines) {
+        for (Object value : values) {
+            if (value instanceof Map<?, ?> map) {
+                Object sku = map.get("sku");
+                Object quantity = map.get("quantity");
+                if (sku != null && quantity != null) {
+                    lines.merge(sku.toString(), quantity(sku, quantity), Long::sum);
+                } else {
+                    collectLines(map.values(), lines);
+                }
+            } else if (value instanceof Collection<?> list) {
+                collectLines(list, lines);
+            }
+        }
+    }
+
+    private static long quantity(Object sku, Object quantity) {
+        long units;
+        try {
+            units = quantity instanceof Number number ? number.longValue() : Long.parseLong(quantity.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid quantity for sku " + sku + ": " + quantity);
+        }
+        if (units <= 0) {
+            throw new IllegalArgumentException("Invalid quantity for sku " + sku + ": " + quantity);
+        }
+        return units;
+    }
+
+    private record StockKey(String storeId, String sku) {
+    }
+
+    private static final class StockCell {
+        private final AtomicLong available;
+        // Units taken by orders since startup; summed only when read, so the hot path never contends on it
+        private final LongAdder taken = new LongAdder();
+        private final AtomicBoolean dirty = new AtomicBoolean();
+
+        StockCell(long available) {
+            this.available = new AtomicLong(available);
+        }
+
+        boolean tryTake(long quantity) {
+            long current;
+            do {
+                current = available.get();
+                if (current < quantity) {
+                    return false;
+                }
+            } while (!available.compareAndSet(current, current - quantity));
+            taken.add(quantity);
+            dirty.lazySet(true);
+            return true;
+        }
+
+        void giveBack(long quantity) {
+            available.addAndGet(quantity);
+            taken.add(-quantity);
+            dirty.lazySet(true);
+        }
+
+        void set(long quantity) {
+            available.set(quantity);
+            dirty.set(true);
+        }
+
+        long available() {
+            return available.get();
+        }
+    }
+
+    /**
+     * Units taken for one order; {@link #release()} gives them back (at most once).
+     */
+    public static final class Reservation {
+
+        static final Reservation NONE = new Reservation();
+
+        private final List<StockCell> cells = new ArrayList<>(4);
+        private final List<Long> quantities = new ArrayList<>(4);
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Reservation() {
+        }
+
+        private void add(StockCell cell, long quantity) {
+            cells.add(cell);
+            quantities.add(quantity);
+        }
+
+        public void release() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            for (int i = 0; i < cells.size(); i++) {
+                cells.get(i).giveBack(quantities.get(i));
+            }
+        }
+    }
+}
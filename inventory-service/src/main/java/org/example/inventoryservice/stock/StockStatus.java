@@ -0,0 +1,9 @@
+package org.example.inventoryservice.stock;
+
+/**
+ * Live stock of one SKU in one store, as served by {@code GET /inventory/stock/{storeId}/{sku}}.
+ *
+ * @param takenSinceStartup units taken by orders since this instance started, net of released reservations
+ */
+public record StockStatus(String storeId, String sku, long available, long takenSinceStartup) {
+}
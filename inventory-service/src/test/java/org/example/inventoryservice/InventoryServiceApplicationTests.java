@@ -3,7 +3,7 @@ package org.example.inventoryservice;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "inventory.idempotency.snapshot.path=")
 class InventoryServiceApplicationTests {
 
     @Test
@@ -0,0 +1,54 @@
+package org.example.inventoryservice.analytics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.common.OrderMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderStatsAggregatorTests {
+
+    // Minute-aligned, called 10:00 below
+    private static final long T0 = 1_700_000_400_000L;
+
+    private final OrderStatsAggregator aggregator = new OrderStatsAggregator(true, new SimpleMeterRegistry());
+
+    @Test
+    void slidingAndTumblingWindowsPerStoreAndType() {
+        aggregator.record(order("store-1", "IN_STORE", 2), T0);
+        aggregator.record(order("store-1", "IN_STORE", 3), T0 + 30_000);
+        aggregator.record(order("store-1", "DIGITAL", 1), T0 + 90_000);
+        aggregator.record(order("store-2", "IN_STORE", 1), T0 + 90_000);
+
+        List<OrderStats> stats = aggregator.snapshot("store-1", null, 3, T0 + 120_000);
+
+        assertThat(stats).extracting(OrderStats::orderType).containsExactly("DIGITAL", "IN_STORE");
+        OrderStats inStore = stats.get(1);
+        assertThat(inStore.sliding().get("1m")).isEqualTo(OrderStats.Totals.ZERO);
+        assertThat(inStore.sliding().get("5m")).isEqualTo(new OrderStats.Totals(2, 5));
+        // minute 10:01 (nothing), 10:00 (both orders), 09:59 (nothing)
+        assertThat(inStore.perMinute()).containsExactly(OrderStats.Totals.ZERO, new OrderStats.Totals(2, 5),
+                OrderStats.Totals.ZERO);
+        assertThat(stats.get(0).sliding().get("1m")).isEqualTo(new OrderStats.Totals(1, 1));
+    }
+
+    @Test
+    void slotsAreReusedOnceTheRingComesRound() {
+        aggregator.record(order("store-1", "IN_STORE", 1), T0);
+        aggregator.record(order("store-1", "IN_STORE", 1), T0 + 3_600_000);
+        // an hour late: older than both rings reach
+        aggregator.record(order("store-1", "IN_STORE", 1), T0);
+
+        OrderStats stats = aggregator.snapshot(null, null, 0, T0 + 3_600_000).get(0);
+
+        assertThat(stats.sliding().get("1m")).isEqualTo(new OrderStats.Totals(1, 1));
+        assertThat(stats.sliding().get("60m")).isEqualTo(new OrderStats.Totals(1, 1));
+    }
+
+    private OrderMessage order(String storeId, String orderType, int quantity) {
+        return new OrderMessage("order-1", orderType, storeId, Map.of("item", Map.of("sku", "SKU-1", "quantity", quantity)));
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.inventoryservice.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.amqp.RabbitAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Which executor {@code spring.threads.virtual.enabled} gives the listener containers on the running JVM:
+ * both the default factory (per-message and partition listeners) and the batch factory.
+ */
+class ListenerContainerConfigTests {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(RabbitAutoConfiguration.class))
+            .withUserConfiguration(ListenerContainerConfig.class)
+            .withPropertyValues("spring.threads.virtual.enabled=true");
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_20)
+    void fallsBackToPlatformConsumerThreadsBeforeJava21() {
+        contextRunner.run(context -> {
+            // No executor set: each container starts its consumers on platform threads of its own
+            assertThat(taskExecutor(context.getBean("rabbitListenerContainerFactory"))).isNull();
+            assertThat(taskExecutor(context.getBean("batchListenerContainerFactory"))).isNull();
+        });
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void runsConsumersOnVirtualThreadsFromJava21() {
+        contextRunner.run(context -> {
+            assertThat(taskExecutor(context.getBean("rabbitListenerContainerFactory")))
+                    .isInstanceOf(VirtualThreadTaskExecutor.class);
+            assertThat(taskExecutor(context.getBean("batchListenerContainerFactory")))
+                    .isInstanceOf(VirtualThreadTaskExecutor.class);
+        });
+    }
+
+    private static Object taskExecutor(Object factory) {
+        return ReflectionTestUtils.getField((SimpleRabbitListenerContainerFactory) factory, "taskExecutor");
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.inventoryservice.config;
+
+import org.example.inventoryservice.listener.InventoryListener;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistrar;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.amqp.RabbitProperties;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class OrderedConsumptionConfigTests {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void everyPartitionGetsOneConsumerWithPrefetchOneWhateverTheSharedListenerSettings() {
+        RabbitProperties properties = new RabbitProperties();
+        properties.getListener().getSimple().setConcurrency(2);
+        properties.getListener().getSimple().setMaxConcurrency(8);
+        properties.getListener().getSimple().setPrefetch(250);
+        OrderedConsumptionConfig config = new OrderedConsumptionConfig(2);
+        SimpleRabbitListenerContainerFactory factory = config.partitionListenerContainerFactory(
+                new SimpleRabbitListenerContainerFactoryConfigurer(properties), mock(ConnectionFactory.class),
+                mock(ObjectProvider.class));
+
+        RabbitListenerEndpointRegistry registry = new RabbitListenerEndpointRegistry();
+        RabbitListenerEndpointRegistrar registrar = new RabbitListenerEndpointRegistrar();
+        registrar.setEndpointRegistry(registry);
+        config.partitionListenersConfigurer(mock(InventoryListener.class), new RabbitMQConfig().messageConverter(), factory)
+                .configureRabbitListeners(registrar);
+        registrar.afterPropertiesSet();
+
+        for (int i = 0; i < 2; i++) {
+            SimpleMessageListenerContainer container =
+                    (SimpleMessageListenerContainer) registry.getListenerContainer("inventoryPartitionListener-" + i);
+            assertThat(container.getQueueNames()).containsExactly(OrderedConsumptionConfig.PARTITION_QUEUE_PREFIX + i);
+            assertThat(ReflectionTestUtils.getField(container, "concurrentConsumers")).isEqualTo(1);
+            assertThat(ReflectionTestUtils.getField(container, "maxConcurrentConsumers")).isEqualTo(1);
+            assertThat(ReflectionTestUtils.getField(container, "prefetchCount")).isEqualTo(1);
+        }
+    }
+}
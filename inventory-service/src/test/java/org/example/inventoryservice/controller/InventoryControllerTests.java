@@ -0,0 +1,61 @@
+package org.example.inventoryservice.controller;
+
+import org.example.inventoryservice.idempotency.IdempotencyStore;
+import org.example.inventoryservice.model.InventoryOrder;
+import org.example.inventoryservice.retry.DeadLetterReplayer;
+import org.example.inventoryservice.service.InventoryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(InventoryController.class)
+class InventoryControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private InventoryService inventoryService;
+
+    @MockitoBean
+    private IdempotencyStore idempotencyStore;
+
+    @MockitoBean
+    private DeadLetterReplayer deadLetterReplayer;
+
+    @Test
+    void lookupRejectsNullAndBlankOrderIdsBeforeTheyReachTheCache() throws Exception {
+        for (String body : new String[]{"[\"order-1\", null]", "[\"order-1\", \" \"]"}) {
+            mockMvc.perform(post("/inventory/orders:lookup").contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().string("orderIds must not contain null or blank ids"));
+        }
+        verifyNoInteractions(inventoryService);
+    }
+
+    @Test
+    void lookupSplitsFoundAndMissingOrders() throws Exception {
+        InventoryOrder order = new InventoryOrder();
+        order.setOrderId("order-1");
+        when(inventoryService.findProcessedOrders(any())).thenReturn(Map.of("order-1", order));
+
+        mockMvc.perform(post("/inventory/orders:lookup").contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"order-1\", \"order-2\"]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found[0].orderId").value("order-1"))
+                .andExpect(jsonPath("$.missing[0]").value("order-2"));
+    }
+}
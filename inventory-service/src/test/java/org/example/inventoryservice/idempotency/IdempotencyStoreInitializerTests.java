@@ -0,0 +1,88 @@
+package org.example.inventoryservice.idempotency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.inventoryservice.config.CaffeineConfig;
+import org.example.inventoryservice.repository.ProcessedOrderStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyStoreInitializerTests {
+
+    @TempDir
+    Path directory;
+
+    private final ProcessedOrderStore orderStore = mock(ProcessedOrderStore.class);
+
+    @Test
+    void warmsTheNextStartFromTheShutdownSnapshot() {
+        when(orderStore.findRecentOrderIds(any(), anyInt())).thenReturn(List.of("order-1", "order-2"));
+        TieredIdempotencyStore first = store(orderStore);
+        IdempotencyStoreInitializer initializer = initializer(first);
+        initializer.start();
+        first.markProcessed("order-3");
+        initializer.stop();
+
+        ProcessedOrderStore restartedStore = mock(ProcessedOrderStore.class);
+        TieredIdempotencyStore restarted = store(restartedStore);
+        new IdempotencyStoreInitializer(restarted, restartedStore, directory.resolve("cache.snapshot").toString(),
+                Duration.ofMinutes(10), 100).start();
+
+        assertThat(restarted.findProcessed(List.of("order-1", "order-2", "order-3", "order-4")))
+                .containsExactlyInAnyOrder("order-1", "order-2", "order-3");
+        // Warmed from the snapshot, and the warmed ids were answered from the cache
+        verify(restartedStore, never()).findRecentOrderIds(any(), anyInt());
+        verify(restartedStore, never()).existsById(anyString());
+        assertThat(restarted.stats().getCacheHits()).isEqualTo(3);
+    }
+
+    @Test
+    void fallsBackToTheStoreWhenTheSnapshotIsCorrupt() throws Exception {
+        Files.write(directory.resolve("cache.snapshot"), new byte[]{0x49, 0x44, 0x53, 0x31, 0, 1, 7});
+        when(orderStore.findRecentOrderIds(any(), anyInt())).thenReturn(List.of("order-1"));
+        TieredIdempotencyStore store = store(orderStore);
+
+        initializer(store).start();
+
+        verify(orderStore).findRecentOrderIds(any(), anyInt());
+        assertThat(store.isProcessed("order-1")).isTrue();
+        assertThat(store.stats().getCacheHits()).isEqualTo(1);
+    }
+
+    @Test
+    void ignoresASnapshotOlderThanTheWindow() throws Exception {
+        IdempotencySnapshot.write(directory.resolve("cache.snapshot"), List.of("order-1"));
+        Thread.sleep(10);
+        TieredIdempotencyStore store = store(orderStore);
+        when(orderStore.findRecentOrderIds(any(), anyInt())).thenReturn(List.of());
+
+        new IdempotencyStoreInitializer(store, orderStore, directory.resolve("cache.snapshot").toString(),
+                Duration.ofMillis(1), 100).start();
+
+        verify(orderStore).findRecentOrderIds(any(), anyInt());
+        assertThat(store.cachedOrderIds()).isEmpty();
+    }
+
+    private IdempotencyStoreInitializer initializer(TieredIdempotencyStore store) {
+        return new IdempotencyStoreInitializer(store, orderStore, directory.resolve("cache.snapshot").toString(),
+                Duration.ofMinutes(10), 100);
+    }
+
+    private TieredIdempotencyStore store(ProcessedOrderStore backingStore) {
+        return new TieredIdempotencyStore(new CaffeineConfig().orderCache(), backingStore, false, true, "amqp", 1_000, 0.01,
+                new SimpleMeterRegistry());
+    }
+}
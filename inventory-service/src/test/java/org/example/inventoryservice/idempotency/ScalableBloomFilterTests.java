@@ -0,0 +1,37 @@
+package org.example.inventoryservice.idempotency;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScalableBloomFilterTests {
+
+    @Test
+    void neverReportsAnAddedIdAsAbsent() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+        for (int i = 0; i < 50_000; i++) {
+            filter.put("order-" + i);
+        }
+        for (int i = 0; i < 50_000; i++) {
+            assertThat(filter.mightContain("order-" + i)).isTrue();
+        }
+    }
+
+    @Test
+    void keepsFalsePositiveRateWithinTargetWhileGrowing() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            filter.put("order-" + i);
+        }
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("new-order-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat(filter.expectedFalsePositiveRate()).isLessThan(0.01);
+        assertThat((double) falsePositives / probes).isLessThan(0.015);
+        assertThat(filter.approximateElementCount()).isBetween(99_000L, 100_000L);
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.inventoryservice.idempotency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.inventoryservice.config.CaffeineConfig;
+import org.example.inventoryservice.repository.ProcessedOrderStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TieredIdempotencyStoreTests {
+
+    private final ProcessedOrderStore orderStore = mock(ProcessedOrderStore.class);
+
+    @Test
+    void aSingleWriterTrustsTheFilterForOrdersItNeverWrote() {
+        TieredIdempotencyStore store = store(true, "amqp");
+        store.rebuild();
+
+        assertThat(store.isProcessed("order-1")).isFalse();
+        assertThat(store.findProcessed(List.of("order-1"))).isEmpty();
+        verify(orderStore, never()).existsById("order-1");
+        verify(orderStore, never()).findExistingOrderIds(anyList());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"false, amqp", "true, stream"})
+    void findsOrdersWrittenByAnotherInstanceWhenItIsNotTheOnlyWriter(boolean singleWriter, String transport) {
+        // order-1 was processed by another instance, so it is in the store but not in this instance's filter
+        when(orderStore.existsById("order-1")).thenReturn(true);
+        when(orderStore.findExistingOrderIds(List.of("order-1"))).thenReturn(List.of("order-1"));
+        TieredIdempotencyStore store = store(singleWriter, transport);
+        store.rebuild();
+
+        assertThat(store.findProcessed(List.of("order-1"))).containsExactly("order-1");
+        assertThat(store.stats().isFilterReady()).isFalse();
+    }
+
+    private TieredIdempotencyStore store(boolean singleWriter, String transport) {
+        return new TieredIdempotencyStore(new CaffeineConfig().orderCache(), orderStore, true, singleWriter, transport,
+                1_000, 0.01, new SimpleMeterRegistry());
+    }
+}
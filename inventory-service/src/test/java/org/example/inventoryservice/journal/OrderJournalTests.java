@@ -0,0 +1,172 @@
+package org.example.inventoryservice.journal;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.inventoryservice.model.InventoryOrder;
+import org.example.inventoryservice.model.OrderFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderJournalTests {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 5, 1, 10, 0, 0, 123_456_000);
+
+    @TempDir
+    Path directory;
+
+    private OrderJournal journal;
+
+    @AfterEach
+    void tearDown() {
+        journal.stop();
+    }
+
+    @Test
+    void recoversEveryCommittedWriteAcrossSegmentsAfterARestart() {
+        journal = open();
+        journal.insertAll(List.of(order("order-1", T0), order("order-2", T0.plusSeconds(1)), order("order-3", null)));
+        journal.insertAll(List.of(order("order-4", T0.plusSeconds(2)), order("order-5", T0.plusSeconds(3))));
+        journal.save(order("order-6", T0.plusSeconds(4)));
+        // Four records per segment: the second batch does not fit after the first and starts a new one
+        assertThat(segmentFiles()).hasSize(2);
+
+        journal.stop();
+        journal = open();
+
+        assertThat(journal.findExistingOrderIds(List.of("order-1", "order-3", "order-6", "order-7")))
+                .containsExactlyInAnyOrder("order-1", "order-3", "order-6");
+        InventoryOrder recovered = journal.findById("order-2").orElseThrow();
+        assertThat(recovered.getStoreId()).isEqualTo("store-1");
+        assertThat(recovered.getOrderType()).isEqualTo("IN_STORE");
+        assertThat(recovered.getProcessedAt()).isEqualTo(T0.plusSeconds(1));
+        assertThat(journal.findById("order-3").orElseThrow().getProcessedAt()).isNull();
+        // order-3 has no processedAt, so pages skip it
+        assertThat(journal.findPage(new OrderFilter("store-1", null, null, null), null, 10))
+                .extracting(InventoryOrder::getOrderId)
+                .containsExactly("order-1", "order-2", "order-4", "order-5", "order-6");
+    }
+
+    @Test
+    void discardsAWriteThatNeverCommittedAndWritesOverIt() throws Exception {
+        journal = open();
+        journal.insertAll(List.of(order("order-1", T0)));
+        journal.stop();
+
+        // The process died while copying a batch: its first record is there, the commit record is not
+        byte[] torn = new byte[OrderRecord.SIZE];
+        OrderRecord.encode(order("order-2", T0), false, torn, 0);
+        try (FileChannel segment = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            segment.write(ByteBuffer.wrap(torn), 2L * OrderRecord.SIZE);
+        }
+
+        journal = open();
+        assertThat(journal.existsById("order-2")).isFalse();
+        journal.insertAll(List.of(order("order-3", T0)));
+        journal.stop();
+        journal = open();
+        assertThat(journal.findExistingOrderIds(List.of("order-1", "order-2", "order-3")))
+                .containsExactlyInAnyOrder("order-1", "order-3");
+    }
+
+    @Test
+    void rejectsABatchWithAnOrderAlreadyWrittenAsAWhole() {
+        journal = open();
+        journal.insertAll(List.of(order("order-1", T0)));
+
+        assertThatThrownBy(() -> journal.insertAll(List.of(order("order-2", T0), order("order-1", T0))))
+                .isInstanceOf(DuplicateKeyException.class);
+        assertThat(journal.existsById("order-2")).isFalse();
+    }
+
+    @Test
+    void compactionKeepsOnlyTheLatestRecordOfEachOrder() {
+        journal = open();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 3; i++) {
+                journal.save(order("order-" + i, T0.plusSeconds(round)));
+            }
+        }
+        // Nine records: nothing live in the first segment, half of the second, order-2's latest in the third
+        assertThat(segmentFiles()).hasSize(3);
+
+        journal.compact();
+
+        assertThat(segmentFiles()).hasSize(1);
+        journal.stop();
+        journal = open();
+        for (int i = 0; i < 3; i++) {
+            assertThat(journal.findById("order-" + i).orElseThrow().getProcessedAt()).isEqualTo(T0.plusSeconds(2));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"UTC", "America/Los_Angeles", "Asia/Tokyo"})
+    void compactionExpiresOrdersOlderThanTheRetentionInTheLocalClock(String zone) {
+        TimeZone defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone(zone));
+        try {
+            // processedAt is local wall-clock time, as InventoryListener stamps it
+            LocalDateTime now = LocalDateTime.now();
+            journal = open(Duration.ofHours(1));
+            // One segment expired an hour ago, one still within the window, and the active one
+            journal.insertAll(List.of(order("old-1", now.minusHours(3)), order("old-2", now.minusHours(3)),
+                    order("old-3", now.minusHours(2)), order("old-4", now.minusHours(2))));
+            journal.insertAll(List.of(order("recent-1", now.minusMinutes(40)), order("recent-2", now.minusMinutes(30)),
+                    order("recent-3", now.minusMinutes(20)), order("recent-4", now.minusMinutes(10))));
+            journal.save(order("recent-5", now));
+            assertThat(segmentFiles()).hasSize(3);
+
+            journal.compact();
+
+            assertThat(segmentFiles()).hasSize(2);
+            assertThat(journal.findExistingOrderIds(List.of("old-1", "old-4", "recent-1", "recent-4", "recent-5")))
+                    .containsExactlyInAnyOrder("recent-1", "recent-4", "recent-5");
+        } finally {
+            TimeZone.setDefault(defaultZone);
+        }
+    }
+
+    private OrderJournal open() {
+        return open(Duration.ZERO);
+    }
+
+    private OrderJournal open(Duration retention) {
+        OrderJournal opened = new OrderJournal(directory.toString(), 4, false, retention, 0.75, new SimpleMeterRegistry());
+        opened.start();
+        return opened;
+    }
+
+    private List<Path> segmentFiles() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static InventoryOrder order(String orderId, LocalDateTime processedAt) {
+        InventoryOrder order = new InventoryOrder();
+        order.setOrderId(orderId);
+        order.setOrderType("IN_STORE");
+        order.setStoreId("store-1");
+        order.setProcessedAt(processedAt);
+        return order;
+    }
+}
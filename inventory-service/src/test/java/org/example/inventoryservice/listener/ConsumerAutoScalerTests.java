@@ -0,0 +1,64 @@
+package org.example.inventoryservice.listener;
+
+import org.example.inventoryservice.config.RabbitMQConfig;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConsumerAutoScalerTests {
+
+    private final AmqpAdmin amqpAdmin = mock(AmqpAdmin.class);
+    private final RabbitListenerEndpointRegistry registry = mock(RabbitListenerEndpointRegistry.class);
+    private final SimpleMessageListenerContainer orders = container(RabbitMQConfig.QUEUE);
+    private final SimpleMessageListenerContainer other = container("orders.retry");
+    private final ConsumerAutoScaler scaler = new ConsumerAutoScaler(amqpAdmin, registry, 2, 8, 1000);
+
+    @Test
+    void scalesWithTheQueueDepthBetweenTheConfiguredBounds() {
+        when(registry.getListenerContainers()).thenReturn(List.of(orders, other));
+
+        for (int depth : new int[]{0, 3_500, 3_900, 100_000, 500}) {
+            when(amqpAdmin.getQueueInfo(RabbitMQConfig.QUEUE))
+                    .thenReturn(new QueueInformation(RabbitMQConfig.QUEUE, depth, 2));
+            scaler.rescale();
+        }
+
+        // 3_900 keeps the target of 3_500, so the container is only touched when the target changes
+        InOrder inOrder = inOrder(orders);
+        inOrder.verify(orders).setConcurrentConsumers(2);
+        inOrder.verify(orders).setConcurrentConsumers(5);
+        inOrder.verify(orders).setConcurrentConsumers(8);
+        inOrder.verify(orders).setConcurrentConsumers(2);
+        verify(orders, times(4)).setConcurrentConsumers(anyInt());
+        verify(other, never()).setConcurrentConsumers(anyInt());
+    }
+
+    @Test
+    void leavesTheConsumersAloneWhileTheQueueCannotBeRead() {
+        when(amqpAdmin.getQueueInfo(RabbitMQConfig.QUEUE)).thenReturn(null);
+
+        scaler.rescale();
+
+        verify(registry, never()).getListenerContainers();
+    }
+
+    private static SimpleMessageListenerContainer container(String queue) {
+        SimpleMessageListenerContainer container = mock(SimpleMessageListenerContainer.class);
+        when(container.isRunning()).thenReturn(true);
+        when(container.getQueueNames()).thenReturn(new String[]{queue});
+        return container;
+    }
+}
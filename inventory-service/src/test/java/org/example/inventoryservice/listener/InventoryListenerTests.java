@@ -0,0 +1,157 @@
+package org.example.inventoryservice.listener;
+
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.common.OrderMessage;
+import org.example.inventoryservice.analytics.OrderStatsAggregator;
+import org.example.inventoryservice.idempotency.IdempotencyStore;
+import org.example.inventoryservice.model.InventoryOrder;
+import org.example.inventoryservice.repository.ProcessedOrderStore;
+import org.example.inventoryservice.repository.StockLevelJdbcRepository;
+import org.example.inventoryservice.retry.FailedOrderRouter;
+import org.example.inventoryservice.stock.InsufficientStockException;
+import org.example.inventoryservice.stock.StockLedger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The batch listener against stubbed stores: which orders are written, routed, acked or requeued.
+ * Every order takes one unit of SKU-1 from a real {@link StockLedger}.
+ */
+class InventoryListenerTests {
+
+    private final IdempotencyStore idempotencyStore = mock(IdempotencyStore.class);
+    private final ProcessedOrderStore orderStore = mock(ProcessedOrderStore.class);
+    private final FailedOrderRouter failedOrderRouter = mock(FailedOrderRouter.class);
+    private final WriteBehindBuffer writeBehind = mock(WriteBehindBuffer.class);
+    private final Channel channel = mock(Channel.class);
+    private final StockLedger stockLedger =
+            new StockLedger(mock(StockLevelJdbcRepository.class), new SimpleMeterRegistry());
+    private final InventoryListener listener = new InventoryListener(idempotencyStore, orderStore, failedOrderRouter,
+            writeBehind, stockLedger, new OrderStatsAggregator(false, new SimpleMeterRegistry()),
+            new SimpleMeterRegistry());
+
+    @BeforeEach
+    void setUp() {
+        stockLedger.setAvailable("store-1", "SKU-1", 10);
+        when(idempotencyStore.findProcessed(anyCollection())).thenReturn(Set.of());
+    }
+
+    @Test
+    void collapsesRedeliveriesInTheBatchAndSkipsProcessedOrders() {
+        when(idempotencyStore.findProcessed(anyCollection())).thenReturn(Set.of("order-2"));
+
+        listener.processOrders(List.of(message("order-1", 1), message("order-2", 2), message("order-1", 3),
+                message("order-3", 4)), channel);
+
+        verify(idempotencyStore).findProcessed(Set.of("order-1", "order-2", "order-3"));
+        assertThat(inserted()).containsExactly("order-1", "order-3");
+        verify(idempotencyStore).markProcessed("order-1");
+        verify(idempotencyStore).markProcessed("order-3");
+        verify(idempotencyStore, never()).markProcessed("order-2");
+        assertThat(available()).isEqualTo(8);
+    }
+
+    @Test
+    void routesOrdersTheLedgerRejectsOnlyAfterTheInsert() {
+        Message<OrderMessage> soldOut = message("order-2", 2, 20);
+
+        listener.processOrders(List.of(message("order-1", 1), soldOut), channel);
+
+        InOrder inOrder = inOrder(orderStore, failedOrderRouter);
+        inOrder.verify(orderStore).insertAll(anyList());
+        inOrder.verify(failedOrderRouter).route(eq(soldOut.getPayload()), eq(soldOut.getHeaders()),
+                any(InsufficientStockException.class));
+        assertThat(inserted()).containsExactly("order-1");
+        assertThat(available()).isEqualTo(9);
+    }
+
+    @Test
+    void aFailedInsertReleasesTheBatchReservationsAndFallsBackPerMessage() {
+        doThrow(new IllegalStateException("insert failed")).when(orderStore).insertAll(anyList());
+
+        listener.processOrders(List.of(message("order-1", 1), message("order-2", 2)), channel);
+
+        verify(idempotencyStore).isProcessed("order-1");
+        verify(idempotencyStore).isProcessed("order-2");
+        verify(orderStore, times(2)).save(any(InventoryOrder.class));
+        // Only the fallback's reservations are still held
+        assertThat(available()).isEqualTo(8);
+    }
+
+    @Test
+    void writeBehindAcksDuplicatesOnlyOnceTheNewOrdersAreHandedOver() throws Exception {
+        when(writeBehind.isEnabled()).thenReturn(true);
+        when(idempotencyStore.findProcessed(anyCollection())).thenReturn(Set.of("order-1"));
+
+        listener.processOrders(List.of(message("order-1", 1), message("order-2", 2)), channel);
+
+        InOrder inOrder = inOrder(writeBehind, channel);
+        inOrder.verify(writeBehind).submit(any(InventoryOrder.class), eq(channel), eq(2L), any(Runnable.class));
+        inOrder.verify(channel).basicAck(1L, false);
+        verify(channel, never()).basicAck(2L, false);
+    }
+
+    @Test
+    void aWriteBehindSubmitFailureRequeuesTheRestAndReleasesTheirStockWithoutFallingBack() throws Exception {
+        when(writeBehind.isEnabled()).thenReturn(true);
+        when(idempotencyStore.findProcessed(anyCollection())).thenReturn(Set.of("order-1"));
+        doNothing().doThrow(new IllegalStateException("buffer closed"))
+                .when(writeBehind).submit(any(InventoryOrder.class), eq(channel), anyLong(), any(Runnable.class));
+
+        listener.processOrders(List.of(message("order-1", 1), message("order-2", 2), message("order-3", 3)), channel);
+
+        verify(channel).basicNack(3L, false, true);
+        verify(channel, never()).basicNack(2L, false, true);
+        verify(channel, times(1)).basicAck(1L, false);
+        verify(idempotencyStore, never()).isProcessed(anyString());
+        // order-2 is in the buffer; order-3 got its unit back
+        assertThat(available()).isEqualTo(9);
+    }
+
+    private List<String> inserted() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<InventoryOrder>> orders = ArgumentCaptor.forClass(List.class);
+        verify(orderStore).insertAll(orders.capture());
+        return orders.getValue().stream().map(InventoryOrder::getOrderId).toList();
+    }
+
+    private long available() {
+        return stockLedger.status("store-1", "SKU-1").orElseThrow().available();
+    }
+
+    private static Message<OrderMessage> message(String orderId, long deliveryTag) {
+        return message(orderId, deliveryTag, 1);
+    }
+
+    private static Message<OrderMessage> message(String orderId, long deliveryTag, int quantity) {
+        OrderMessage order = new OrderMessage(orderId, "IN_STORE", "store-1",
+                Map.of("item", Map.of("sku", "SKU-1", "quantity", quantity)));
+        return MessageBuilder.withPayload(order).setHeader(AmqpHeaders.DELIVERY_TAG, deliveryTag).build();
+    }
+}
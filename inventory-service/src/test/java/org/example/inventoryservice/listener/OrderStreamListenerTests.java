@@ -0,0 +1,100 @@
+package org.example.inventoryservice.listener;
+
+import com.rabbitmq.stream.Consumer;
+import com.rabbitmq.stream.MessageHandler;
+import com.rabbitmq.stream.NoOffsetException;
+import com.rabbitmq.stream.OffsetSpecification;
+import org.example.common.OrderMessage;
+import org.example.inventoryservice.config.RabbitMQConfig;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.rabbit.stream.support.StreamMessageProperties;
+import org.springframework.rabbit.stream.support.converter.DefaultStreamMessageConverter;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderStreamListenerTests {
+
+    private final InventoryListener inventoryListener = mock(InventoryListener.class);
+    private final MessageConverter messageConverter = new RabbitMQConfig().messageConverter();
+    private final OrderStreamListener listener = new OrderStreamListener(inventoryListener, messageConverter, 100, 1);
+
+    @Test
+    void processesOrdersAndStoresTheOffsetEveryInterval() {
+        OrderMessage order = new OrderMessage("order-1", "IN_STORE", "store-1", Map.of("note", "gift"));
+        StreamMessageProperties published = new StreamMessageProperties();
+        published.setCreationTime(1_700_000_000_000L);
+        com.rabbitmq.stream.Message streamMessage = new DefaultStreamMessageConverter()
+                .fromMessage(messageConverter.toMessage(order, published));
+
+        MessageHandler.Context stored = context(200);
+        MessageHandler.Context skipped = context(201);
+        listener.onStreamMessage(streamMessage, stored);
+        listener.onStreamMessage(streamMessage, skipped);
+
+        verify(stored).storeOffset();
+        verify(skipped, never()).storeOffset();
+
+        ArgumentCaptor<OrderMessage> received = ArgumentCaptor.forClass(OrderMessage.class);
+        ArgumentCaptor<MessageHeaders> headers = ArgumentCaptor.forClass(MessageHeaders.class);
+        verify(inventoryListener, times(2)).processOrder(received.capture(), isNull(), headers.capture());
+        assertThat(received.getValue()).usingRecursiveComparison().isEqualTo(order);
+        assertThat(headers.getValue().get(AmqpHeaders.TIMESTAMP, Date.class)).isEqualTo(new Date(1_700_000_000_000L));
+        assertThat(headers.getValue().get(AmqpHeaders.CONSUMER_QUEUE)).isEqualTo(RabbitMQConfig.QUEUE);
+    }
+
+    @Test
+    void holdsTheOffsetAndRetriesWhileAFailedOrderCannotBeRouted() {
+        OrderMessage order = new OrderMessage("order-1", "IN_STORE", "store-1", Map.of());
+        com.rabbitmq.stream.Message streamMessage = new DefaultStreamMessageConverter()
+                .fromMessage(messageConverter.toMessage(order, new StreamMessageProperties()));
+        doThrow(new AmqpConnectException(new IOException("Connection refused")))
+                .doThrow(new AmqpConnectException(new IOException("Connection refused")))
+                .doNothing()
+                .when(inventoryListener).processOrder(any(), isNull(), any());
+
+        MessageHandler.Context context = context(300);
+        listener.onStreamMessage(streamMessage, context);
+
+        // The offset is only stored once the order has been handled
+        InOrder inOrder = inOrder(inventoryListener, context);
+        inOrder.verify(inventoryListener, times(3)).processOrder(any(), isNull(), any());
+        inOrder.verify(context).storeOffset();
+    }
+
+    @Test
+    void resumesAfterTheStoredOffsetOrStartsAtTheInitialOne() {
+        Consumer consumer = mock(Consumer.class);
+        when(consumer.storedOffset()).thenReturn(41L).thenThrow(new NoOffsetException("none stored"));
+        OffsetSpecification initial = OrderStreamListener.initialOffset("2024-05-01T00:00:00Z");
+
+        assertThat(OrderStreamListener.resumeFrom(consumer, initial)).isEqualTo(OffsetSpecification.offset(42));
+        assertThat(OrderStreamListener.resumeFrom(consumer, initial)).isEqualTo(initial);
+        assertThat(initial.isTimestamp()).isTrue();
+    }
+
+    private MessageHandler.Context context(long offset) {
+        MessageHandler.Context context = mock(MessageHandler.Context.class);
+        when(context.offset()).thenReturn(offset);
+        return context;
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.inventoryservice.listener;
+
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.inventoryservice.idempotency.IdempotencyStore;
+import org.example.inventoryservice.model.InventoryOrder;
+import org.example.inventoryservice.repository.ProcessedOrderStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class WriteBehindBufferTests {
+
+    private final ProcessedOrderStore repository = mock(ProcessedOrderStore.class);
+    private final IdempotencyStore idempotencyStore = mock(IdempotencyStore.class);
+    private final Channel channel = mock(Channel.class);
+    private final WriteBehindBuffer buffer =
+            new WriteBehindBuffer(repository, idempotencyStore, true, 100, 2, 1_000, new SimpleMeterRegistry());
+
+    @AfterEach
+    void tearDown() {
+        buffer.stop();
+    }
+
+    @Test
+    void acksOnlyAfterTheBatchIsCommitted() throws Exception {
+        buffer.start();
+        buffer.submit(order("order-1"), channel, 1, () -> { });
+        assertThat(buffer.isPending("order-1")).isTrue();
+        buffer.submit(order("order-2"), channel, 2, () -> { });
+
+        // flush-size is 2, so the second order triggers the flush well before the interval
+        InOrder inOrder = inOrder(repository, idempotencyStore, channel);
+        inOrder.verify(repository, timeout(500)).insertAll(argThat(orders -> orders.size() == 2));
+        inOrder.verify(idempotencyStore, timeout(500)).markProcessed("order-1");
+        inOrder.verify(channel, timeout(500)).basicAck(1, false);
+        verify(channel, timeout(500)).basicAck(2, false);
+        assertThat(buffer.isPending("order-1")).isFalse();
+    }
+
+    @Test
+    void requeuesOnlyTheOrderThatCannotBeWritten() throws Exception {
+        InventoryOrder bad = order("order-bad");
+        doThrow(new IllegalStateException("batch failed")).when(repository).insertAll(argThat(orders -> orders.size() == 2));
+        doThrow(new IllegalStateException("row failed")).when(repository).insertAll(List.of(bad));
+        buffer.start();
+        buffer.submit(order("order-1"), channel, 1, () -> { });
+        Runnable releaseStock = mock(Runnable.class);
+        buffer.submit(bad, channel, 2, releaseStock);
+
+        verify(channel, timeout(500)).basicAck(1, false);
+        verify(channel, timeout(500)).basicNack(2, false, true);
+        verify(releaseStock).run();
+        verify(idempotencyStore, never()).markProcessed("order-bad");
+        assertThat(buffer.isPending("order-bad")).isFalse();
+    }
+
+    @Test
+    void flushesWhatIsLeftOnStop() throws Exception {
+        buffer.start();
+        buffer.submit(order("order-1"), channel, 1, () -> { });
+        buffer.stop();
+
+        verify(repository).insertAll(anyList());
+        verify(channel).basicAck(1, false);
+    }
+
+    private InventoryOrder order(String orderId) {
+        InventoryOrder order = new InventoryOrder();
+        order.setOrderId(orderId);
+        return order;
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.inventoryservice.repository;
+
+import org.example.inventoryservice.model.InventoryOrder;
+import org.example.inventoryservice.model.OrderCursor;
+import org.example.inventoryservice.model.OrderFilter;
+import org.example.inventoryservice.model.OrderPage;
+import org.example.inventoryservice.service.InventoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class InventoryOrderJdbcRepositoryTests {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 5, 1, 10, 0);
+
+    private final EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .build();
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+    private final InventoryOrderJdbcRepository repository = new InventoryOrderJdbcRepository(jdbcTemplate);
+    private final InventoryService service = new InventoryService(
+            new DatabaseProcessedOrderStore(mock(InventoryOrderRepository.class), repository, jdbcTemplate), null, 2);
+
+    InventoryOrderJdbcRepositoryTests() {
+        // As Hibernate generates it from InventoryOrder
+        jdbcTemplate.execute("CREATE TABLE processed_orders (order_id VARCHAR(255) PRIMARY KEY, "
+                + "order_type VARCHAR(255), store_id VARCHAR(255), processed_at TIMESTAMP(6))");
+        jdbcTemplate.execute("CREATE INDEX idx_processed_orders_store ON processed_orders (store_id, processed_at, order_id)");
+        // Three store-1 orders share a timestamp, so the cursor has to break the tie on orderId
+        repository.insertAll(List.of(
+                order("order-c", "store-1", T0),
+                order("order-a", "store-1", T0),
+                order("order-b", "store-1", T0),
+                order("order-d", "store-2", T0.plusMinutes(1)),
+                order("order-e", "store-1", T0.plusMinutes(2)),
+                order("order-f", "store-1", T0.plusHours(1))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void pagesThroughAStoreWithACursorAndSeeksOnTheIndex() {
+        OrderFilter filter = new OrderFilter("store-1", null, T0, T0.plusHours(1));
+        List<String> seen = new ArrayList<>();
+        String next = null;
+        int pages = 0;
+        do {
+            OrderPage page = service.findOrders(filter, next != null ? OrderCursor.decode(next) : null, 2);
+            page.getOrders().forEach(order -> seen.add(order.getOrderId()));
+            next = page.getNext();
+            pages++;
+        } while (next != null);
+
+        assertThat(seen).containsExactly("order-a", "order-b", "order-c", "order-e");
+        assertThat(pages).isEqualTo(2);
+
+        String plan = jdbcTemplate.queryForObject("EXPLAIN SELECT order_id FROM processed_orders WHERE store_id = 'store-1' "
+                + "AND (processed_at > TIMESTAMP '2024-05-01 10:00:00' OR (processed_at = TIMESTAMP '2024-05-01 10:00:00' "
+                + "AND order_id > 'order-b')) ORDER BY processed_at, order_id", String.class);
+        assertThat(plan).contains("IDX_PROCESSED_ORDERS_STORE");
+    }
+
+    @Test
+    void exportReadsEveryMatchingOrderOnePageAtATime() throws Exception {
+        List<Integer> pageSizes = new ArrayList<>();
+        List<String> exported = new ArrayList<>();
+
+        long count = service.exportOrders(new OrderFilter("store-1", "IN_STORE", null, null), page -> {
+            pageSizes.add(page.size());
+            page.forEach(order -> exported.add(order.getOrderId()));
+        });
+
+        assertThat(count).isEqualTo(5);
+        assertThat(exported).containsExactly("order-a", "order-b", "order-c", "order-e", "order-f");
+        assertThat(pageSizes).containsExactly(2, 2, 1);
+    }
+
+    @Test
+    void findsTheNewestOrderIdsForTheWarmUp() {
+        assertThat(repository.findRecentOrderIds(T0.plusMinutes(1), 10)).containsExactly("order-f", "order-e", "order-d");
+        assertThat(repository.findRecentOrderIds(T0, 2)).containsExactly("order-f", "order-e");
+    }
+
+    private static InventoryOrder order(String orderId, String storeId, LocalDateTime processedAt) {
+        InventoryOrder order = new InventoryOrder();
+        order.setOrderId(orderId);
+        order.setOrderType("IN_STORE");
+        order.setStoreId(storeId);
+        order.setProcessedAt(processedAt);
+        return order;
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.inventoryservice.retry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.common.OrderMessage;
+import org.example.inventoryservice.config.RetryConfig;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.messaging.MessageHeaders;
+
+import java.sql.SQLException;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class FailedOrderRouterTests {
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    // delays 1000, 4000 and 10000 (capped)
+    private final RetryPolicy retryPolicy = new RetryPolicy(3, 1_000, 4.0, 10_000);
+    private final FailedOrderRouter router = new FailedOrderRouter(rabbitTemplate, retryPolicy, new SimpleMeterRegistry());
+    private final OrderMessage order = new OrderMessage("order-1", "SALE", "store-1", Map.of());
+
+    @Test
+    void transientFailureIsRetriedWithBackoff() throws Exception {
+        FailedOrderRouter.Outcome outcome = router.route(order, headers(1), new QueryTimeoutException("lock wait"));
+
+        assertThat(outcome).isEqualTo(FailedOrderRouter.Outcome.RETRY_SCHEDULED);
+        MessageProperties properties = published("", "inventory.retry.4000ms");
+        assertThat((Integer) properties.getHeader(FailedOrderRouter.RETRY_COUNT_HEADER)).isEqualTo(2);
+        assertThat((String) properties.getHeader(FailedOrderRouter.ORIGINAL_QUEUE_HEADER)).isEqualTo("orders.queue.p1");
+    }
+
+    @Test
+    void exhaustedRetriesAndBusinessErrorsAreDeadLettered() throws Exception {
+        assertThat(router.route(order, headers(3), new CannotGetJdbcConnectionException("pool", new SQLException())))
+                .isEqualTo(FailedOrderRouter.Outcome.DEAD_LETTERED);
+        MessageProperties properties = published(RetryConfig.DLQ_EXCHANGE, RetryConfig.DLQ_ROUTING_KEY);
+        assertThat((Integer) properties.getHeader(FailedOrderRouter.RETRY_COUNT_HEADER)).isEqualTo(3);
+
+        assertThat(retryPolicy.isTransient(new IllegalArgumentException("unknown orderType"))).isFalse();
+        assertThat(retryPolicy.distinctDelaysMs()).containsExactly(1_000L, 4_000L, 10_000L);
+    }
+
+    private MessageHeaders headers(int retries) {
+        return new MessageHeaders(Map.of(FailedOrderRouter.RETRY_COUNT_HEADER, retries,
+                AmqpHeaders.CONSUMER_QUEUE, "orders.queue.p1"));
+    }
+
+    private MessageProperties published(String exchange, String routingKey) throws Exception {
+        ArgumentCaptor<MessagePostProcessor> postProcessor = ArgumentCaptor.forClass(MessagePostProcessor.class);
+        verify(rabbitTemplate).convertAndSend(eq(exchange), eq(routingKey), any(Object.class), postProcessor.capture());
+        return postProcessor.getValue().postProcessMessage(new Message(new byte[0])).getMessageProperties();
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.inventoryservice.service;
+
+import org.example.inventoryservice.config.CaffeineConfig;
+import org.example.inventoryservice.model.InventoryOrder;
+import org.example.inventoryservice.repository.ProcessedOrderStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryServiceTests {
+
+    private final ProcessedOrderStore repository = mock(ProcessedOrderStore.class);
+    private final InventoryService service = new InventoryService(repository,
+            new CaffeineConfig().orderLookupCache(1_000, 60_000, 60_000), 1_000);
+
+    @Test
+    void cachesHitsAndMisses() {
+        when(repository.findById("order-1")).thenReturn(Optional.of(order("order-1")));
+        when(repository.findById("order-2")).thenReturn(Optional.empty());
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(service.findProcessedOrder("order-1")).isPresent();
+            assertThat(service.findProcessedOrder("order-2")).isEmpty();
+        }
+
+        verify(repository, times(1)).findById("order-1");
+        verify(repository, times(1)).findById("order-2");
+    }
+
+    @Test
+    void bulkLookupLoadsOnlyUncachedIdsInOneQuery() {
+        when(repository.findById("order-1")).thenReturn(Optional.of(order("order-1")));
+        service.findProcessedOrder("order-1");
+        when(repository.findAllById(anyCollection())).thenReturn(List.of(order("order-2")));
+
+        assertThat(service.findProcessedOrders(Set.of("order-1", "order-2", "order-3")))
+                .containsOnlyKeys("order-1", "order-2");
+        // order-3 is now a cached miss
+        assertThat(service.findProcessedOrders(Set.of("order-3"))).isEmpty();
+
+        verify(repository, times(1)).findAllById(anyCollection());
+        verify(repository).findAllById(argThat(ids -> ids instanceof List<?> list
+                && list.size() == 2 && list.containsAll(List.of("order-2", "order-3"))));
+    }
+
+    private InventoryOrder order(String orderId) {
+        InventoryOrder order = new InventoryOrder();
+        order.setOrderId(orderId);
+        order.setOrderType("SALE");
+        order.setStoreId("store-1");
+        order.setProcessedAt(LocalDateTime.now());
+        return order;
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.inventoryservice.stock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.common.OrderMessage;
+import org.example.inventoryservice.repository.StockLevelJdbcRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class StockLedgerTests {
+
+    private final StockLedger ledger = new StockLedger(mock(StockLevelJdbcRepository.class), new SimpleMeterRegistry());
+
+    @Test
+    void neverOversellsAHotSkuUnderContention() throws Exception {
+        ledger.setAvailable("store-1", "SKU-1", 1_000);
+        OrderMessage order = order(Map.of("item", Map.of("sku", "SKU-1", "quantity", 3)));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            tasks.add(() -> {
+                int taken = 0;
+                for (int i = 0; i < 100; i++) {
+                    try {
+                        ledger.reserve(order);
+                        taken++;
+                    } catch (InsufficientStockException e) {
+                        // sold out
+                    }
+                }
+                return taken;
+            });
+        }
+        int orders = 0;
+        for (Future<Integer> result : executor.invokeAll(tasks)) {
+            orders += result.get();
+        }
+        executor.shutdown();
+
+        assertThat(orders).isEqualTo(333);
+        assertThat(ledger.status("store-1", "SKU-1").orElseThrow().available()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectedOrderGivesBackEarlierLines() {
+        ledger.setAvailable("store-1", "SKU-1", 10);
+        ledger.setAvailable("store-1", "SKU-2", 1);
+        // XML orders arrive with repeated elements merged into a list and quantities as text
+        OrderMessage order = order(Map.of("Item", List.of(
+                Map.of("sku", "SKU-1", "quantity", "4"),
+                Map.of("sku", "SKU-2", "quantity", "2"))));
+
+        assertThatThrownBy(() -> ledger.reserve(order)).isInstanceOf(InsufficientStockException.class);
+        assertThat(ledger.status("store-1", "SKU-1").orElseThrow().available()).isEqualTo(10);
+
+        StockLedger.Reservation reservation = ledger.reserve(order(Map.of("item", Map.of("sku", "SKU-1", "quantity", 4))));
+        reservation.release();
+        reservation.release();
+        assertThat(ledger.status("store-1", "SKU-1").orElseThrow().available()).isEqualTo(10);
+    }
+
+    private OrderMessage order(Map<String, Object> details) {
+        return new OrderMessage("order-1", "IN_STORE", "store-1", details);
+    }
+}
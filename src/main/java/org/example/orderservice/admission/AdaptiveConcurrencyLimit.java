@@ -0,0 +1,73 @@
+package org.example.orderservice.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Concurrency limit that adapts to downstream latency with AIMD: every completed request that was fast
+ * and succeeded while the limit was at least half used raises the limit by {@code 1/limit} (about +1
+ * per limit's worth of requests), every slow or failed one multiplies it by {@code backoffRatio}. The
+ * limit settles just below the concurrency at which latency crosses the threshold.
+ * <p>
+ * Lock-free: the in-flight count and the limit (as double bits) are only changed by compare-and-set.
+ */
+class AdaptiveConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong limitBits;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long latencyThresholdNanos,
+                             double backoffRatio) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.backoffRatio = backoffRatio;
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(
+                Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit))));
+    }
+
+    boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit()) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    void release(long latencyNanos, boolean success) {
+        int before = inFlight.getAndDecrement();
+        if (!success || latencyNanos > latencyThresholdNanos) {
+            update(limit -> Math.max(minLimit, limit * backoffRatio));
+        } else if (before * 2 >= limit()) {
+            // Only grow while the limit is actually in use, so an idle service does not drift to the maximum
+            update(limit -> Math.min(maxLimit, limit + 1.0 / limit));
+        }
+    }
+
+    /**
+     * Give back a slot whose request was never sent; says nothing about latency, so the limit stays as it is.
+     */
+    void cancel() {
+        inFlight.decrementAndGet();
+    }
+
+    int limit() {
+        return (int) Double.longBitsToDouble(limitBits.get());
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private void update(DoubleUnaryOperator change) {
+        limitBits.updateAndGet(bits -> Double.doubleToLongBits(change.applyAsDouble(Double.longBitsToDouble(bits))));
+    }
+}
@@ -0,0 +1,188 @@
+package org.example.orderservice.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sheds orders at the door before they pile up downstream ({@code orders.admission.enabled}).
+ * An order is admitted only if all of these hold:
+ * <ul>
+ *     <li>Queue depth: the ready messages in {@code orders.admission.queues}, polled every
+ *     {@code orders.admission.queue-depth.interval-ms}, are below {@code orders.admission.queue-depth.max},
+ *     so a lagging inventory-service stops new orders before the broker's memory alarm does.</li>
+ *     <li>Concurrency: fewer orders are in flight (accepted but not yet confirmed) than the adaptive
+ *     limit, which backs off when confirms get slower than {@code orders.admission.latency-threshold-ms}
+ *     or fail, and grows again while they are fast ({@link AdaptiveConcurrencyLimit}).</li>
+ *     <li>Store rate (optional): the store has tokens left in its bucket, so one store's sync job cannot
+ *     take all the capacity ({@link StoreRateLimiter}).</li>
+ * </ul>
+ * The store's token is only taken once the order has a concurrency slot, and an order refused by its store
+ * gives the slot back, so one rejection never costs the client both budgets.
+ * Rejections throw {@link AdmissionRejectedException} with how long the client should wait.
+ * <p>
+ * Metrics: {@code orders.admission.limit}, {@code orders.admission.in.flight},
+ * {@code orders.admission.queue.depth} and {@code orders.admission.rejected} tagged with the reason.
+ */
+@Component
+public class AdmissionControl {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControl.class);
+
+    private static final Permit UNLIMITED = success -> { };
+
+    private final AmqpAdmin amqpAdmin;
+    private final boolean enabled;
+    private final List<String> queues;
+    private final long maxQueueDepth;
+    private final long queueRetryAfterSeconds;
+    private final long limitRetryAfterSeconds;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final StoreRateLimiter storeRateLimiter;
+    private final Counter limitRejections;
+    private final Counter queueDepthRejections;
+    private final Counter storeRateRejections;
+
+    private volatile long queueDepth;
+    private volatile boolean depthKnown = true;
+
+    public AdmissionControl(AmqpAdmin amqpAdmin,
+                            @Value("${orders.admission.enabled:false}") boolean enabled,
+                            @Value("${orders.admission.queues:orders.queue}") List<String> queues,
+                            @Value("${orders.admission.queue-depth.max:100000}") long maxQueueDepth,
+                            @Value("${orders.admission.queue-depth.interval-ms:1000}") long queueDepthIntervalMs,
+                            @Value("${orders.admission.limit.initial:100}") int initialLimit,
+                            @Value("${orders.admission.limit.min:10}") int minLimit,
+                            @Value("${orders.admission.limit.max:1000}") int maxLimit,
+                            @Value("${orders.admission.latency-threshold-ms:500}") long latencyThresholdMs,
+                            @Value("${orders.admission.backoff-ratio:0.9}") double backoffRatio,
+                            @Value("${orders.admission.retry-after-seconds:1}") long limitRetryAfterSeconds,
+                            @Value("${orders.admission.store-rate.enabled:false}") boolean storeRateEnabled,
+                            @Value("${orders.admission.store-rate.permits-per-second:50}") double storePermitsPerSecond,
+                            @Value("${orders.admission.store-rate.burst:100}") int storeBurst,
+                            MeterRegistry meterRegistry) {
+        this.amqpAdmin = amqpAdmin;
+        this.enabled = enabled;
+        this.queues = queues;
+        this.maxQueueDepth = maxQueueDepth;
+        this.queueRetryAfterSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(queueDepthIntervalMs));
+        this.limitRetryAfterSeconds = Math.max(1, limitRetryAfterSeconds);
+        this.concurrencyLimit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit,
+                TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs), backoffRatio);
+        this.storeRateLimiter = storeRateEnabled ? new StoreRateLimiter(storePermitsPerSecond, storeBurst) : null;
+        this.limitRejections = rejectionCounter(meterRegistry, "concurrency-limit");
+        this.queueDepthRejections = rejectionCounter(meterRegistry, "queue-depth");
+        this.storeRateRejections = rejectionCounter(meterRegistry, "store-rate");
+        Gauge.builder("orders.admission.limit", concurrencyLimit, AdaptiveConcurrencyLimit::limit)
+                .description("Current adaptive limit of orders in flight")
+                .register(meterRegistry);
+        Gauge.builder("orders.admission.in.flight", concurrencyLimit, AdaptiveConcurrencyLimit::inFlight)
+                .description("Admitted orders not yet confirmed")
+                .register(meterRegistry);
+        Gauge.builder("orders.admission.queue.depth", this, control -> control.queueDepth)
+                .description("Ready messages in the watched queues at the last poll")
+                .register(meterRegistry);
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("orders.admission.rejected")
+                .description("Orders shed by admission control")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admit one order; {@link Permit#release} must be called once it is confirmed or has failed.
+     *
+     * @param storeId the order's store, or null to skip the per-store check
+     * @throws AdmissionRejectedException if the order is shed
+     */
+    public Permit tryAcquire(String storeId) {
+        if (!enabled) {
+            return UNLIMITED;
+        }
+        checkQueueDepth();
+        if (!concurrencyLimit.tryAcquire()) {
+            limitRejections.increment();
+            throw new AdmissionRejectedException("concurrency-limit", limitRetryAfterSeconds);
+        }
+        if (storeRateLimiter != null && storeId != null) {
+            long waitNanos = storeRateLimiter.tryAcquire(storeId, System.nanoTime());
+            if (waitNanos > 0) {
+                concurrencyLimit.cancel();
+                storeRateRejections.increment();
+                throw new AdmissionRejectedException("store-rate",
+                        Math.max(1, (long) Math.ceil(waitNanos / 1_000_000_000.0)));
+            }
+        }
+        long start = System.nanoTime();
+        return success -> concurrencyLimit.release(System.nanoTime() - start, success);
+    }
+
+    /**
+     * Only the queue depth gate, for requests that bring their own flow control (batch ingestion waits
+     * for room in the publish window between chunks).
+     *
+     * @throws AdmissionRejectedException if the watched queues are too deep
+     */
+    public void checkQueueDepth() {
+        if (enabled && queueDepth >= maxQueueDepth) {
+            queueDepthRejections.increment();
+            throw new AdmissionRejectedException("queue-depth", queueRetryAfterSeconds);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${orders.admission.queue-depth.interval-ms:1000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        if (storeRateLimiter != null) {
+            storeRateLimiter.evictIdle(System.nanoTime());
+        }
+        long depth = 0;
+        try {
+            for (String queue : queues) {
+                QueueInformation info = amqpAdmin.getQueueInfo(queue);
+                if (info != null) {
+                    depth += info.getMessageCount();
+                }
+            }
+        } catch (AmqpException e) {
+            // Keep the last known depth; publishing fails on its own while the broker is unreachable
+            if (depthKnown) {
+                logger.warn("Could not read depth of {}: error={}", queues, e.getMessage());
+            }
+            depthKnown = false;
+            return;
+        }
+        depthKnown = true;
+        if (depth >= maxQueueDepth && queueDepth < maxQueueDepth) {
+            logger.warn("Queue depth {} reached {}, shedding new orders", depth, maxQueueDepth);
+        }
+        queueDepth = depth;
+    }
+
+    /**
+     * An admitted order's slot in the concurrency limit.
+     */
+    @FunctionalInterface
+    public interface Permit {
+
+        /**
+         * @param success whether the order was confirmed; failures count as overload
+         */
+        void release(boolean success);
+    }
+}
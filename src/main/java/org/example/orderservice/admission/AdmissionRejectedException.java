@@ -0,0 +1,28 @@
+package org.example.orderservice.admission;
+
+/**
+ * The order was shed by {@link AdmissionControl}; the client should come back after
+ * {@link #getRetryAfterSeconds()}. Thrown on every rejection under overload, so it carries no stack trace.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final String reason;
+    private final long retryAfterSeconds;
+
+    public AdmissionRejectedException(String reason, long retryAfterSeconds) {
+        super("Order rejected (" + reason + "), retry after " + retryAfterSeconds + "s", null, false, false);
+        this.reason = reason;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * @return {@code concurrency-limit}, {@code queue-depth} or {@code store-rate}
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.orderservice.admission;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-store token buckets, kept as the generic cell rate algorithm: each store holds only its
+ * theoretical arrival time (TAT), the moment its bucket would be full again. A request is allowed if the
+ * TAT is at most {@code burst - 1} intervals ahead of now and then pushes it one interval further, with
+ * a single compare-and-set.
+ */
+class StoreRateLimiter {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final Map<String, AtomicLong> arrivalTimes = new ConcurrentHashMap<>();
+
+    StoreRateLimiter(double permitsPerSecond, int burst) {
+        this.intervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+        this.toleranceNanos = intervalNanos * (Math.max(1, burst) - 1);
+    }
+
+    /**
+     * @return 0 if the store may place an order now, otherwise the nanoseconds until it may
+     */
+    long tryAcquire(String storeId, long nowNanos) {
+        AtomicLong arrivalTime = arrivalTimes.computeIfAbsent(storeId, key -> new AtomicLong(nowNanos));
+        while (true) {
+            long current = arrivalTime.get();
+            long next = Math.max(current, nowNanos);
+            long ahead = next - nowNanos;
+            if (ahead > toleranceNanos) {
+                return ahead - toleranceNanos;
+            }
+            if (arrivalTime.compareAndSet(current, next + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Forget stores whose bucket has refilled completely; they start from a full bucket next time anyway.
+     * A request racing with the removal may get one extra burst, which is harmless.
+     */
+    void evictIdle(long nowNanos) {
+        arrivalTimes.values().removeIf(arrivalTime -> arrivalTime.get() <= nowNanos);
+    }
+
+    int size() {
+        return arrivalTimes.size();
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.orderservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executor that performs the actual AMQP sends, so a slow broker never blocks Tomcat request threads.
+ * <p>
+ * With {@code spring.threads.virtual.enabled=true} every send runs on its own virtual thread instead of
+ * a fixed pool; the in-flight window in {@code OrderService} still bounds how many orders are outstanding.
+ */
+@Configuration
+public class AsyncPublishConfig {
+
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor orderPublishExecutor(@Value("${orders.publish.threads:4}") int threads,
+                                                       @Value("${orders.publish.max-in-flight:1000}") int maxInFlight) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("order-publish-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        // every queued task holds at least one in-flight permit, so the window also bounds the queue
+        executor.setQueueCapacity(maxInFlight);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    @Bean(name = "orderPublishExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor virtualOrderPublishExecutor(
+            @Value("${orders.publish.virtual.concurrency-limit:256}") int concurrencyLimit) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("order-publish-");
+        executor.setVirtualThreads(true);
+        // caps concurrent sends (and so channels checked out) without pooling threads
+        executor.setConcurrencyLimit(concurrencyLimit);
+        executor.setTaskTerminationTimeout(10_000);
+        return executor;
+    }
+}
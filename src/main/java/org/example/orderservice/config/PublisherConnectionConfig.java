@@ -0,0 +1,81 @@
+package org.example.orderservice.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.amqp.rabbit.connection.AbstractConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ChannelListener;
+import org.springframework.amqp.rabbit.connection.ConnectionListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.RabbitTemplateCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Connection layer of the order publisher.
+ * <p>
+ * With {@code orders.publish.dedicated-connection} the template publishes over the connection factory's
+ * separate publisher connection, so broker flow control on publishing never stalls the admin traffic
+ * (declarations, the admission queue-depth polls) on the main connection. Channels on it come from the
+ * cache sized by {@code spring.rabbitmq.cache.channel.size}; with {@code checkout-timeout} set that size
+ * is a hard limit, and a send that cannot check out a channel in time fails instead of opening another.
+ * Confirm channels go back to the cache after each chunk and are reused with their pending confirms.
+ * <p>
+ * Metrics: {@code orders.publish.channels.opened} (churn: it should stay flat once the cache is warm),
+ * {@code orders.publish.channels.idle} and {@code orders.publish.channels.cache.size}.
+ */
+@Configuration
+public class PublisherConnectionConfig {
+
+    @Bean
+    public RabbitTemplateCustomizer publisherConnectionCustomizer(
+            @Value("${orders.publish.dedicated-connection:true}") boolean dedicatedConnection) {
+        return template -> template.setUsePublisherConnection(dedicatedConnection);
+    }
+
+    @Bean
+    public ChannelListener publisherChannelMetrics(CachingConnectionFactory connectionFactory,
+                                                   @Value("${orders.publish.dedicated-connection:true}") boolean dedicatedConnection,
+                                                   MeterRegistry meterRegistry) {
+        Counter opened = Counter.builder("orders.publish.channels.opened")
+                .description("Channels opened on the publishing connection")
+                .register(meterRegistry);
+        ChannelListener listener = (channel, transactional) -> opened.increment();
+        // The factory cannot report its cache before its connection has been opened once
+        AtomicBoolean connected = new AtomicBoolean();
+        ConnectionListener connectionListener = connection -> connected.set(true);
+
+        Supplier<Properties> cacheProperties;
+        if (dedicatedConnection && connectionFactory.getPublisherConnectionFactory() instanceof AbstractConnectionFactory publisher) {
+            publisher.addChannelListener(listener);
+            publisher.addConnectionListener(connectionListener);
+            cacheProperties = () -> connected.get() ? connectionFactory.getPublisherConnectionFactoryCacheProperties() : null;
+        } else {
+            connectionFactory.addChannelListener(listener);
+            connectionFactory.addConnectionListener(connectionListener);
+            cacheProperties = () -> connected.get() ? connectionFactory.getCacheProperties() : null;
+        }
+        Gauge.builder("orders.publish.channels.idle", cacheProperties, PublisherConnectionConfig::idleChannels)
+                .description("Publishing channels cached and ready for checkout")
+                .strongReference(true)
+                .register(meterRegistry);
+        Gauge.builder("orders.publish.channels.cache.size", connectionFactory, CachingConnectionFactory::getChannelCacheSize)
+                .description("Channels the publishing connection keeps cached")
+                .register(meterRegistry);
+        return listener;
+    }
+
+    private static double idleChannels(Supplier<Properties> cacheProperties) {
+        Properties properties = cacheProperties.get();
+        if (properties == null) {
+            return 0;
+        }
+        String value = properties.getProperty("idleChannelsNotTx");
+        return value != null ? Double.parseDouble(value) : 0;
+    }
+}
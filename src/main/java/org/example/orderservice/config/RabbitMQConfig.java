@@ -1,16 +1,76 @@
 package org.example.orderservice.config;
 
+import org.example.common.OrderMessageConverter;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.CustomExchange;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.RabbitTemplateCustomizer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Date;
+
 @Configuration
 public class RabbitMQConfig {
 
     public static final String QUEUE = "orders.queue";
+    public static final String EXCHANGE = "orders.exchange";
+    public static final String ROUTING_KEY = "orders.key";
+    public static final String PARTITIONED_EXCHANGE = "orders.partitioned";
 
     @Bean
     public Queue queue() {
-        return new Queue(QUEUE, false); // durable = false
+        // Durable, and the template publishes persistent messages, so queued orders survive a broker restart
+        return new Queue(QUEUE, true);
+    }
+
+    // The exchange must exist, otherwise the broker closes the channel and every confirm is a nack
+    @Bean
+    public DirectExchange ordersExchange() {
+        return new DirectExchange(EXCHANGE);
+    }
+
+    @Bean
+    public Binding ordersBinding(Queue queue, DirectExchange ordersExchange) {
+        return BindingBuilder.bind(queue).to(ordersExchange).with(ROUTING_KEY);
+    }
+
+    // Consistent-hash exchange keyed by storeId; inventory-service binds one sub-queue per partition
+    @Bean
+    @ConditionalOnProperty(name = "orders.routing.partitioned", havingValue = "true")
+    public CustomExchange partitionedOrdersExchange() {
+        return new CustomExchange(PARTITIONED_EXCHANGE, "x-consistent-hash", true, false);
+    }
+
+    /**
+     * Orders are published in {@code orders.wire.format} (binary {@code OrderMessageCodec} or JSON); the
+     * content-type header tells consumers which one, so both formats can be in the queue during a rollout.
+     */
+    @Bean
+    public MessageConverter messageConverter(@Value("${orders.wire.format:binary}") String wireFormat) {
+        Jackson2JsonMessageConverter json = new Jackson2JsonMessageConverter();
+        OrderMessageConverter binary = new OrderMessageConverter();
+        ContentTypeDelegatingMessageConverter converter =
+                new ContentTypeDelegatingMessageConverter("json".equals(wireFormat) ? json : binary);
+        converter.addDelegate(MessageProperties.CONTENT_TYPE_JSON, json);
+        converter.addDelegate(OrderMessageConverter.CONTENT_TYPE, binary);
+        return converter;
+    }
+
+    // Publish time in the AMQP timestamp property; inventory-service measures end-to-end lag from it
+    @Bean
+    public RabbitTemplateCustomizer publishTimestampCustomizer() {
+        return template -> template.addBeforePublishPostProcessors(message -> {
+            message.getMessageProperties().setTimestamp(new Date());
+            return message;
+        });
     }
 }
@@ -0,0 +1,47 @@
+package org.example.orderservice.config;
+
+import com.rabbitmq.stream.Environment;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.rabbit.stream.config.SuperStream;
+import org.springframework.rabbit.stream.producer.RabbitStreamTemplate;
+
+import java.util.Map;
+
+/**
+ * Stream transport ({@code orders.transport=stream}): orders go to the {@code orders.stream} super stream
+ * instead of the classic queue. The super stream is {@code orders.stream.partitions} streams behind one
+ * exchange; the producer hashes the storeId to pick the partition, so all orders of a store stay in one
+ * partition in publish order. Streams are append-only logs kept for {@code orders.stream.max-age}, which
+ * lets inventory-service replay them from any retained offset.
+ * <p>
+ * Uses the stream protocol ({@code spring.rabbitmq.stream.*}, port 5552) and needs the
+ * {@code rabbitmq_stream} broker plugin.
+ */
+@Configuration
+@ConditionalOnProperty(name = "orders.transport", havingValue = "stream")
+public class StreamConfig {
+
+    public static final String SUPER_STREAM = "orders.stream";
+    // Application property carrying the partition key; the stream producer cannot see the payload
+    public static final String STORE_ID_PROPERTY = "storeId";
+
+    // Declared on both sides with the same arguments, like the classic queue; partition counts must match
+    @Bean
+    public SuperStream orderSuperStream(@Value("${orders.stream.partitions:4}") int partitions,
+                                        @Value("${orders.stream.max-age:7D}") String maxAge) {
+        return new SuperStream(SUPER_STREAM, partitions, Map.of("x-max-age", maxAge));
+    }
+
+    @Bean
+    public RabbitStreamTemplate orderStreamTemplate(Environment environment, MessageConverter messageConverter) {
+        RabbitStreamTemplate template = new RabbitStreamTemplate(environment, SUPER_STREAM);
+        template.setMessageConverter(messageConverter);
+        template.setSuperStreamRouting(message ->
+                String.valueOf(message.getApplicationProperties().get(STORE_ID_PROPERTY)));
+        return template;
+    }
+}
@@ -1,16 +1,41 @@
 package org.example.orderservice.controller;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.orderservice.admission.AdmissionControl;
+import org.example.orderservice.admission.AdmissionRejectedException;
+import org.example.orderservice.model.BatchOrderSummary;
 import org.example.orderservice.model.OrderRequest;
+import org.example.orderservice.service.OrderOutbox;
+import org.example.orderservice.service.OrderPublishException;
 import org.example.orderservice.service.OrderService;
+import org.example.orderservice.transformer.OrderBatchHandler;
 import org.example.orderservice.transformer.OrderTransformerService;
+import org.example.orderservice.transformer.PayloadFormat;
+import org.example.orderservice.transformer.PayloadTooLargeException;
+import org.example.orderservice.validation.FieldError;
+import org.example.orderservice.validation.OrderValidationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequestMapping("/orders")
@@ -18,65 +43,354 @@ public class OrderController {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
 
+    // Structured-syntax types (application/vnd.orders+json, ...) that PayloadFormat reads as JSON or XML
+    private static final String JSON_SUFFIX = "application/*+json";
+    private static final String XML_SUFFIX = "application/*+xml";
+
     private final OrderService orderService;
+    private final OrderOutbox orderOutbox;
+    private final AdmissionControl admissionControl;
     private final OrderTransformerService transformerService;
+    private final int batchChunkSize;
+    private final boolean awaitConfirm;
+    private final double summarySampleRate;
+    private final MeterRegistry meterRegistry;
+    private final Counter parseRejects;
+    private final Counter validationRejects;
+    private final Counter sizeRejects;
+    private final Counter brokerRejects;
 
-    public OrderController(OrderService orderService, OrderTransformerService transformerService) {
+    public OrderController(OrderService orderService, OrderOutbox orderOutbox, AdmissionControl admissionControl,
+                           OrderTransformerService transformerService,
+                           @Value("${orders.batch.chunk-size:500}") int batchChunkSize,
+                           @Value("${orders.publish.await-confirm:true}") boolean awaitConfirm,
+                           @Value("${orders.logging.summary-sample-rate:0.01}") double summarySampleRate,
+                           MeterRegistry meterRegistry) {
         this.orderService = orderService;
+        this.orderOutbox = orderOutbox;
+        this.admissionControl = admissionControl;
         this.transformerService = transformerService;
+        this.batchChunkSize = batchChunkSize;
+        this.awaitConfirm = awaitConfirm;
+        this.summarySampleRate = summarySampleRate;
+        this.meterRegistry = meterRegistry;
+        this.parseRejects = rejectCounter("parse");
+        this.validationRejects = rejectCounter("validation");
+        this.sizeRejects = rejectCounter("too-large");
+        this.brokerRejects = rejectCounter("broker");
         logger.info("OrderController initialized successfully");
     }
 
-    @PostMapping(value = "/orders", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
-    public ResponseEntity<String> placeOrder(
-            @RequestBody String rawPayload,
-            @RequestHeader("Content-Type") String contentType) {
-
-        logger.info("Received order request: contentType={}, payloadLength={}",
-                contentType, rawPayload != null ? rawPayload.length() : 0);
+    /**
+     * Accept a single order. Payloads that break the order's schema ({@code OrderValidator}) get 400 with
+     * one {@code field: message} line per broken rule. Answers 202 once the broker has confirmed the order, or as soon as it has
+     * been handed to the publisher when {@code orders.publish.await-confirm=false}. With the outbox
+     * enabled, 202 means the order has been committed to the outbox. Orders shed by
+     * {@link AdmissionControl} get 429 with a {@code Retry-After} header. Bodies over
+     * {@code orders.payload.<format>.max-size} get 413, without being read further than the limit.
+     * <p>
+     * Each request logs one summary line when it completes (see {@link #logRequest}).
+     */
+    @PostMapping(value = "/orders", consumes = {MediaType.APPLICATION_JSON_VALUE, JSON_SUFFIX,
+            MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE, XML_SUFFIX})
+    public CompletableFuture<ResponseEntity<String>> placeOrder(
+            InputStream body,
+            @RequestHeader("Content-Type") String contentType,
+            @RequestHeader(value = "Content-Length", required = false) Long contentLength) {
 
+        long start = System.nanoTime();
         try {
-            logger.debug("Starting payload transformation for contentType: {}", contentType);
-            OrderRequest orderRequest = transformerService.transform(rawPayload, contentType);
+            // Parsed from the body stream and validated while it is parsed
+            OrderRequest orderRequest = timedTransform(body, MediaType.parseMediaType(contentType),
+                    contentLength != null ? contentLength : -1);
 
-            logger.info("Successfully transformed payload to OrderRequest: orderId={}, orderType={}, storeId={}",
-                    orderRequest.getOrderId(), orderRequest.getOrderType(), orderRequest.getStoreId());
+            String orderId = orderRequest.getOrderId();
+            AdmissionControl.Permit permit = admissionControl.tryAcquire(orderRequest.getStoreId());
+            CompletableFuture<Void> confirmed;
+            try {
+                confirmed = submit(List.of(orderRequest)).get(0);
+            } catch (RuntimeException e) {
+                permit.release(false);
+                throw e;
+            }
+            confirmed.whenComplete((ignored, error) -> permit.release(error == null));
 
-            // Extra validation (optional)
-            if (orderRequest.getOrderId() == null || orderRequest.getOrderType() == null) {
-                logger.warn("Validation failed - missing required fields: orderId={}, orderType={}",
-                        orderRequest.getOrderId(), orderRequest.getOrderType());
-                return ResponseEntity.badRequest().body("Missing required fields: orderId or orderType");
+            if (!awaitConfirm && !confirmed.isCompletedExceptionally()) {
+                confirmed.whenComplete((ignored, error) -> logPublishOutcome(orderId, contentType, start, error));
+                return CompletableFuture.completedFuture(ResponseEntity.accepted().body("Order accepted"));
             }
+            return confirmed.handle((ignored, error) -> {
+                logPublishOutcome(orderId, contentType, start, error);
+                return error == null
+                        ? ResponseEntity.accepted().body("Order accepted")
+                        : ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .body("Order not accepted: " + publishFailure(error));
+            });
 
-            logger.debug("Validation passed, publishing order to service: orderId={}", orderRequest.getOrderId());
-            orderService.publishOrder(orderRequest);
+        } catch (AdmissionRejectedException e) {
+            // Expected under overload, so sampled like accepted orders rather than logged one by one
+            logRequest(null, contentType, "shed-" + e.getReason(), start, null);
+            return CompletableFuture.completedFuture(tooManyRequests(e));
 
-            logger.info("Order successfully accepted and published: orderId={}", orderRequest.getOrderId());
-            return ResponseEntity.ok("Order received");
+        } catch (OrderValidationException e) {
+            validationRejects.increment();
+            logRequest(e.getOrderId(), contentType, "invalid", start, e.getMessage());
+            StringBuilder message = new StringBuilder("Invalid order:");
+            for (FieldError error : e.getErrors()) {
+                message.append('\n').append(error);
+            }
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(message.toString()));
+
+        } catch (PayloadTooLargeException e) {
+            sizeRejects.increment();
+            logRequest(null, contentType, "too-large", start, e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity
+                    .status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body("Order payload exceeds " + e.getMaxSize() + " bytes"));
 
         } catch (IOException e) {
-            // Malformed JSON or XML
-            logger.error("Failed to parse {} payload: error={}, payloadLength={}",
-                    contentType, e.getMessage(), rawPayload != null ? rawPayload.length() : 0);
-            return ResponseEntity
+            // Malformed JSON or XML, or over the depth and string limits
+            parseRejects.increment();
+            logRequest(null, contentType, "unparseable", start, e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity
                     .badRequest()
-                    .body("Invalid " + contentType + " payload: " + e.getMessage());
+                    .body("Invalid " + contentType + " payload: " + e.getMessage()));
 
         } catch (IllegalArgumentException e) {
             // Bad content-type or logic errors
-            logger.error("Bad request received: contentType={}, error={}", contentType, e.getMessage());
-            return ResponseEntity
+            parseRejects.increment();
+            logRequest(null, contentType, "bad-request", start, e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity
                     .badRequest()
-                    .body("Bad request: " + e.getMessage());
+                    .body("Bad request: " + e.getMessage()));
 
         } catch (Exception e) {
             // Catch-all for unexpected failures
             logger.error("Unexpected error processing order request: contentType={}, error={}",
                     contentType, e.getMessage(), e);
-            return ResponseEntity
+            return CompletableFuture.completedFuture(ResponseEntity
                     .internalServerError()
-                    .body("Unexpected server error: " + e.getMessage());
+                    .body("Unexpected server error: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Bulk ingestion for store sync jobs. Accepts a JSON array, an NDJSON stream or an XML
+     * {@code <orders>} document; orders are parsed one at a time from the body stream and published
+     * in chunks of {@code orders.batch.chunk-size}. Reading pauses while the publish window is full
+     * ({@link OrderService#publishBatchAsync}), so the body is consumed at the broker's pace. While the order queue is over its admission depth the
+     * whole batch is refused with 429 before the body is read.
+     */
+    @PostMapping(value = "/orders:batch", consumes = {MediaType.APPLICATION_JSON_VALUE, JSON_SUFFIX,
+            MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE, XML_SUFFIX},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BatchOrderSummary> placeOrders(
+            InputStream body,
+            @RequestHeader("Content-Type") String contentType) {
+
+        BatchOrderSummary summary = new BatchOrderSummary();
+        try {
+            admissionControl.checkQueueDepth();
+        } catch (AdmissionRejectedException e) {
+            summary.setError(e.getMessage());
+            return tooManyRequests(e, summary);
+        }
+        BatchPublisher publisher = new BatchPublisher(summary);
+        try {
+            summary.setReceived(transformerService.transformBatch(body, MediaType.parseMediaType(contentType),
+                    publisher));
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("Failed to read {} batch after {} orders: error={}",
+                    contentType, publisher.seen, e.getMessage());
+            summary.setReceived(publisher.seen);
+            summary.setError("Invalid " + contentType + " batch: " + e.getMessage());
+        }
+        // Whatever was read before a parse error is still published
+        publisher.flush();
+        publisher.awaitConfirms();
+        summary.getResults().sort(Comparator.comparingInt(BatchOrderSummary.OrderOutcome::getIndex));
+
+        logger.info("Batch processed: contentType={}, received={}, accepted={}, rejected={}",
+                contentType, summary.getReceived(), summary.getAccepted(), summary.getRejected());
+        return summary.getError() == null
+                ? ResponseEntity.ok(summary)
+                : ResponseEntity.badRequest().body(summary);
+    }
+
+    private static ResponseEntity<String> tooManyRequests(AdmissionRejectedException e) {
+        return tooManyRequests(e, "Too many orders (" + e.getReason() + "), retry later");
+    }
+
+    private static <T> ResponseEntity<T> tooManyRequests(AdmissionRejectedException e, T body) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+                .body(body);
+    }
+
+    /**
+     * Hand orders to the outbox (one transaction) or straight to the publisher.
+     */
+    private List<CompletableFuture<Void>> submit(List<OrderRequest> orders) {
+        return orderOutbox.isEnabled() ? orderOutbox.enqueue(orders) : orderService.publishOrdersAsync(orders);
+    }
+
+    private List<CompletableFuture<Void>> submitBatch(List<OrderRequest> orders) {
+        return orderOutbox.isEnabled() ? orderOutbox.enqueue(orders) : orderService.publishBatchAsync(orders);
+    }
+
+    /**
+     * Transform timed per format ({@code orders.transform}); failed parses are timed too, tagged {@code outcome=error}.
+     */
+    private OrderRequest timedTransform(InputStream body, MediaType contentType, long contentLength)
+            throws IOException {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            OrderRequest orderRequest = transformerService.transform(body, contentType, contentLength);
+            success = true;
+            return orderRequest;
+        } finally {
+            Timer.builder("orders.transform")
+                    .description("Payload to OrderRequest transform time")
+                    .tag("format", format(PayloadFormat.of(contentType)))
+                    .tag("outcome", success ? "success" : "error")
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Bounded tag values, whatever charset or parameters the client sends
+    private static String format(String contentType) {
+        if (contentType == null) {
+            return "none";
         }
+        try {
+            return format(PayloadFormat.of(MediaType.parseMediaType(contentType)));
+        } catch (InvalidMediaTypeException e) {
+            return "other";
+        }
+    }
+
+    private static String format(PayloadFormat format) {
+        return format != null ? format.tag() : "other";
+    }
+
+    private Counter rejectCounter(String reason) {
+        return Counter.builder("orders.rejected")
+                .description("Orders answered with an error status")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private void logPublishOutcome(String orderId, String contentType, long start, Throwable error) {
+        if (error == null) {
+            logRequest(orderId, contentType, "accepted", start, null);
+        } else {
+            brokerRejects.increment();
+            logRequest(orderId, contentType, "broker-rejected", start, publishFailure(error));
+        }
+    }
+
+    /**
+     * The one log line per single-order request. Accepted orders are sampled at
+     * {@code orders.logging.summary-sample-rate} at INFO; every rejected order is logged at WARN.
+     * The sampling decision is made before any argument is formatted, so skipped requests cost a
+     * random draw and nothing else.
+     */
+    private void logRequest(String orderId, String contentType, String outcome, long start, String error) {
+        if (error == null) {
+            if (summarySampleRate <= 0 || !logger.isInfoEnabled()
+                    || (summarySampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= summarySampleRate)) {
+                return;
+            }
+            logger.info("Order request: orderId={}, format={}, outcome={}, tookMicros={}",
+                    orderId, format(contentType), outcome, (System.nanoTime() - start) / 1_000);
+        } else {
+            logger.warn("Order request: orderId={}, format={}, outcome={}, tookMicros={}, error={}",
+                    orderId, format(contentType), outcome, (System.nanoTime() - start) / 1_000, error);
+        }
+    }
+
+    private String publishFailure(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof TimeoutException) {
+            return "confirm timed out";
+        }
+        return cause instanceof OrderPublishException ? cause.getMessage() : cause.toString();
+    }
+
+    /**
+     * Publishes the orders the transformer has validated in fixed-size chunks.
+     * Chunks are pipelined: confirms are only collected once the whole body has been read, and a chunk
+     * waits for earlier ones' confirms only when the publish window is full.
+     */
+    private class BatchPublisher implements OrderBatchHandler {
+
+        private final BatchOrderSummary summary;
+        private final List<OrderRequest> chunk = new ArrayList<>(batchChunkSize);
+        private final List<Integer> chunkIndexes = new ArrayList<>(batchChunkSize);
+        private final List<PendingOrder> pending = new ArrayList<>();
+        private int seen;
+
+        BatchPublisher(BatchOrderSummary summary) {
+            this.summary = summary;
+        }
+
+        @Override
+        public void onOrder(int index, OrderRequest order) {
+            seen++;
+            chunk.add(order);
+            chunkIndexes.add(index);
+            if (chunk.size() >= batchChunkSize) {
+                flush();
+            }
+        }
+
+        @Override
+        public void onInvalid(int index, String orderId, List<FieldError> errors) {
+            seen++;
+            validationRejects.increment();
+            summary.reject(index, orderId, errors);
+        }
+
+        @Override
+        public void onRejected(int index, String reason) {
+            seen++;
+            parseRejects.increment();
+            summary.reject(index, null, reason);
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            List<CompletableFuture<Void>> confirms = submitBatch(chunk);
+            for (int i = 0; i < chunk.size(); i++) {
+                pending.add(new PendingOrder(chunkIndexes.get(i), chunk.get(i).getOrderId(), confirms.get(i)));
+            }
+            chunk.clear();
+            chunkIndexes.clear();
+        }
+
+        void awaitConfirms() {
+            for (PendingOrder order : pending) {
+                CompletableFuture<Void> confirm = order.confirm();
+                if (!awaitConfirm && !confirm.isCompletedExceptionally()) {
+                    summary.accept(order.index(), order.orderId());
+                    continue;
+                }
+                try {
+                    confirm.join();
+                    summary.accept(order.index(), order.orderId());
+                } catch (CompletionException e) {
+                    brokerRejects.increment();
+                    summary.reject(order.index(), order.orderId(), "Publish failed: " + publishFailure(e));
+                }
+            }
+            pending.clear();
+        }
+    }
+
+    private record PendingOrder(int index, String orderId, CompletableFuture<Void> confirm) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package org.example.orderservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.example.orderservice.validation.FieldError;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response of the batch ingestion endpoint: totals plus one outcome per order element.
+ */
+@Data
+public class BatchOrderSummary {
+
+    private int received;
+    private int accepted;
+    private int rejected;
+    private String error; // set when the body could not be read to the end
+    private List<OrderOutcome> results = new ArrayList<>();
+
+    public void accept(int index, String orderId) {
+        accepted++;
+        results.add(new OrderOutcome(index, orderId, true, null, null));
+    }
+
+    public void reject(int index, String orderId, String reason) {
+        rejected++;
+        results.add(new OrderOutcome(index, orderId, false, reason, null));
+    }
+
+    public void reject(int index, String orderId, List<FieldError> errors) {
+        rejected++;
+        results.add(new OrderOutcome(index, orderId, false, "Invalid order", errors));
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class OrderOutcome {
+        private int index;
+        private String orderId;
+        private boolean accepted;
+        private String reason;
+        private List<FieldError> errors; // set for orders that failed validation
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.orderservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * An accepted order waiting in {@code order_outbox} to be published. The payload is the order encoded
+ * with {@code OrderMessageCodec}; a relay that claims the row holds it until {@code leaseUntil}. A row that
+ * cannot be decoded or has failed {@code orders.outbox.max-attempts} publishes is parked ({@code parkedAt}
+ * set) and no longer claimed.
+ */
+@Entity
+@Table(name = "order_outbox")
+public class OutboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String orderId;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] payload;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime leaseUntil;
+    private LocalDateTime parkedAt;
+    private int attempts;
+
+    public OutboxEntry() {
+    }
+
+    public OutboxEntry(Long id, String orderId, byte[] payload, LocalDateTime createdAt, int attempts) {
+        this.id = id;
+        this.orderId = orderId;
+        this.payload = payload;
+        this.createdAt = createdAt;
+        this.attempts = attempts;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public LocalDateTime getParkedAt() {
+        return parkedAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+}
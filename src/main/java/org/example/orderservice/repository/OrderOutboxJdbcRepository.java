@@ -0,0 +1,126 @@
+package org.example.orderservice.repository;
+
+import org.example.common.OrderMessage;
+import org.example.common.OrderMessageCodec;
+import org.example.orderservice.model.OutboxEntry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Plain JDBC access to {@code order_outbox}. Relays claim rows with {@code FOR UPDATE SKIP LOCKED}
+ * plus a lease: concurrent claims (other threads or other instances) skip each other's locked rows
+ * instead of waiting on them, and a claimed row stays invisible until its lease runs out, so a relay
+ * that dies mid-batch only delays its rows. Parked rows are never claimed; they stay in the table until
+ * someone deletes them or clears {@code parked_at} to requeue them.
+ */
+@Repository
+public class OrderOutboxJdbcRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO order_outbox (order_id, payload, created_at, attempts) VALUES (?, ?, ?, 0)";
+    private static final String CLAIMABLE_SQL =
+            "SELECT id, order_id, payload, created_at, attempts FROM order_outbox "
+                    + "WHERE parked_at IS NULL AND (lease_until IS NULL OR lease_until < ?) "
+                    + "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderOutboxJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert all orders as one JDBC batch in a single transaction; either every row is written or none.
+     */
+    @Transactional
+    public void insertAll(List<OrderMessage> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, orders, orders.size(), (ps, order) -> {
+            ps.setString(1, order.getOrderId());
+            ps.setBytes(2, OrderMessageCodec.encode(order));
+            ps.setTimestamp(3, now);
+        });
+    }
+
+    /**
+     * Lease up to {@code limit} of the oldest unclaimed (or expired) rows.
+     */
+    @Transactional
+    public List<OutboxEntry> claim(int limit, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEntry> claimed = jdbcTemplate.query(CLAIMABLE_SQL, (rs, rowNum) -> new OutboxEntry(
+                rs.getLong("id"), rs.getString("order_id"), rs.getBytes("payload"),
+                rs.getTimestamp("created_at").toLocalDateTime(), rs.getInt("attempts")),
+                Timestamp.valueOf(now), limit);
+        if (!claimed.isEmpty()) {
+            Timestamp leaseUntil = Timestamp.valueOf(now.plus(lease));
+            jdbcTemplate.batchUpdate("UPDATE order_outbox SET lease_until = ? WHERE id = ?", claimed, claimed.size(),
+                    (ps, entry) -> {
+                        ps.setTimestamp(1, leaseUntil);
+                        ps.setLong(2, entry.getId());
+                    });
+        }
+        return claimed;
+    }
+
+    /**
+     * Remove published rows.
+     */
+    @Transactional
+    public void deleteAll(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("DELETE FROM order_outbox WHERE id = ?", ids, ids.size(),
+                (ps, id) -> ps.setLong(1, id));
+    }
+
+    /**
+     * Give rows back for the next claim after a failed publish, counting the attempt.
+     */
+    @Transactional
+    public void release(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("UPDATE order_outbox SET lease_until = NULL, attempts = attempts + 1 WHERE id = ?",
+                ids, ids.size(), (ps, id) -> ps.setLong(1, id));
+    }
+
+    /**
+     * Take rows out of the relay for good, counting the attempt: they cannot be decoded or have used up
+     * their attempts.
+     */
+    @Transactional
+    public void park(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(
+                "UPDATE order_outbox SET lease_until = NULL, parked_at = ?, attempts = attempts + 1 WHERE id = ?",
+                ids, ids.size(), (ps, id) -> {
+                    ps.setTimestamp(1, now);
+                    ps.setLong(2, id);
+                });
+    }
+
+    /**
+     * @return when the oldest order still waiting to be published (not parked) was accepted
+     */
+    public Optional<LocalDateTime> oldestCreatedAt() {
+        return jdbcTemplate.query("SELECT created_at FROM order_outbox WHERE parked_at IS NULL ORDER BY id LIMIT 1",
+                        (rs, rowNum) -> rs.getTimestamp(1).toLocalDateTime())
+                .stream().findFirst();
+    }
+}
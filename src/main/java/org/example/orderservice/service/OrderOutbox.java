@@ -0,0 +1,284 @@
+package org.example.orderservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.common.OrderMessage;
+import org.example.common.OrderMessageCodec;
+import org.example.orderservice.model.OrderRequest;
+import org.example.orderservice.model.OutboxEntry;
+import org.example.orderservice.repository.OrderOutboxJdbcRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transactional outbox between the HTTP endpoints and the broker ({@code orders.outbox.enabled=true}).
+ * <p>
+ * Accepted orders are inserted into {@code order_outbox} in the request's transaction, and the request
+ * is answered as soon as that commits; a slow or unavailable broker no longer shows up in HTTP latency
+ * or fails requests, and bursts queue up in the table. {@code orders.outbox.relay.threads} relay threads
+ * claim the oldest rows in batches of {@code orders.outbox.relay.batch-size}, publish them through
+ * {@link OrderService} with publisher confirms, delete the confirmed rows and release the rest for the
+ * next claim. Claims skip rows locked or leased by other relays, so relays run in parallel, also across
+ * instances. While publishes fail, a relay backs off exponentially up to
+ * {@code orders.outbox.relay.max-backoff-ms}.
+ * <p>
+ * Rows that will never publish are parked instead of blocking the head of the outbox: a payload the codec
+ * cannot decode (e.g. written by a newer version during a rolling deploy) right away, and a row whose publish
+ * has failed {@code orders.outbox.max-attempts} times (nacked or unroutable). Parked rows stay in the table for
+ * an operator, logged at ERROR and counted in {@code orders.outbox.parked}.
+ * <p>
+ * Delivery is at least once: a relay that dies between the confirm and the delete leaves rows that are
+ * published again once their lease runs out, and inventory-service drops the duplicates.
+ * <p>
+ * Metrics: {@code orders.outbox.relayed} and {@code orders.outbox.failed} (throughput),
+ * {@code orders.outbox.lag} (acceptance to broker confirm) and {@code orders.outbox.oldest.age}.
+ */
+@Service
+public class OrderOutbox implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderOutbox.class);
+
+    private final OrderOutboxJdbcRepository outboxRepository;
+    private final OrderService orderService;
+    private final boolean enabled;
+    private final int relayThreads;
+    private final int batchSize;
+    private final long pollIntervalMs;
+    private final long maxBackoffMs;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final Counter relayed;
+    private final Counter failed;
+    private final Counter parked;
+    private final Timer lag;
+
+    private volatile boolean running;
+    private final List<Thread> relays = new ArrayList<>();
+
+    public OrderOutbox(OrderOutboxJdbcRepository outboxRepository, OrderService orderService,
+                       @Value("${orders.outbox.enabled:false}") boolean enabled,
+                       @Value("${orders.outbox.relay.threads:2}") int relayThreads,
+                       @Value("${orders.outbox.relay.batch-size:200}") int batchSize,
+                       @Value("${orders.outbox.relay.poll-interval-ms:50}") long pollIntervalMs,
+                       @Value("${orders.outbox.relay.lease-ms:30000}") long leaseMs,
+                       @Value("${orders.outbox.relay.max-backoff-ms:5000}") long maxBackoffMs,
+                       @Value("${orders.outbox.max-attempts:10}") int maxAttempts,
+                       MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.orderService = orderService;
+        this.enabled = enabled;
+        this.relayThreads = relayThreads;
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+        this.maxBackoffMs = Math.max(pollIntervalMs, maxBackoffMs);
+        this.lease = Duration.ofMillis(leaseMs);
+        this.maxAttempts = maxAttempts;
+        this.relayed = Counter.builder("orders.outbox.relayed")
+                .description("Orders published from the outbox and confirmed by the broker")
+                .register(meterRegistry);
+        this.failed = Counter.builder("orders.outbox.failed")
+                .description("Outbox publishes that failed and were released for another attempt")
+                .register(meterRegistry);
+        this.parked = Counter.builder("orders.outbox.parked")
+                .description("Outbox orders taken out of the relay: undecodable or out of attempts")
+                .register(meterRegistry);
+        this.lag = Timer.builder("orders.outbox.lag")
+                .description("Time from accepting an order to its broker confirm")
+                .register(meterRegistry);
+        if (enabled) {
+            // Queried on scrape; the oldest row is found through the primary key
+            Gauge.builder("orders.outbox.oldest.age", outboxRepository, repository -> repository.oldestCreatedAt()
+                            .map(createdAt -> Duration.between(createdAt, LocalDateTime.now()).toMillis() / 1000.0)
+                            .orElse(0.0))
+                    .description("Age of the oldest order not yet published")
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Whether accepted orders go through the outbox instead of straight to the broker.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Write the orders to the outbox in one transaction.
+     *
+     * @return one future per order, already complete: successful once the orders are committed,
+     * failed with {@link OrderPublishException} if the insert failed (then none of them was written)
+     */
+    public List<CompletableFuture<Void>> enqueue(List<OrderRequest> requests) {
+        List<OrderMessage> orders = new ArrayList<>(requests.size());
+        for (OrderRequest request : requests) {
+            orders.add(OrderService.toMessage(request));
+        }
+        CompletableFuture<Void> result;
+        try {
+            outboxRepository.insertAll(orders);
+            result = CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            logger.error("Could not write {} orders to the outbox: error={}", orders.size(), e.getMessage());
+            result = CompletableFuture.failedFuture(
+                    new OrderPublishException("Could not write orders to the outbox: " + e.getMessage(), e));
+        }
+        return Collections.nCopies(requests.size(), result);
+    }
+
+    /**
+     * Claim, publish and settle one batch.
+     */
+    RelayResult relayBatch() {
+        List<OutboxEntry> claimed = outboxRepository.claim(batchSize, lease);
+        if (claimed.isEmpty()) {
+            return new RelayResult(0, 0);
+        }
+        List<OutboxEntry> decoded = new ArrayList<>(claimed.size());
+        List<OrderMessage> orders = new ArrayList<>(claimed.size());
+        List<Long> park = new ArrayList<>();
+        for (OutboxEntry entry : claimed) {
+            try {
+                orders.add(OrderMessageCodec.decode(entry.getPayload()));
+                decoded.add(entry);
+            } catch (IllegalArgumentException e) {
+                // Would fail the same way on every claim and hold up the rows behind it
+                logger.error("Outbox order cannot be decoded, parking it: id={}, orderId={}, error={}",
+                        entry.getId(), entry.getOrderId(), e.getMessage());
+                park.add(entry.getId());
+            }
+        }
+        List<CompletableFuture<Void>> confirms = orders.isEmpty()
+                ? List.of()
+                : orderService.publishMessagesAsync(orders);
+
+        List<Long> published = new ArrayList<>(decoded.size());
+        List<Long> retry = new ArrayList<>();
+        int failures = 0;
+        Throwable lastError = null;
+        for (int i = 0; i < decoded.size(); i++) {
+            OutboxEntry entry = decoded.get(i);
+            try {
+                // Bounded by the publish confirm timeout
+                confirms.get(i).join();
+                published.add(entry.getId());
+                lag.record(Duration.between(entry.getCreatedAt(), LocalDateTime.now()));
+            } catch (CompletionException e) {
+                failures++;
+                lastError = e.getCause() != null ? e.getCause() : e;
+                if (maxAttempts > 0 && entry.getAttempts() + 1 >= maxAttempts) {
+                    logger.error("Outbox order failed {} publishes, parking it: id={}, orderId={}, error={}",
+                            entry.getAttempts() + 1, entry.getId(), entry.getOrderId(), lastError.getMessage());
+                    park.add(entry.getId());
+                } else {
+                    retry.add(entry.getId());
+                }
+            }
+        }
+        outboxRepository.deleteAll(published);
+        outboxRepository.release(retry);
+        outboxRepository.park(park);
+        relayed.increment(published.size());
+        parked.increment(park.size());
+        if (failures > 0) {
+            failed.increment(retry.size());
+            logger.warn("Outbox relay: published={}, released for retry={}, error={}",
+                    published.size(), retry.size(), lastError.getMessage());
+        }
+        return new RelayResult(claimed.size(), failures);
+    }
+
+    private void runRelay() {
+        long backoffMs = pollIntervalMs;
+        while (running) {
+            RelayResult result;
+            try {
+                result = relayBatch();
+            } catch (RuntimeException e) {
+                // Claimed rows become visible again when their lease runs out
+                logger.warn("Outbox relay batch failed: error={}", e.getMessage(), e);
+                result = new RelayResult(0, 1);
+            }
+            long sleepMs = 0;
+            if (result.failed() > 0) {
+                sleepMs = backoffMs;
+                backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+            } else {
+                backoffMs = pollIntervalMs;
+                // A full batch means more is waiting
+                if (result.claimed() < batchSize) {
+                    sleepMs = pollIntervalMs;
+                }
+            }
+            if (sleepMs > 0) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(sleepMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < relayThreads; i++) {
+            Thread relay = new Thread(this::runRelay, "order-outbox-relay-" + i);
+            relays.add(relay);
+            relay.start();
+        }
+        logger.info("Outbox enabled: relayThreads={}, batchSize={}, pollIntervalMs={}",
+                relayThreads, batchSize, pollIntervalMs);
+    }
+
+    /**
+     * Relays finish the batch they are on; whatever is left in the table is picked up after a restart.
+     */
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (Thread relay : relays) {
+            try {
+                relay.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        relays.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    record RelayResult(int claimed, int failed) {
+    }
+}
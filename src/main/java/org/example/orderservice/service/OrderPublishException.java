@@ -0,0 +1,15 @@
+package org.example.orderservice.service;
+
+/**
+ * An order could not be handed to the broker, or the broker did not confirm it.
+ */
+public class OrderPublishException extends RuntimeException {
+
+    public OrderPublishException(String message) {
+        super(message);
+    }
+
+    public OrderPublishException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -2,27 +2,347 @@ package org.example.orderservice.service;
 
 
 
-import lombok.RequiredArgsConstructor;
+import org.example.common.OrderMessage;
+import org.example.orderservice.config.RabbitMQConfig;
+import org.example.orderservice.config.StreamConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.example.orderservice.model.OrderRequest;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.rabbit.stream.producer.RabbitStreamTemplate;
+import org.springframework.rabbit.stream.support.StreamMessageProperties;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
+
+/**
+ * Publishes orders asynchronously with correlated publisher confirms.
+ * <p>
+ * Sends run on the publish executor; each order gets a future that completes when the broker acks it
+ * and fails on nack, return (unroutable), confirm timeout or a full in-flight window. The window caps
+ * how many orders may be sent but not yet confirmed. Single orders and outbox batches wait
+ * {@code orders.publish.acquire-timeout-ms} per order for a slot; batch ingestion chunks
+ * ({@link #publishBatchAsync}) wait for confirms to free the window instead, so a slow broker slows
+ * the batch down rather than failing its orders.
+ * <p>
+ * With the stream transport ({@code orders.transport=stream}) orders go to the super stream through
+ * {@link RabbitStreamTemplate} instead; its confirms are fed into the same futures, so the window,
+ * timeouts and metrics behave the same.
+ * <p>
+ * Metrics: {@code orders.publish.send} (handing a chunk to the broker), {@code orders.publish.confirm}
+ * (send to broker confirm, tagged with the outcome), confirm timeouts, window rejections, chunks that
+ * found no free channel within the checkout timeout and the number of orders in flight.
+ */
 @Service
-@RequiredArgsConstructor
 public class OrderService {
 
     private final RabbitTemplate rabbitTemplate;
-    private final String exchange = "orders.exchange";
-    private final String routingKey = "orders.key";
-
-    public void publishOrder(OrderRequest request) {
-        OrderRequest order = OrderRequest.builder()
-                .orderId(request.getOrderId())
-                .orderType(request.getOrderType())
-                .storeId(request.getStoreId())
-                .details(request.getDetails())
-                .build();
-        rabbitTemplate.convertAndSend(exchange, routingKey, order);
+    private final RabbitStreamTemplate streamTemplate;
+    private final TaskExecutor publishExecutor;
+    private final Semaphore inFlight;
+    private final long acquireTimeoutMs;
+    private final long confirmTimeoutMs;
+    private final long batchAcquireTimeoutMs;
+    private final boolean partitioned;
+    private final String exchange;
+    private final Timer sendTimer;
+    private final Timer ackTimer;
+    private final Timer nackTimer;
+    private final Timer returnedTimer;
+    private final Timer confirmErrorTimer;
+    private final Counter confirmTimeouts;
+    private final Counter windowRejections;
+    private final Counter checkoutTimeouts;
+
+    public OrderService(RabbitTemplate rabbitTemplate,
+                        ObjectProvider<RabbitStreamTemplate> streamTemplate,
+                        @Qualifier("orderPublishExecutor") TaskExecutor publishExecutor,
+                        @Value("${orders.publish.max-in-flight:1000}") int maxInFlight,
+                        @Value("${orders.publish.acquire-timeout-ms:100}") long acquireTimeoutMs,
+                        @Value("${orders.publish.confirm-timeout-ms:5000}") long confirmTimeoutMs,
+                        @Value("${orders.batch.acquire-timeout-ms:${orders.publish.confirm-timeout-ms:5000}}") long batchAcquireTimeoutMs,
+                        @Value("${orders.routing.partitioned:false}") boolean partitioned,
+                        MeterRegistry meterRegistry) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.streamTemplate = streamTemplate.getIfAvailable();
+        this.publishExecutor = publishExecutor;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+        this.batchAcquireTimeoutMs = batchAcquireTimeoutMs;
+        this.partitioned = partitioned;
+        this.exchange = partitioned ? RabbitMQConfig.PARTITIONED_EXCHANGE : RabbitMQConfig.EXCHANGE;
+
+        this.sendTimer = Timer.builder("orders.publish.send")
+                .description("Time to hand a chunk of orders to the broker")
+                .register(meterRegistry);
+        this.ackTimer = confirmTimer(meterRegistry, "ack");
+        this.nackTimer = confirmTimer(meterRegistry, "nack");
+        this.returnedTimer = confirmTimer(meterRegistry, "returned");
+        this.confirmErrorTimer = confirmTimer(meterRegistry, "error");
+        this.confirmTimeouts = Counter.builder("orders.publish.confirm.timeouts")
+                .description("Orders whose broker confirm did not arrive in time")
+                .register(meterRegistry);
+        this.windowRejections = Counter.builder("orders.publish.window.rejected")
+                .description("Orders not sent because the in-flight window was full")
+                .register(meterRegistry);
+        this.checkoutTimeouts = Counter.builder("orders.publish.channels.checkout.timeouts")
+                .description("Chunks not sent because no publishing channel was free within the checkout timeout")
+                .register(meterRegistry);
+        Gauge.builder("orders.publish.in.flight", inFlight, permits -> maxInFlight - permits.availablePermits())
+                .description("Orders sent but not yet confirmed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Publish one order.
+     *
+     * @return future completed once the broker has confirmed the order
+     */
+    public CompletableFuture<Void> publishOrderAsync(OrderRequest request) {
+        return publishOrdersAsync(List.of(request)).get(0);
+    }
+
+    /**
+     * Publish a chunk of orders over a single channel instead of checking one out per order.
+     *
+     * @return one confirm future per order, in the same order as {@code requests}
+     */
+    public List<CompletableFuture<Void>> publishOrdersAsync(List<OrderRequest> requests) {
+        return publish(toMessages(requests), false);
+    }
+
+    /**
+     * Publish a chunk of a batch request. When the in-flight window fills up, the orders that already
+     * hold a slot are sent and the caller blocks until confirms (or confirm timeouts) free it, for at most
+     * {@code orders.batch.acquire-timeout-ms} for the whole chunk; only orders still without a slot then
+     * are rejected. A chunk larger than the window is therefore sent in several parts.
+     *
+     * @return one confirm future per order, in the same order as {@code requests}
+     */
+    public List<CompletableFuture<Void>> publishBatchAsync(List<OrderRequest> requests) {
+        return publish(toMessages(requests), true);
+    }
+
+    /**
+     * Publish orders that are already in their wire schema, e.g. read back from the outbox.
+     *
+     * @return one confirm future per order, in the same order as {@code orders}
+     */
+    public List<CompletableFuture<Void>> publishMessagesAsync(List<OrderMessage> orders) {
+        return publish(orders, false);
+    }
+
+    /**
+     * @param waitForWindow share one {@code orders.batch.acquire-timeout-ms} deadline across the chunk
+     *                      instead of giving each order {@code orders.publish.acquire-timeout-ms}
+     */
+    private List<CompletableFuture<Void>> publish(List<OrderMessage> orders, boolean waitForWindow) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchAcquireTimeoutMs);
+        List<CompletableFuture<Void>> results = new ArrayList<>(orders.size());
+        List<OrderMessage> toSend = new ArrayList<>(orders.size());
+        List<CorrelationData> correlations = new ArrayList<>(orders.size());
+        List<CompletableFuture<Void>> toSendResults = new ArrayList<>(orders.size());
+
+        for (OrderMessage order : orders) {
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            results.add(result);
+            boolean acquired;
+            if (waitForWindow) {
+                acquired = inFlight.tryAcquire();
+                if (!acquired && !toSend.isEmpty()) {
+                    // Send the orders that already hold a slot, so their confirms can free the window for the rest
+                    dispatch(toSend, correlations, toSendResults);
+                    toSend = new ArrayList<>(orders.size());
+                    correlations = new ArrayList<>(orders.size());
+                    toSendResults = new ArrayList<>(orders.size());
+                }
+                acquired = acquired || acquirePermit(Math.max(0, deadline - System.nanoTime()));
+            } else {
+                acquired = acquirePermit(TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMs));
+            }
+            if (!acquired) {
+                windowRejections.increment();
+                result.completeExceptionally(new OrderPublishException(
+                        "Publish window full, order not sent: " + order.getOrderId()));
+                continue;
+            }
+            // Completes exactly once (confirm, failure or timeout), so the permit is released exactly once
+            result.whenComplete((ignored, error) -> {
+                inFlight.release();
+                if (error instanceof TimeoutException) {
+                    confirmTimeouts.increment();
+                }
+            });
+            result.orTimeout(confirmTimeoutMs, TimeUnit.MILLISECONDS);
+
+            long start = System.nanoTime();
+            CorrelationData correlation = new CorrelationData();
+            correlation.getFuture().whenComplete((confirm, error) -> {
+                long elapsed = System.nanoTime() - start;
+                ReturnedMessage returned = correlation.getReturned();
+                if (error != null) {
+                    confirmErrorTimer.record(elapsed, TimeUnit.NANOSECONDS);
+                    result.completeExceptionally(error);
+                } else if (!confirm.isAck()) {
+                    nackTimer.record(elapsed, TimeUnit.NANOSECONDS);
+                    result.completeExceptionally(new OrderPublishException(
+                            "Broker nacked order " + order.getOrderId() + ": " + confirm.getReason()));
+                } else if (returned != null) {
+                    returnedTimer.record(elapsed, TimeUnit.NANOSECONDS);
+                    result.completeExceptionally(new OrderPublishException(
+                            "Order " + order.getOrderId() + " was unroutable: " + returned.getReplyText()));
+                } else {
+                    ackTimer.record(elapsed, TimeUnit.NANOSECONDS);
+                    result.complete(null);
+                }
+            });
+            toSend.add(order);
+            correlations.add(correlation);
+            toSendResults.add(result);
+        }
+
+        dispatch(toSend, correlations, toSendResults);
+        return results;
+    }
+
+    private void dispatch(List<OrderMessage> toSend, List<CorrelationData> correlations,
+                          List<CompletableFuture<Void>> results) {
+        if (toSend.isEmpty()) {
+            return;
+        }
+        try {
+            publishExecutor.execute(() -> send(toSend, correlations, results));
+        } catch (RuntimeException e) {
+            fail(results, new OrderPublishException("Publish executor rejected " + toSend.size() + " orders", e));
+        }
+    }
+
+    /**
+     * @param results the orders' confirm futures, in the same order as {@code orders}
+     */
+    private void send(List<OrderMessage> orders, List<CorrelationData> correlations,
+                      List<CompletableFuture<Void>> results) {
+        long start = System.nanoTime();
+        AtomicInteger sent = new AtomicInteger();
+        try {
+            if (streamTemplate != null) {
+                sendToStream(orders, correlations, sent);
+                return;
+            }
+            rabbitTemplate.invoke(operations -> {
+                for (int i = 0; i < orders.size(); i++) {
+                    OrderMessage order = orders.get(i);
+                    operations.convertAndSend(exchange, routingKeyFor(order), order, correlations.get(i));
+                    sent.incrementAndGet();
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            if (e instanceof AmqpTimeoutException) {
+                checkoutTimeouts.increment();
+            }
+            // Orders already written may still be confirmed; they finish through their confirm (a closed
+            // channel nacks them) or the confirm timeout. Only the ones never sent fail here
+            int unsent = orders.size() - sent.get();
+            fail(results.subList(sent.get(), orders.size()), new OrderPublishException(
+                    "Failed to publish " + unsent + " of " + orders.size() + " orders: " + e.getMessage(), e));
+        } finally {
+            sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Stream sends are asynchronous already; each one's confirm completes the order's correlation future
+     * just like an AMQP publisher confirm would.
+     */
+    private void sendToStream(List<OrderMessage> orders, List<CorrelationData> correlations, AtomicInteger sent) {
+        for (int i = 0; i < orders.size(); i++) {
+            OrderMessage order = orders.get(i);
+            CorrelationData correlation = correlations.get(i);
+            streamTemplate.convertAndSend(order, message -> {
+                MessageProperties properties = message.getMessageProperties();
+                properties.setHeader(StreamConfig.STORE_ID_PROPERTY, partitionKey(order));
+                // Stream counterpart of the AMQP timestamp; inventory-service measures lag from it
+                if (properties instanceof StreamMessageProperties streamProperties) {
+                    streamProperties.setCreationTime(System.currentTimeMillis());
+                }
+                return message;
+            }).whenComplete((confirmed, error) -> {
+                if (error != null) {
+                    correlation.getFuture().completeExceptionally(error);
+                } else {
+                    correlation.getFuture().complete(new CorrelationData.Confirm(confirmed,
+                            confirmed ? null : "not confirmed by the stream"));
+                }
+            });
+            sent.incrementAndGet();
+        }
+    }
+
+    private static Timer confirmTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("orders.publish.confirm")
+                .description("Time from send to the broker's publisher confirm")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * In partitioned mode the storeId is hashed by the exchange, so all orders of a store land on the
+     * same sub-queue and keep their publish order.
+     */
+    private String routingKeyFor(OrderMessage order) {
+        return partitioned ? partitionKey(order) : RabbitMQConfig.ROUTING_KEY;
+    }
+
+    private static String partitionKey(OrderMessage order) {
+        String storeId = order.getStoreId();
+        return storeId != null && !storeId.isEmpty() ? storeId : order.getOrderId();
+    }
+
+    private boolean acquirePermit(long waitNanos) {
+        try {
+            return inFlight.tryAcquire(waitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void fail(List<CompletableFuture<Void>> results, OrderPublishException error) {
+        for (CompletableFuture<Void> result : results) {
+            result.completeExceptionally(error);
+        }
+    }
+
+    private static List<OrderMessage> toMessages(List<OrderRequest> requests) {
+        List<OrderMessage> orders = new ArrayList<>(requests.size());
+        for (OrderRequest request : requests) {
+            orders.add(toMessage(request));
+        }
+        return orders;
+    }
+
+    // Shared schema from the common module; the wire format is picked by the message converter
+    static OrderMessage toMessage(OrderRequest request) {
+        return new OrderMessage(request.getOrderId(), request.getOrderType(), request.getStoreId(),
+                request.getDetails());
     }
 }
@@ -0,0 +1,68 @@
+package org.example.orderservice.transformer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fails the read that takes the body past its size limit. The parser may wrap that failure (the XML
+ * parser does), so {@link #failure()} keeps it for the caller to rethrow.
+ */
+final class LimitedInputStream extends FilterInputStream {
+
+    private final PayloadFormat format;
+    private final long maxSize;
+    private long read;
+    private PayloadTooLargeException failure;
+
+    LimitedInputStream(InputStream in, PayloadFormat format, long maxSize) {
+        super(in);
+        this.format = format;
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            count(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * @return the size failure, or {@code null} if the limit has not been exceeded
+     */
+    PayloadTooLargeException failure() {
+        return failure;
+    }
+
+    private void count(long n) throws PayloadTooLargeException {
+        read += n;
+        if (read > maxSize) {
+            failure = new PayloadTooLargeException(format, maxSize);
+            throw failure;
+        }
+    }
+}
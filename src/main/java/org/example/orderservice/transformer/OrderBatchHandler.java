@@ -0,0 +1,39 @@
+package org.example.orderservice.transformer;
+
+import org.example.orderservice.model.OrderRequest;
+import org.example.orderservice.validation.FieldError;
+
+import java.util.List;
+
+/**
+ * Callback used by {@link OrderTransformerService#transformBatch} to hand over orders
+ * one at a time while the batch body is still being read.
+ */
+public interface OrderBatchHandler {
+
+    /**
+     * Called for every order element that could be bound to a valid {@link OrderRequest}.
+     *
+     * @param index position of the element in the batch (0-based)
+     * @param order the transformed order
+     */
+    void onOrder(int index, OrderRequest order);
+
+    /**
+     * Called for an element that is well-formed but cannot be bound to an order
+     * (e.g. a JSON array entry that is not an object).
+     *
+     * @param index position of the element in the batch (0-based)
+     * @param reason human readable rejection reason
+     */
+    void onRejected(int index, String reason);
+
+    /**
+     * Called for an order element that was bound but breaks its schema.
+     *
+     * @param index position of the element in the batch (0-based)
+     * @param orderId the orderId as sent, {@code null} if missing
+     * @param errors the broken rules
+     */
+    void onInvalid(int index, String orderId, List<FieldError> errors);
+}
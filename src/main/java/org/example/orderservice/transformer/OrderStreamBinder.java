@@ -0,0 +1,281 @@
+package org.example.orderservice.transformer;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.example.orderservice.model.OrderRequest;
+import org.example.orderservice.validation.FieldError;
+import org.example.orderservice.validation.OrderValidationException;
+import org.example.orderservice.validation.OrderValidator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binds an {@link OrderRequest} straight from parser tokens in a single pass, without building a
+ * {@code JsonNode} tree first. Works for both JSON and XML since Jackson's XML parser exposes the
+ * same token stream.
+ * <p>
+ * Header fields keep the {@code JsonNode.asText()} semantics of the previous tree-based transformer:
+ * a missing field is {@code ""}, an explicit null is {@code "null"} and a nested structure is {@code ""}.
+ * <p>
+ * The order is validated while it is bound: each header field is checked by the {@link OrderValidator} as
+ * soon as it has been read, and once one has failed the rest of the order is skipped instead of collected.
+ * Details stop being collected after {@link OrderValidator#maxDetailValues()} values. A rejected order
+ * still leaves the parser on its END_OBJECT, so a batch can go on with the next one.
+ */
+final class OrderStreamBinder {
+
+    private OrderStreamBinder() {
+    }
+
+    /**
+     * Bind the JSON layout: {@code {"orderId", "orderType", "storeId", "details": {...}}}.
+     * The parser must be positioned on the order's START_OBJECT and is left on its END_OBJECT.
+     *
+     * @throws OrderValidationException if the order breaks its schema
+     */
+    static OrderRequest bindJson(JsonParser parser, OrderValidator validator) throws IOException {
+        expectObject(parser);
+        String orderId = "";
+        String orderType = "";
+        String storeId = "";
+        Map<String, Object> details = new HashMap<>();
+        Budget budget = new Budget(validator.maxDetailValues());
+        List<FieldError> errors = null;
+
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "orderId" -> {
+                    orderId = asText(parser, token);
+                    errors = check(validator, errors, "orderId", token, orderId);
+                }
+                case "orderType" -> {
+                    orderType = asText(parser, token);
+                    errors = check(validator, errors, "orderType", token, orderType);
+                }
+                case "storeId" -> {
+                    storeId = asText(parser, token);
+                    errors = check(validator, errors, "storeId", token, storeId);
+                }
+                case "details" -> readDetails(parser, token, details, false, budget, errors);
+                default -> parser.skipChildren();
+            }
+        }
+        return validated(new OrderRequest(orderId, orderType, storeId, details), validator, budget, errors);
+    }
+
+    /**
+     * Bind the XML layout: {@code <Order><Header><Id/><Type/><Location/></Header><Details>...</Details></Order>}.
+     * The parser must be positioned on the order element's START_OBJECT and is left on its END_OBJECT.
+     * Errors name the fields as in the JSON layout ({@code orderId}, {@code orderType}, {@code storeId}).
+     *
+     * @throws OrderValidationException if the order breaks its schema
+     */
+    static OrderRequest bindXml(JsonParser parser, OrderValidator validator) throws IOException {
+        expectObject(parser);
+        String orderId = "";
+        String orderType = "";
+        String storeId = "";
+        Map<String, Object> details = new HashMap<>();
+        Budget budget = new Budget(validator.maxDetailValues());
+        List<FieldError> errors = null;
+
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "Header" -> {
+                    if (token != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    String headerField;
+                    while ((headerField = parser.nextFieldName()) != null) {
+                        JsonToken headerToken = parser.nextToken();
+                        switch (headerField) {
+                            case "Id" -> {
+                                orderId = asText(parser, headerToken);
+                                errors = check(validator, errors, "orderId", headerToken, orderId);
+                            }
+                            case "Type" -> {
+                                orderType = asText(parser, headerToken);
+                                errors = check(validator, errors, "orderType", headerToken, orderType);
+                            }
+                            case "Location" -> {
+                                storeId = asText(parser, headerToken);
+                                errors = check(validator, errors, "storeId", headerToken, storeId);
+                            }
+                            default -> parser.skipChildren();
+                        }
+                    }
+                }
+                // Repeated child elements (<Item/><Item/>) are collected into a list
+                case "Details" -> readDetails(parser, token, details, true, budget, errors);
+                default -> parser.skipChildren();
+            }
+        }
+        return validated(new OrderRequest(orderId, orderType, storeId, details), validator, budget, errors);
+    }
+
+    private static List<FieldError> check(OrderValidator validator, List<FieldError> errors, String field,
+                                          JsonToken token, String value) {
+        FieldError error = validator.checkField(field, token == JsonToken.VALUE_NULL ? null : value);
+        if (error == null) {
+            return errors;
+        }
+        List<FieldError> list = errors != null ? errors : new ArrayList<>(2);
+        list.add(error);
+        return list;
+    }
+
+    private static void readDetails(JsonParser parser, JsonToken token, Map<String, Object> details,
+                                    boolean mergeRepeated, Budget budget, List<FieldError> errors) throws IOException {
+        if (errors != null) {
+            // Already rejected, so the details would only be thrown away
+            parser.skipChildren();
+        } else {
+            readFields(parser, token, details, mergeRepeated, budget);
+        }
+    }
+
+    private static OrderRequest validated(OrderRequest order, OrderValidator validator, Budget budget,
+                                          List<FieldError> errors) {
+        if (budget.exceeded()) {
+            errors = errors != null ? errors : new ArrayList<>(1);
+            errors.add(validator.tooManyDetailValues());
+        }
+        if (errors == null) {
+            List<FieldError> orderErrors = validator.checkOrder(order);
+            if (orderErrors.isEmpty()) {
+                return order;
+            }
+            errors = orderErrors;
+        }
+        String orderId = order.getOrderId();
+        throw new OrderValidationException(orderId.isEmpty() ? null : orderId, errors);
+    }
+
+    private static void expectObject(JsonParser parser) throws IOException {
+        if (parser.currentToken() == null) {
+            parser.nextToken();
+        }
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected an order object but found " + parser.currentToken());
+        }
+    }
+
+    private static String asText(JsonParser parser, JsonToken token) throws IOException {
+        if (token.isStructStart()) {
+            parser.skipChildren();
+            return "";
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return "null";
+        }
+        return parser.getValueAsString();
+    }
+
+    /**
+     * Copy the fields of the object at the current token into {@code target}. Anything other than an
+     * object leaves the target empty, as {@code JsonNode.fields()} did.
+     */
+    private static void readFields(JsonParser parser, JsonToken token, Map<String, Object> target,
+                                   boolean mergeRepeated, Budget budget) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        String name;
+        while ((name = parser.nextFieldName()) != null) {
+            JsonToken valueToken = parser.nextToken();
+            if (!budget.take()) {
+                parser.skipChildren();
+                continue;
+            }
+            Object value = readValue(parser, valueToken, mergeRepeated, budget);
+            if (mergeRepeated && target.containsKey(name)) {
+                merge(target, name, value);
+            } else {
+                target.put(name, value);
+            }
+        }
+    }
+
+    private static Object readValue(JsonParser parser, JsonToken token, boolean mergeRepeated, Budget budget)
+            throws IOException {
+        switch (token) {
+            case START_OBJECT: {
+                Map<String, Object> map = new LinkedHashMap<>();
+                readFields(parser, token, map, mergeRepeated, budget);
+                return map;
+            }
+            case START_ARRAY: {
+                List<Object> list = new ArrayList<>();
+                JsonToken element;
+                while ((element = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (budget.take()) {
+                        list.add(readValue(parser, element, mergeRepeated, budget));
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                return list;
+            }
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                return parser.getNumberValue();
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return null;
+            case VALUE_EMBEDDED_OBJECT:
+                return parser.getEmbeddedObject();
+            default:
+                throw new JsonParseException(parser, "Unexpected token " + token);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void merge(Map<String, Object> target, String name, Object value) {
+        Object existing = target.get(name);
+        if (existing instanceof List) {
+            ((List<Object>) existing).add(value);
+        } else {
+            List<Object> values = new ArrayList<>();
+            values.add(existing);
+            values.add(value);
+            target.put(name, values);
+        }
+    }
+
+    /**
+     * Detail values an order may still collect; once spent, the rest of its details are skipped.
+     */
+    private static final class Budget {
+        private int remaining;
+
+        Budget(int remaining) {
+            this.remaining = remaining;
+        }
+
+        boolean take() {
+            return --remaining >= 0;
+        }
+
+        boolean exceeded() {
+            return remaining < 0;
+        }
+    }
+}
@@ -1,71 +1,161 @@
 package org.example.orderservice.transformer;
 
+import com.ctc.wstx.api.WstxInputProperties;
+import com.ctc.wstx.stax.WstxInputFactory;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadConstraints;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.xml.XmlFactory;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import org.example.orderservice.model.OrderRequest;
+import org.example.orderservice.validation.OrderValidationException;
+import org.example.orderservice.validation.OrderValidator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
+import javax.xml.stream.XMLInputFactory;
 import java.io.IOException;
-
-import com.fasterxml.jackson.databind.JsonNode;
-
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
-
+import java.io.InputStream;
+
+/**
+ * Binds request bodies to {@link OrderRequest}s straight from the bytes, in the format of the parsed
+ * Content-Type. Parsers come from one shared, pre-configured reader per format, which enforces the payload
+ * limits on every body, batches included:
+ * <ul>
+ *     <li>{@code orders.payload.max-nesting-depth}: JSON nesting and XML element depth</li>
+ *     <li>{@code orders.payload.max-string-length}: any single JSON string or number, XML text or attribute</li>
+ *     <li>{@code orders.payload.<format>.max-size}: a single order's body, checked against the Content-Length
+ *     before anything is read and then against the bytes read</li>
+ * </ul>
+ * XML DTDs are not processed, so entities cannot expand a small body into a large document.
+ */
 @Service
 public class OrderTransformerService {
 
-    private final ObjectMapper jsonMapper = new ObjectMapper();
-    private final XmlMapper xmlMapper = new XmlMapper();
+    private final ObjectReader jsonReader;
+    private final ObjectReader xmlReader;
+    private final long maxJsonSize;
+    private final long maxXmlSize;
+    private final OrderValidator validator;
+
+    public OrderTransformerService(OrderValidator validator,
+                                   @Value("${orders.payload.json.max-size:256KB}") DataSize maxJsonSize,
+                                   @Value("${orders.payload.xml.max-size:512KB}") DataSize maxXmlSize,
+                                   @Value("${orders.payload.max-nesting-depth:32}") int maxNestingDepth,
+                                   @Value("${orders.payload.max-string-length:65536}") int maxStringLength) {
+        this.validator = validator;
+        this.maxJsonSize = maxJsonSize.toBytes();
+        this.maxXmlSize = maxXmlSize.toBytes();
+
+        StreamReadConstraints constraints = StreamReadConstraints.builder()
+                .maxNestingDepth(maxNestingDepth)
+                .maxStringLength(maxStringLength)
+                .maxNameLength(maxStringLength)
+                .maxNumberLength(Math.min(maxStringLength, StreamReadConstraints.DEFAULT_MAX_NUM_LEN))
+                .build();
+        this.jsonReader = new ObjectMapper(JsonFactory.builder().streamReadConstraints(constraints).build()).reader();
+
+        XMLInputFactory staxFactory = new WstxInputFactory();
+        staxFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        staxFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        staxFactory.setProperty(WstxInputProperties.P_MAX_ELEMENT_DEPTH, maxNestingDepth);
+        staxFactory.setProperty(WstxInputProperties.P_MAX_TEXT_LENGTH, maxStringLength);
+        staxFactory.setProperty(WstxInputProperties.P_MAX_ATTRIBUTE_SIZE, maxStringLength);
+        this.xmlReader = new XmlMapper(XmlFactory.builder()
+                .xmlInputFactory(staxFactory)
+                .streamReadConstraints(constraints)
+                .build()).reader();
+    }
 
     /**
-     * Transform raw payload (JSON or XML string) into internal OrderRequest DTO.
+     * Transform a single order read from the request body.
      *
-     * @param rawPayload raw order data as String
-     * @param contentType content type header ("application/json" or "application/xml")
+     * @param body request body stream, read up to the order's closing token
+     * @param contentType parsed Content-Type header, JSON or XML
+     * @param contentLength Content-Length header, {@code -1} if unknown (chunked)
      * @return OrderRequest populated with extracted fields
-     * @throws IOException parsing errors
+     * @throws PayloadTooLargeException the body is larger than its format's {@code max-size}
+     * @throws IOException parsing errors, including payloads over the depth or string limits
+     * @throws OrderValidationException the order breaks its schema; parsing stopped collecting it at the first error
      */
-    public OrderRequest transform(String rawPayload, String contentType) throws IOException {
-        if (contentType == null) {
-            throw new IllegalArgumentException("Content-Type cannot be null");
+    public OrderRequest transform(InputStream body, MediaType contentType, long contentLength) throws IOException {
+        PayloadFormat format = format(contentType);
+        long maxSize = maxSize(format);
+        if (contentLength > maxSize) {
+            throw new PayloadTooLargeException(format, maxSize);
+        }
+        LimitedInputStream limited = new LimitedInputStream(body, format, maxSize);
+        try (JsonParser parser = reader(format).createParser(limited)) {
+            return bind(format, parser);
+        } catch (IOException e) {
+            // The XML parser wraps stream failures, so report the size rather than a parse error
+            throw limited.failure() != null ? limited.failure() : e;
         }
+    }
 
-        if (contentType.contains("json")) {
-            return transformFromJson(rawPayload);
-        } else if (contentType.contains("xml")) {
-            return transformFromXml(rawPayload);
-        } else {
-            throw new IllegalArgumentException("Unsupported Content-Type: " + contentType);
+    /**
+     * Transform a single order that is already in memory.
+     *
+     * @see #transform(InputStream, MediaType, long)
+     */
+    public OrderRequest transform(byte[] payload, MediaType contentType) throws IOException {
+        PayloadFormat format = format(contentType);
+        long maxSize = maxSize(format);
+        if (payload.length > maxSize) {
+            throw new PayloadTooLargeException(format, maxSize);
+        }
+        try (JsonParser parser = reader(format).createParser(payload)) {
+            return bind(format, parser);
         }
     }
 
-    private OrderRequest transformFromJson(String jsonPayload) throws IOException {
-        JsonNode root = jsonMapper.readTree(jsonPayload);
-
-        // Extract fields - customize based on your expected JSON structure
-        String orderId = root.path("orderId").asText();
-        String orderType = root.path("orderType").asText();
-        String storeId = root.path("storeId").asText();
-
-        // Extract 'details' object as a Map<String, Object>
-        Map<String, Object> details = new HashMap<>();
-        JsonNode detailsNode = root.path("details");
-        if (!detailsNode.isMissingNode()) {
-            Iterator<Map.Entry<String, JsonNode>> fields = detailsNode.fields();
-            while (fields.hasNext()) {
-                Map.Entry<String, JsonNode> field = fields.next();
-                details.put(field.getKey(), jsonMapper.treeToValue(field.getValue(), Object.class));
-            }
+    /**
+     * Transform a batch of orders read incrementally from the request body. Each order is handed to
+     * the handler as soon as its element has been parsed, so the whole body is never buffered; the
+     * single-order size limit does not apply, the depth and string limits do.
+     * <p>
+     * JSON bodies may be a single array of orders or a newline-delimited stream of order objects
+     * ("application/x-ndjson"). XML bodies are an {@code <orders>} root wrapping one element per order
+     * in the same layout accepted by {@link #transform}.
+     *
+     * @param body request body stream
+     * @param contentType parsed Content-Type header
+     * @param handler receives every valid order (or element rejection) in document order
+     * @return number of order elements read
+     * @throws IOException malformed body; orders read before the error have already been handed over
+     */
+    public int transformBatch(InputStream body, MediaType contentType, OrderBatchHandler handler) throws IOException {
+        return switch (format(contentType)) {
+            case JSON -> transformBatchFromJson(body, handler);
+            case XML -> transformBatchFromXml(body, handler);
+        };
+    }
+
+    private static PayloadFormat format(MediaType contentType) {
+        if (contentType == null) {
+            throw new IllegalArgumentException("Content-Type cannot be null");
         }
+        PayloadFormat format = PayloadFormat.of(contentType);
+        if (format == null) {
+            throw new IllegalArgumentException("Unsupported Content-Type: " + contentType);
+        }
+        return format;
+    }
 
-        return new OrderRequest(orderId, orderType, storeId, details);
+    private ObjectReader reader(PayloadFormat format) {
+        return format == PayloadFormat.JSON ? jsonReader : xmlReader;
     }
 
-    private OrderRequest transformFromXml(String xmlPayload) throws IOException {
-        JsonNode root = xmlMapper.readTree(xmlPayload);
+    private long maxSize(PayloadFormat format) {
+        return format == PayloadFormat.JSON ? maxJsonSize : maxXmlSize;
+    }
 
+    private OrderRequest bind(PayloadFormat format, JsonParser parser) throws IOException {
         // Example XML structure assumed:
         // <Order>
         //   <Header>
@@ -78,26 +168,63 @@ public class OrderTransformerService {
         //     ...
         //   </Details>
         // </Order>
+        return format == PayloadFormat.JSON
+                ? OrderStreamBinder.bindJson(parser, validator)
+                : OrderStreamBinder.bindXml(parser, validator);
+    }
 
-        JsonNode header = root.path("Header");
-
-        String orderId = header.path("Id").asText();
-        String orderType = header.path("Type").asText();
-        String storeId = header.path("Location").asText();
-
-        Map<String, Object> details = new HashMap<>();
-        JsonNode detailsNode = root.path("Details");
+    private int transformBatchFromJson(InputStream body, OrderBatchHandler handler) throws IOException {
+        try (JsonParser parser = jsonReader.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            }
+            // Without a wrapping array the parser walks root-level values, which covers NDJSON
+            int index = 0;
+            while (token != null && token != JsonToken.END_ARRAY) {
+                if (token == JsonToken.START_OBJECT) {
+                    bind(index, parser, false, handler);
+                } else {
+                    parser.skipChildren();
+                    handler.onRejected(index, "Expected a JSON object but found " + token);
+                }
+                index++;
+                token = parser.nextToken();
+            }
+            return index;
+        }
+    }
 
-        if (!detailsNode.isMissingNode()) {
-            Iterator<Map.Entry<String, JsonNode>> fields = detailsNode.fields();
-            while (fields.hasNext()) {
-                Map.Entry<String, JsonNode> field = fields.next();
-                details.put(field.getKey(), xmlMapper.treeToValue(field.getValue(), Object.class));
+    private int transformBatchFromXml(InputStream body, OrderBatchHandler handler) throws IOException {
+        try (JsonParser parser = xmlReader.createParser(body)) {
+            // The <orders> root element; every child element is one order
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return 0;
+            }
+            int index = 0;
+            while (parser.nextFieldName() != null) {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_OBJECT) {
+                    bind(index, parser, true, handler);
+                } else {
+                    parser.skipChildren();
+                    handler.onRejected(index, "Expected an order element but found " + token);
+                }
+                index++;
             }
+            return index;
         }
+    }
 
-        return new OrderRequest(orderId, orderType, storeId, details);
+    private void bind(int index, JsonParser parser, boolean xml, OrderBatchHandler handler) throws IOException {
+        OrderRequest order;
+        try {
+            order = xml ? OrderStreamBinder.bindXml(parser, validator) : OrderStreamBinder.bindJson(parser, validator);
+        } catch (OrderValidationException e) {
+            // The binder has consumed the whole element, so the batch goes on with the next one
+            handler.onInvalid(index, e.getOrderId(), e.getErrors());
+            return;
+        }
+        handler.onOrder(index, order);
     }
 }
-
-
@@ -0,0 +1,37 @@
+package org.example.orderservice.transformer;
+
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+/**
+ * The body formats {@link OrderTransformerService} reads, picked from the parsed Content-Type rather than by
+ * scanning the header text, so parameters ({@code charset}) and structured suffixes ({@code +json}) are handled.
+ */
+public enum PayloadFormat {
+
+    JSON,
+    XML;
+
+    /**
+     * @return the format of the media type, or {@code null} if it is neither JSON (including NDJSON) nor XML
+     */
+    public static PayloadFormat of(MediaType mediaType) {
+        String subtype = mediaType.getSubtype();
+        String suffix = mediaType.getSubtypeSuffix();
+        if ("json".equals(subtype) || "x-ndjson".equals(subtype) || "ndjson".equals(subtype) || "json".equals(suffix)) {
+            return JSON;
+        }
+        if ("xml".equals(subtype) || "xml".equals(suffix)) {
+            return XML;
+        }
+        return null;
+    }
+
+    /**
+     * @return the lower-case name, e.g. for metric tags
+     */
+    public String tag() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.orderservice.transformer;
+
+import java.io.IOException;
+
+/**
+ * The order payload is larger than its format's {@code orders.payload.<format>.max-size}. Thrown as soon as
+ * the Content-Length or the bytes read so far exceed the limit, so the rest of the body is never buffered.
+ */
+public class PayloadTooLargeException extends IOException {
+
+    private final long maxSize;
+
+    public PayloadTooLargeException(PayloadFormat format, long maxSize) {
+        super(format + " payload exceeds " + maxSize + " bytes");
+        this.maxSize = maxSize;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+}
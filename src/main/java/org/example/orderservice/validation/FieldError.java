@@ -0,0 +1,13 @@
+package org.example.orderservice.validation;
+
+/**
+ * One rule an order broke: the offending field ({@code orderId}, {@code storeId}, {@code details.item1}, ...)
+ * and what is wrong with it.
+ */
+public record FieldError(String field, String message) {
+
+    @Override
+    public String toString() {
+        return field + ": " + message;
+    }
+}
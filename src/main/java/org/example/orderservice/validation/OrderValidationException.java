@@ -0,0 +1,31 @@
+package org.example.orderservice.validation;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The order payload broke one or more rules of its {@link OrderValidator} schema. Thrown for every bad
+ * payload, so it carries no stack trace.
+ */
+public class OrderValidationException extends RuntimeException {
+
+    private final String orderId;
+    private final List<FieldError> errors;
+
+    public OrderValidationException(String orderId, List<FieldError> errors) {
+        super(errors.stream().map(FieldError::toString).collect(Collectors.joining("; ")), null, false, false);
+        this.orderId = orderId;
+        this.errors = List.copyOf(errors);
+    }
+
+    /**
+     * @return the orderId as sent, or {@code null} if it was missing
+     */
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public List<FieldError> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,244 @@
+package org.example.orderservice.validation;
+
+import org.example.orderservice.model.OrderRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Validates order payloads against a schema per {@code orderType}, compiled once at startup from
+ * {@code orders.validation.schemas}: {@code TYPE:field,field;TYPE:...}. The types listed there are the only
+ * ones accepted (case-insensitively), and each type's fields must be present:
+ * <ul>
+ *     <li>{@code storeId}: the storeId is not empty</li>
+ *     <li>{@code details}: details has at least one entry</li>
+ *     <li>{@code details.<key>}: details has a non-null {@code <key>} entry</li>
+ * </ul>
+ * Every type also gets the rules that hold for all orders: orderId and orderType are required, ids are at
+ * most {@code orders.validation.max-id-length} characters of {@code [A-Za-z0-9._:-]}, and an item line
+ * (a map in details with a {@code sku} and a {@code quantity}, as inventory-service reads them) has a
+ * positive whole quantity.
+ * <p>
+ * Checks are split so they can run while the body is still being parsed: {@link #checkField} as each
+ * header field is read, {@link #maxDetailValues()} while details are read, and {@link #checkOrder} on the
+ * bound order for what needs the whole of it.
+ */
+@Component
+public class OrderValidator {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderValidator.class);
+
+    private final boolean enabled;
+    private final int maxIdLength;
+    private final int maxDetailValues;
+    private final Map<String, Schema> schemas = new HashMap<>();
+
+    public OrderValidator(@Value("${orders.validation.enabled:true}") boolean enabled,
+                          @Value("${orders.validation.schemas:IN_STORE:storeId;DIGITAL:}") String schemas,
+                          @Value("${orders.validation.max-id-length:64}") int maxIdLength,
+                          @Value("${orders.validation.max-detail-values:1000}") int maxDetailValues) {
+        this.enabled = enabled;
+        this.maxIdLength = maxIdLength;
+        this.maxDetailValues = enabled ? maxDetailValues : Integer.MAX_VALUE;
+        for (String definition : schemas.split(";")) {
+            if (!definition.isBlank()) {
+                Schema schema = compile(definition.trim());
+                this.schemas.put(schema.type(), schema);
+            }
+        }
+        if (enabled && this.schemas.isEmpty()) {
+            throw new IllegalStateException("orders.validation.schemas defines no order types");
+        }
+        logger.info("Order validation compiled: enabled={}, types={}", enabled, this.schemas.keySet());
+    }
+
+    /**
+     * Check a header field as soon as the parser has read it.
+     *
+     * @param field {@code orderId}, {@code orderType} or {@code storeId}
+     * @param value the field's text, {@code null} for an explicit JSON null
+     * @return the broken rule, or {@code null} if the value is fine
+     */
+    public FieldError checkField(String field, String value) {
+        if (!enabled) {
+            return null;
+        }
+        switch (field) {
+            case "orderId":
+                return value == null || value.isEmpty() ? new FieldError(field, "is required") : checkId(field, value);
+            case "orderType":
+                if (value == null || value.isEmpty()) {
+                    return new FieldError(field, "is required");
+                }
+                return schema(value) == null
+                        ? new FieldError(field, "unknown order type " + value + ", expected one of " + schemas.keySet())
+                        : null;
+            case "storeId":
+                return value == null || value.isEmpty() ? null : checkId(field, value);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Values (at any depth) a details map may hold; the parser stops collecting details beyond this.
+     */
+    public int maxDetailValues() {
+        return maxDetailValues;
+    }
+
+    public FieldError tooManyDetailValues() {
+        return new FieldError("details", "holds more than " + maxDetailValues + " values");
+    }
+
+    /**
+     * The rules that need the whole order: required fields that were never sent and the rules of the
+     * order's type. Expects the fields that were sent to have passed {@link #checkField}.
+     *
+     * @return the broken rules, empty if the order is valid
+     */
+    public List<FieldError> checkOrder(OrderRequest order) {
+        if (!enabled) {
+            return List.of();
+        }
+        List<FieldError> errors = null;
+        if (order.getOrderId() == null || order.getOrderId().isEmpty()) {
+            errors = add(errors, new FieldError("orderId", "is required"));
+        }
+        String orderType = order.getOrderType();
+        Schema schema = orderType != null ? schema(orderType) : null;
+        if (schema == null) {
+            return add(errors, checkField("orderType", orderType));
+        }
+        for (Rule rule : schema.rules()) {
+            FieldError error = rule.check(order);
+            if (error != null) {
+                errors = add(errors, error);
+            }
+        }
+        return errors != null ? errors : List.of();
+    }
+
+    private Schema schema(String orderType) {
+        Schema schema = schemas.get(orderType);
+        return schema != null ? schema : schemas.get(orderType.toUpperCase(Locale.ROOT));
+    }
+
+    private FieldError checkId(String field, String value) {
+        if (value.length() > maxIdLength) {
+            return new FieldError(field, "is longer than " + maxIdLength + " characters");
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9'
+                    || c == '-' || c == '_' || c == '.' || c == ':')) {
+                return new FieldError(field, "may only contain letters, digits and . _ : -");
+            }
+        }
+        return null;
+    }
+
+    private static Schema compile(String definition) {
+        int colon = definition.indexOf(':');
+        String type = (colon < 0 ? definition : definition.substring(0, colon)).trim().toUpperCase(Locale.ROOT);
+        List<Rule> rules = new ArrayList<>();
+        if (colon >= 0) {
+            for (String field : definition.substring(colon + 1).split(",")) {
+                field = field.trim();
+                if (!field.isEmpty()) {
+                    rules.add(requirement(type, field));
+                }
+            }
+        }
+        rules.add(OrderValidator::checkItemLines);
+        return new Schema(type, rules.toArray(Rule[]::new));
+    }
+
+    private static Rule requirement(String type, String field) {
+        FieldError missing = new FieldError(field, "is required for " + type + " orders");
+        if (field.equals("storeId")) {
+            return order -> order.getStoreId() == null || order.getStoreId().isEmpty() ? missing : null;
+        }
+        if (field.equals("details")) {
+            return order -> order.getDetails() == null || order.getDetails().isEmpty() ? missing : null;
+        }
+        if (field.startsWith("details.") && field.length() > "details.".length()) {
+            String key = field.substring("details.".length());
+            return order -> order.getDetails() == null || order.getDetails().get(key) == null ? missing : null;
+        }
+        throw new IllegalStateException("Unknown field " + field + " in orders.validation.schemas for " + type);
+    }
+
+    private static FieldError checkItemLines(OrderRequest order) {
+        if (order.getDetails() == null) {
+            return null;
+        }
+        for (Map.Entry<String, Object> entry : order.getDetails().entrySet()) {
+            String badLine = badItemLine(entry.getValue());
+            if (badLine != null) {
+                return new FieldError("details." + entry.getKey(), badLine);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return what is wrong with the first item line in the value, or {@code null} if they are all fine
+     */
+    private static String badItemLine(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Object sku = map.get("sku");
+            Object quantity = map.get("quantity");
+            if (sku != null && quantity != null) {
+                return isPositiveQuantity(quantity) ? null
+                        : "quantity of sku " + sku + " is not a positive whole number: " + quantity;
+            }
+            return badItemLine(map.values());
+        }
+        if (value instanceof Collection<?> values) {
+            for (Object element : values) {
+                String badLine = badItemLine(element);
+                if (badLine != null) {
+                    return badLine;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean isPositiveQuantity(Object quantity) {
+        if (quantity instanceof Number number) {
+            return number.longValue() > 0;
+        }
+        try {
+            return Long.parseLong(quantity.toString().trim()) > 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static List<FieldError> add(List<FieldError> errors, FieldError error) {
+        if (error == null) {
+            return errors != null ? errors : List.of();
+        }
+        List<FieldError> list = errors != null ? errors : new ArrayList<>(2);
+        list.add(error);
+        return list;
+    }
+
+    @FunctionalInterface
+    private interface Rule {
+        FieldError check(OrderRequest order);
+    }
+
+    private record Schema(String type, Rule[] rules) {
+    }
+}
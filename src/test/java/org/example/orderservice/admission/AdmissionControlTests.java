@@ -0,0 +1,94 @@
+package org.example.orderservice.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AdmissionControlTests {
+
+    private final AmqpAdmin amqpAdmin = mock(AmqpAdmin.class);
+
+    @Test
+    void limitBacksOffOnSlowConfirmsAndGrowsBackWhenFast() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 2, 20, TimeUnit.MILLISECONDS.toNanos(100), 0.5);
+        for (int i = 0; i < 10; i++) {
+            assertThat(limit.tryAcquire()).isTrue();
+        }
+        assertThat(limit.tryAcquire()).isFalse();
+
+        limit.release(TimeUnit.MILLISECONDS.toNanos(300), true);
+        limit.release(TimeUnit.MILLISECONDS.toNanos(1), false);
+        assertThat(limit.limit()).isEqualTo(2);
+        assertThat(limit.tryAcquire()).isFalse();
+
+        // 8 still in flight, so the limit is in use and fast confirms raise it
+        for (int i = 0; i < 8; i++) {
+            limit.release(TimeUnit.MILLISECONDS.toNanos(1), true);
+        }
+        assertThat(limit.limit()).isGreaterThan(2);
+    }
+
+    @Test
+    void storeBucketsAreIndependentAndRefill() {
+        StoreRateLimiter limiter = new StoreRateLimiter(10, 2);
+        long now = 1_000_000_000L;
+
+        assertThat(limiter.tryAcquire("store-1", now)).isZero();
+        assertThat(limiter.tryAcquire("store-1", now)).isZero();
+        assertThat(limiter.tryAcquire("store-1", now)).isEqualTo(100_000_000L);
+        assertThat(limiter.tryAcquire("store-2", now)).isZero();
+        assertThat(limiter.tryAcquire("store-1", now + 100_000_000L)).isZero();
+
+        limiter.evictIdle(now + 1_000_000_000L);
+        assertThat(limiter.size()).isZero();
+    }
+
+    @Test
+    void aRejectionCostsTheClientOnlyTheBudgetThatRefusedIt() {
+        AdmissionControl admission = new AdmissionControl(amqpAdmin, true, List.of("orders.queue"), 1_000, 5_000,
+                1, 1, 1, 500, 0.9, 1, true, 0.001, 1, new SimpleMeterRegistry());
+        AdmissionControl.Permit held = admission.tryAcquire("store-1");
+
+        // Shed by the concurrency limit: store-2 keeps its only token
+        assertThatThrownBy(() -> admission.tryAcquire("store-2"))
+                .isInstanceOfSatisfying(AdmissionRejectedException.class,
+                        e -> assertThat(e.getReason()).isEqualTo("concurrency-limit"));
+        held.release(true);
+        AdmissionControl.Permit admitted = admission.tryAcquire("store-2");
+        admitted.release(true);
+
+        // Shed by its store: the concurrency slot goes back without counting as a failure
+        assertThatThrownBy(() -> admission.tryAcquire("store-1"))
+                .isInstanceOfSatisfying(AdmissionRejectedException.class,
+                        e -> assertThat(e.getReason()).isEqualTo("store-rate"));
+        admission.tryAcquire("store-3").release(true);
+    }
+
+    @Test
+    void shedsEverythingWhileTheQueueIsTooDeep() {
+        AdmissionControl admission = new AdmissionControl(amqpAdmin, true, List.of("orders.queue"), 1_000, 5_000,
+                100, 10, 1_000, 500, 0.9, 1, true, 1, 1, new SimpleMeterRegistry());
+        when(amqpAdmin.getQueueInfo("orders.queue")).thenReturn(new QueueInformation("orders.queue", 5_000, 1));
+
+        admission.tryAcquire("store-1").release(true);
+        assertThatThrownBy(() -> admission.tryAcquire("store-1"))
+                .isInstanceOfSatisfying(AdmissionRejectedException.class,
+                        e -> assertThat(e.getReason()).isEqualTo("store-rate"));
+
+        admission.refresh();
+        assertThatThrownBy(() -> admission.tryAcquire("store-2"))
+                .isInstanceOfSatisfying(AdmissionRejectedException.class, e -> {
+                    assertThat(e.getReason()).isEqualTo("queue-depth");
+                    assertThat(e.getRetryAfterSeconds()).isEqualTo(5);
+                });
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.orderservice.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Which publish executor {@code spring.threads.virtual.enabled} picks on the running JVM.
+ */
+class AsyncPublishConfigTests {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(AsyncPublishConfig.class)
+            .withPropertyValues("spring.threads.virtual.enabled=true");
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_20)
+    void fallsBackToThePlatformPoolBeforeJava21() {
+        contextRunner.run(context -> assertThat(context.getBean("orderPublishExecutor", TaskExecutor.class))
+                .isInstanceOf(ThreadPoolTaskExecutor.class));
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void sendsOnVirtualThreadsFromJava21() {
+        contextRunner.run(context -> {
+            TaskExecutor executor = context.getBean("orderPublishExecutor", TaskExecutor.class);
+            assertThat(executor).isInstanceOf(SimpleAsyncTaskExecutor.class);
+            assertThat(ReflectionTestUtils.getField(executor, "virtualThreadDelegate")).isNotNull();
+        });
+    }
+
+    @Test
+    void usesThePlatformPoolUnlessVirtualThreadsAreEnabled() {
+        contextRunner.withPropertyValues("spring.threads.virtual.enabled=false")
+                .run(context -> assertThat(context.getBean("orderPublishExecutor", TaskExecutor.class))
+                        .isInstanceOf(ThreadPoolTaskExecutor.class));
+    }
+}
@@ -0,0 +1,127 @@
+package org.example.orderservice.controller;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.orderservice.admission.AdmissionControl;
+import org.example.orderservice.service.OrderOutbox;
+import org.example.orderservice.service.OrderPublishException;
+import org.example.orderservice.service.OrderService;
+import org.example.orderservice.transformer.OrderTransformerService;
+import org.example.orderservice.validation.OrderValidator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The per-request summary line: accepted orders are sampled at INFO, rejected ones always reach WARN.
+ */
+class OrderControllerLoggingTests {
+
+    private static final String ACCEPTED = "{\"orderId\":\"order-1\",\"orderType\":\"DIGITAL\"}";
+    private static final String INVALID = "{\"orderId\":\"order-2\",\"orderType\":\"IN_STORE\"}";
+
+    private final OrderService orderService = mock(OrderService.class);
+    private final OrderOutbox orderOutbox = mock(OrderOutbox.class);
+    private final AdmissionControl admissionControl = mock(AdmissionControl.class);
+    private final OrderTransformerService transformerService = new OrderTransformerService(
+            new OrderValidator(true, "IN_STORE:storeId;DIGITAL:", 64, 1000),
+            DataSize.ofKilobytes(256), DataSize.ofKilobytes(512), 32, 65536);
+    private final Logger logger = (Logger) LoggerFactory.getLogger(OrderController.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private Level previousLevel;
+
+    @BeforeEach
+    void setUp() {
+        when(admissionControl.tryAcquire(any())).thenReturn(success -> { });
+        when(orderService.publishOrdersAsync(anyList()))
+                .thenReturn(List.of(CompletableFuture.completedFuture(null)));
+        previousLevel = logger.getLevel();
+        logger.setLevel(Level.INFO);
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        logger.setLevel(previousLevel);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0, 0", "1, 200"})
+    void logsNoAcceptedOrderAtRate0AndEveryOneAtRate1(double sampleRate, int expectedLines) {
+        OrderController controller = controller(sampleRate);
+
+        for (int i = 0; i < 200; i++) {
+            controller.placeOrder(body(ACCEPTED), "application/json", null).join();
+        }
+
+        assertThat(summaries(Level.INFO)).hasSize(expectedLines)
+                .allSatisfy(line -> assertThat(line).contains("outcome=accepted"));
+    }
+
+    @Test
+    void logsAboutTheSampledFractionOfAcceptedOrders() {
+        OrderController controller = controller(0.1);
+
+        for (int i = 0; i < 2_000; i++) {
+            controller.placeOrder(body(ACCEPTED), "application/json", null).join();
+        }
+
+        // 200 expected; the bounds are more than five standard deviations away
+        assertThat(summaries(Level.INFO)).hasSizeBetween(130, 270);
+    }
+
+    @Test
+    void logsEveryRejectedOrderAtWarnWhateverTheSampleRate() {
+        OrderController controller = controller(0);
+        when(orderService.publishOrdersAsync(anyList())).thenReturn(
+                List.of(CompletableFuture.failedFuture(new OrderPublishException("Broker nacked order-1"))));
+
+        controller.placeOrder(body(INVALID), "application/json", null).join();
+        controller.placeOrder(body(ACCEPTED), "application/json", null).join();
+
+        assertThat(summaries(Level.INFO)).isEmpty();
+        assertThat(summaries(Level.WARN)).satisfiesExactly(
+                line -> assertThat(line).contains("orderId=order-2", "outcome=invalid"),
+                line -> assertThat(line).contains("orderId=order-1", "outcome=broker-rejected",
+                        "error=Broker nacked order-1"));
+    }
+
+    private OrderController controller(double sampleRate) {
+        OrderController controller = new OrderController(orderService, orderOutbox, admissionControl,
+                transformerService, 500, true, sampleRate, new SimpleMeterRegistry());
+        appender.list.clear();
+        return controller;
+    }
+
+    private List<String> summaries(Level level) {
+        return appender.list.stream()
+                .filter(event -> event.getLevel() == level)
+                .map(ILoggingEvent::getFormattedMessage)
+                .filter(message -> message.startsWith("Order request:"))
+                .toList();
+    }
+
+    private static ByteArrayInputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,174 @@
+package org.example.orderservice.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.orderservice.admission.AdmissionControl;
+import org.example.orderservice.admission.AdmissionRejectedException;
+import org.example.orderservice.model.OrderRequest;
+import org.example.orderservice.service.OrderOutbox;
+import org.example.orderservice.service.OrderPublishException;
+import org.example.orderservice.service.OrderService;
+import org.example.orderservice.transformer.OrderTransformerService;
+import org.example.orderservice.validation.OrderValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Which Content-Types reach the transformer, through the MVC mapping and not only at the service level,
+ * and what the batch endpoint reports per order.
+ */
+@WebMvcTest(OrderController.class)
+@Import({OrderTransformerService.class, OrderValidator.class, OrderControllerTests.Metrics.class})
+class OrderControllerTests {
+
+    private static final String JSON = "{\"orderId\":\"order-1\",\"orderType\":\"DIGITAL\"}";
+    private static final String XML = "<Order><Header><Id>order-1</Id><Type>DIGITAL</Type></Header></Order>";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private OrderService orderService;
+
+    @MockitoBean
+    private OrderOutbox orderOutbox;
+
+    @MockitoBean
+    private AdmissionControl admissionControl;
+
+    @BeforeEach
+    void setUp() {
+        when(admissionControl.tryAcquire(any())).thenReturn(success -> { });
+        when(orderService.publishOrdersAsync(anyList()))
+                .thenReturn(List.of(CompletableFuture.completedFuture(null)));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "application/json, json",
+            "application/vnd.orders+json; charset=UTF-8, json",
+            "application/xml, xml",
+            "text/xml, xml",
+            "application/vnd.orders+xml, xml"})
+    void acceptsEveryContentTypeThePayloadFormatReads(String contentType, String format) throws Exception {
+        MvcResult result = mockMvc.perform(post("/orders/orders")
+                        .contentType(contentType)
+                        .content("json".equals(format) ? JSON : XML))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isAccepted());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"text/plain", "application/x-ndjson"})
+    void refusesOtherContentTypesWith415(String contentType) throws Exception {
+        mockMvc.perform(post("/orders/orders").contentType(contentType).content(JSON))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+    @Test
+    void batchReportsOneOutcomePerIndexAndAnswers200WhenTheBodyWasReadToTheEnd() throws Exception {
+        when(orderService.publishBatchAsync(anyList())).thenAnswer(invocation ->
+                confirmsFailing(invocation.getArgument(0), "order-3"));
+        String body = String.join("\n",
+                "{\"orderId\":\"order-1\",\"orderType\":\"DIGITAL\"}",
+                "{\"orderId\":\"order-2\",\"orderType\":\"PICKUP\"}",
+                "{\"orderId\":\"order-3\",\"orderType\":\"DIGITAL\"}",
+                "{\"orderId\":\"order-4\",\"orderType\":\"IN_STORE\",\"storeId\":\"store-1\"}");
+
+        mockMvc.perform(post("/orders/orders:batch").contentType(MediaType.APPLICATION_NDJSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(4))
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.rejected").value(2))
+                .andExpect(jsonPath("$.error").doesNotExist())
+                .andExpect(jsonPath("$.results[*].index").value(contains(0, 1, 2, 3)))
+                .andExpect(jsonPath("$.results[*].accepted").value(contains(true, false, false, true)))
+                .andExpect(jsonPath("$.results[1].orderId").value("order-2"))
+                .andExpect(jsonPath("$.results[1].errors[0].field").value("orderType"))
+                .andExpect(jsonPath("$.results[2].reason").value("Publish failed: Broker nacked order-3"));
+    }
+
+    @Test
+    void aParseErrorMidBatchStillPublishesTheOrdersReadBeforeItAndAnswers400() throws Exception {
+        List<String> published = new ArrayList<>();
+        when(orderService.publishBatchAsync(anyList())).thenAnswer(invocation -> {
+            List<OrderRequest> orders = invocation.getArgument(0);
+            orders.forEach(order -> published.add(order.getOrderId()));
+            return confirmsFailing(orders, null);
+        });
+        String body = "[{\"orderId\":\"order-1\",\"orderType\":\"DIGITAL\"},"
+                + "{\"orderId\":\"order-2\",\"orderType\":\"DIGITAL\"},"
+                + "{\"orderId\":\"order-3\",\"orderType\":";
+
+        mockMvc.perform(post("/orders/orders:batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.received").value(2))
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.error").value(startsWith("Invalid application/json")));
+
+        assertThat(published).containsExactly("order-1", "order-2");
+    }
+
+    @Test
+    void aBatchIsRefusedWith429BeforeItsBodyIsReadWhileTheQueueIsTooDeep() throws Exception {
+        doThrow(new AdmissionRejectedException("queue-depth", 5)).when(admissionControl).checkQueueDepth();
+
+        mockMvc.perform(post("/orders/orders:batch").contentType(MediaType.APPLICATION_NDJSON).content(JSON))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "5"))
+                .andExpect(jsonPath("$.received").value(0))
+                .andExpect(jsonPath("$.error").value("Order rejected (queue-depth), retry after 5s"));
+
+        verify(admissionControl).checkQueueDepth();
+        verifyNoInteractions(orderService, orderOutbox);
+    }
+
+    private static List<CompletableFuture<Void>> confirmsFailing(List<OrderRequest> orders, String nackedOrderId) {
+        List<CompletableFuture<Void>> confirms = new ArrayList<>();
+        for (OrderRequest order : orders) {
+            confirms.add(order.getOrderId().equals(nackedOrderId)
+                    ? CompletableFuture.failedFuture(new OrderPublishException("Broker nacked " + nackedOrderId))
+                    : CompletableFuture.completedFuture(null));
+        }
+        return confirms;
+    }
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.orderservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.common.OrderMessage;
+import org.example.orderservice.model.OrderRequest;
+import org.example.orderservice.model.OutboxEntry;
+import org.example.orderservice.repository.OrderOutboxJdbcRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Outbox against an in-memory H2 table and a stubbed publisher.
+ */
+class OrderOutboxTests {
+
+    private final OrderService orderService = mock(OrderService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private JdbcTemplate jdbcTemplate;
+    private OrderOutboxJdbcRepository repository;
+    private OrderOutbox outbox;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2).setName(UUID.randomUUID().toString()).build());
+        jdbcTemplate.execute("CREATE TABLE order_outbox (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "order_id VARCHAR(255) NOT NULL, payload BLOB NOT NULL, created_at TIMESTAMP NOT NULL, "
+                + "lease_until TIMESTAMP, parked_at TIMESTAMP, attempts INT NOT NULL)");
+        repository = new OrderOutboxJdbcRepository(jdbcTemplate);
+        outbox = new OrderOutbox(repository, orderService, true, 1, 10, 50, 30_000, 5_000, 3, meterRegistry);
+    }
+
+    @Test
+    void claimsSkipRowsLeasedByAnotherRelay() {
+        outbox.enqueue(List.of(order("order-1"), order("order-2"), order("order-3")));
+
+        List<OutboxEntry> first = repository.claim(2, Duration.ofSeconds(30));
+        // A lease that has already run out, as if this relay had died
+        List<OutboxEntry> second = repository.claim(2, Duration.ofSeconds(-1));
+
+        assertThat(first).extracting(OutboxEntry::getOrderId).containsExactly("order-1", "order-2");
+        assertThat(second).extracting(OutboxEntry::getOrderId).containsExactly("order-3");
+        assertThat(repository.claim(2, Duration.ofSeconds(30))).extracting(OutboxEntry::getOrderId)
+                .containsExactly("order-3");
+        assertThat(repository.claim(2, Duration.ofSeconds(30))).isEmpty();
+    }
+
+    @Test
+    void relayDeletesConfirmedOrdersAndReleasesFailedOnes() {
+        assertThat(outbox.enqueue(List.of(order("order-1"), order("order-2"), order("order-3"))))
+                .allMatch(CompletableFuture::isDone);
+        when(orderService.publishMessagesAsync(anyList())).thenAnswer(invocation -> {
+            List<OrderMessage> orders = invocation.getArgument(0);
+            assertThat(orders).extracting(OrderMessage::getStoreId).containsOnly("store-1");
+            return List.of(CompletableFuture.completedFuture(null),
+                    CompletableFuture.failedFuture(new OrderPublishException("Broker nacked order order-2")),
+                    CompletableFuture.completedFuture(null));
+        });
+
+        assertThat(outbox.relayBatch()).isEqualTo(new OrderOutbox.RelayResult(3, 1));
+
+        List<OutboxEntry> left = repository.claim(10, Duration.ofSeconds(30));
+        assertThat(left).extracting(OutboxEntry::getOrderId).containsExactly("order-2");
+        assertThat(left.get(0).getAttempts()).isEqualTo(1);
+        assertThat(meterRegistry.get("orders.outbox.relayed").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("orders.outbox.failed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void parksUndecodableRowsAndRowsOutOfAttemptsSoTheRestKeepsFlowing() {
+        outbox.enqueue(List.of(order("order-1"), order("order-2"), order("order-3")));
+        // order-1 as written by a newer version; order-2 is unroutable on every attempt
+        jdbcTemplate.update("UPDATE order_outbox SET payload = ? WHERE order_id = 'order-1'", (Object) new byte[]{99, 1, 2});
+        when(orderService.publishMessagesAsync(anyList())).thenAnswer(invocation -> {
+            List<OrderMessage> orders = invocation.getArgument(0);
+            return orders.stream()
+                    .map(order -> order.getOrderId().equals("order-2")
+                            ? CompletableFuture.<Void>failedFuture(new OrderPublishException("Order order-2 unroutable"))
+                            : CompletableFuture.<Void>completedFuture(null))
+                    .toList();
+        });
+
+        assertThat(outbox.relayBatch()).isEqualTo(new OrderOutbox.RelayResult(3, 1));
+        assertThat(outbox.relayBatch()).isEqualTo(new OrderOutbox.RelayResult(1, 1));
+        assertThat(outbox.relayBatch()).isEqualTo(new OrderOutbox.RelayResult(1, 1));
+        assertThat(outbox.relayBatch()).isEqualTo(new OrderOutbox.RelayResult(0, 0));
+
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT order_id FROM order_outbox WHERE parked_at IS NOT NULL ORDER BY id", String.class))
+                .containsExactly("order-1", "order-2");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT attempts FROM order_outbox WHERE order_id = 'order-2'", Integer.class)).isEqualTo(3);
+        assertThat(repository.oldestCreatedAt()).isEmpty();
+        assertThat(meterRegistry.get("orders.outbox.parked").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("orders.outbox.relayed").counter().count()).isEqualTo(1);
+    }
+
+    private OrderRequest order(String orderId) {
+        return new OrderRequest(orderId, "IN_STORE", "store-1", Map.of("note", "gift"));
+    }
+}
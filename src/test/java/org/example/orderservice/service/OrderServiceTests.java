@@ -0,0 +1,217 @@
+package org.example.orderservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.orderservice.config.StreamConfig;
+import org.example.orderservice.model.OrderRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.AmqpIOException;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.rabbit.stream.producer.RabbitStreamTemplate;
+import org.springframework.rabbit.stream.support.StreamMessageProperties;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the publish pipeline against a stubbed broker: sends are captured and confirms are completed by hand.
+ */
+class OrderServiceTests {
+
+    private final List<CorrelationData> sent = new CopyOnWriteArrayList<>();
+    private RabbitTemplate rabbitTemplate;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        rabbitTemplate = mock(RabbitTemplate.class);
+        RabbitOperations operations = mock(RabbitOperations.class);
+        doAnswer(invocation -> sent.add(invocation.getArgument(3)))
+                .when(operations).convertAndSend(anyString(), anyString(), any(Object.class), any(CorrelationData.class));
+        when(rabbitTemplate.invoke(any())).thenAnswer(invocation ->
+                invocation.getArgument(0, RabbitOperations.OperationsCallback.class).doInRabbit(operations));
+    }
+
+    @Test
+    void completesWhenBrokerAcks() {
+        OrderService service = service(10);
+        CompletableFuture<Void> confirm = service.publishOrderAsync(order("order-1"));
+
+        assertThat(confirm).isNotDone();
+        sent.get(0).getFuture().complete(new CorrelationData.Confirm(true, null));
+        assertThat(confirm).isCompleted();
+    }
+
+    @Test
+    void failsWhenBrokerNacks() {
+        OrderService service = service(10);
+        CompletableFuture<Void> confirm = service.publishOrderAsync(order("order-1"));
+
+        sent.get(0).getFuture().complete(new CorrelationData.Confirm(false, "queue full"));
+        assertThatThrownBy(confirm::join)
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(OrderPublishException.class)
+                .hasMessageContaining("queue full");
+    }
+
+    @Test
+    void failsWhenMessageIsReturned() {
+        OrderService service = service(10);
+        CompletableFuture<Void> confirm = service.publishOrderAsync(order("order-1"));
+
+        CorrelationData correlation = sent.get(0);
+        correlation.setReturned(new ReturnedMessage(new Message(new byte[0], new MessageProperties()),
+                312, "NO_ROUTE", "orders.exchange", "orders.key"));
+        correlation.getFuture().complete(new CorrelationData.Confirm(true, null));
+        assertThatThrownBy(confirm::join).hasMessageContaining("unroutable");
+    }
+
+    @Test
+    void rejectsOrdersBeyondTheInFlightWindowUntilConfirmsArrive() {
+        OrderService service = service(2);
+        List<CompletableFuture<Void>> confirms = service.publishOrdersAsync(
+                List.of(order("order-1"), order("order-2"), order("order-3")));
+
+        assertThat(sent).hasSize(2);
+        assertThatThrownBy(confirms.get(2)::join).hasMessageContaining("window full");
+
+        sent.get(0).getFuture().complete(new CorrelationData.Confirm(true, null));
+        CompletableFuture<Void> next = service.publishOrderAsync(order("order-4"));
+        assertThat(sent).hasSize(3);
+        assertThat(next).isNotDone();
+    }
+
+    @Test
+    void batchChunksWaitForLateConfirmsInsteadOfRejectingBeyondTheWindow() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OrderService service = service(2, meterRegistry);
+        List<OrderRequest> orders = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            orders.add(order("order-" + i));
+        }
+        // The broker confirms whatever has been sent, but only every 50ms
+        CompletableFuture<Void> broker = CompletableFuture.runAsync(() -> {
+            int confirmed = 0;
+            while (confirmed < orders.size()) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+                for (; confirmed < sent.size(); confirmed++) {
+                    sent.get(confirmed).getFuture().complete(new CorrelationData.Confirm(true, null));
+                }
+            }
+        });
+
+        List<CompletableFuture<Void>> confirms = service.publishBatchAsync(orders);
+
+        broker.orTimeout(5, TimeUnit.SECONDS).join();
+        assertThat(sent).hasSize(5);
+        assertThat(confirms).allSatisfy(confirm -> assertThat(confirm).isCompleted());
+        assertThat(meterRegistry.counter("orders.publish.window.rejected").count()).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failsTheChunkWhenNoChannelCanBeCheckedOut() {
+        doThrow(new AmqpTimeoutException("No available channels")).when(rabbitTemplate).invoke(any());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OrderService service = new OrderService(rabbitTemplate, mock(ObjectProvider.class), new SyncTaskExecutor(), 10,
+                0, 5_000, 5_000, false, meterRegistry);
+
+        List<CompletableFuture<Void>> confirms = service.publishOrdersAsync(List.of(order("order-1"), order("order-2")));
+
+        assertThat(confirms).allSatisfy(confirm -> assertThatThrownBy(confirm::join)
+                .hasCauseInstanceOf(OrderPublishException.class)
+                .hasMessageContaining("No available channels"));
+        assertThat(meterRegistry.counter("orders.publish.channels.checkout.timeouts").count()).isEqualTo(1);
+        assertThat(meterRegistry.get("orders.publish.in.flight").gauge().value()).isZero();
+    }
+
+    @Test
+    void aChannelFailureMidChunkFailsOnlyTheOrdersNotYetSent() {
+        RabbitOperations operations = mock(RabbitOperations.class);
+        doAnswer(invocation -> {
+            if (!sent.isEmpty()) {
+                throw new AmqpIOException(new IOException("Connection reset"));
+            }
+            return sent.add(invocation.getArgument(3));
+        }).when(operations).convertAndSend(anyString(), anyString(), any(Object.class), any(CorrelationData.class));
+        doAnswer(invocation -> invocation.getArgument(0, RabbitOperations.OperationsCallback.class).doInRabbit(operations))
+                .when(rabbitTemplate).invoke(any());
+        OrderService service = service(10);
+
+        List<CompletableFuture<Void>> confirms = service.publishOrdersAsync(
+                List.of(order("order-1"), order("order-2"), order("order-3")));
+
+        // order-1 reached the channel: its confirm decides
+        assertThat(confirms.get(0)).isNotDone();
+        assertThat(confirms.subList(1, 3)).allSatisfy(confirm -> assertThatThrownBy(confirm::join)
+                .hasMessageContaining("Failed to publish 2 of 3 orders"));
+        sent.get(0).getFuture().complete(new CorrelationData.Confirm(true, null));
+        assertThat(confirms.get(0)).isCompleted();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamTransportConfirmsThroughTheSameFuturesAndPartitionsByStore() throws Exception {
+        RabbitStreamTemplate streamTemplate = mock(RabbitStreamTemplate.class);
+        CompletableFuture<Boolean> streamConfirm = new CompletableFuture<>();
+        when(streamTemplate.convertAndSend(any(), any(MessagePostProcessor.class))).thenReturn(streamConfirm);
+        ObjectProvider<RabbitStreamTemplate> streamTemplates = mock(ObjectProvider.class);
+        when(streamTemplates.getIfAvailable()).thenReturn(streamTemplate);
+        OrderService service = new OrderService(rabbitTemplate, streamTemplates, new SyncTaskExecutor(), 10, 0,
+                5_000, 5_000, false, new SimpleMeterRegistry());
+
+        CompletableFuture<Void> confirm = service.publishOrderAsync(order("order-1"));
+        assertThat(sent).isEmpty();
+        assertThat(confirm).isNotDone();
+        streamConfirm.complete(true);
+        assertThat(confirm).isCompleted();
+
+        ArgumentCaptor<MessagePostProcessor> postProcessor = ArgumentCaptor.forClass(MessagePostProcessor.class);
+        verify(streamTemplate).convertAndSend(any(), postProcessor.capture());
+        MessageProperties properties = postProcessor.getValue()
+                .postProcessMessage(new Message(new byte[0], new StreamMessageProperties())).getMessageProperties();
+        assertThat((String) properties.getHeader(StreamConfig.STORE_ID_PROPERTY)).isEqualTo("store-1");
+        assertThat(((StreamMessageProperties) properties).getCreationTime()).isPositive();
+    }
+
+    private OrderService service(int maxInFlight) {
+        return service(maxInFlight, new SimpleMeterRegistry());
+    }
+
+    @SuppressWarnings("unchecked")
+    private OrderService service(int maxInFlight, SimpleMeterRegistry meterRegistry) {
+        return new OrderService(rabbitTemplate, mock(ObjectProvider.class), new SyncTaskExecutor(), maxInFlight,
+                0, 5_000, 5_000, false, meterRegistry);
+    }
+
+    private OrderRequest order(String orderId) {
+        return new OrderRequest(orderId, "IN_STORE", "store-1", Map.of());
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.orderservice.transformer;
+
+import com.fasterxml.jackson.core.exc.StreamConstraintsException;
+import org.example.orderservice.model.OrderRequest;
+import org.example.orderservice.validation.OrderValidator;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderTransformerServiceTests {
+
+    private static final String ORDER = "{\"orderId\":\"order-1\",\"orderType\":\"DIGITAL\",\"details\":{\"note\":\"%s\"}}";
+
+    private final OrderTransformerService transformer = new OrderTransformerService(
+            new OrderValidator(true, "IN_STORE:storeId;DIGITAL:", 64, 1000),
+            DataSize.ofBytes(1024), DataSize.ofBytes(2048), 8, 512);
+
+    @Test
+    void picksTheFormatFromTheParsedMediaType() throws Exception {
+        byte[] json = ORDER.formatted("a").getBytes(StandardCharsets.UTF_8);
+        byte[] xml = "<Order><Header><Id>order-2</Id><Type>DIGITAL</Type></Header></Order>".getBytes(StandardCharsets.UTF_8);
+
+        OrderRequest fromJson = transformer.transform(new ByteArrayInputStream(json),
+                MediaType.parseMediaType("application/vnd.orders+json; charset=UTF-8"), json.length);
+        OrderRequest fromXml = transformer.transform(xml, MediaType.parseMediaType("text/xml"));
+
+        assertThat(fromJson.getOrderId()).isEqualTo("order-1");
+        assertThat(fromXml.getOrderId()).isEqualTo("order-2");
+        assertThatThrownBy(() -> transformer.transform(json, MediaType.parseMediaType("text/json-ish")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Unsupported Content-Type");
+    }
+
+    @Test
+    void rejectsOversizedBodiesBeforeReadingThemWhole() throws Exception {
+        byte[] json = ORDER.formatted("x".repeat(400)).getBytes(StandardCharsets.UTF_8);
+        CountingInputStream declared = new CountingInputStream(json);
+
+        assertThatThrownBy(() -> transformer.transform(declared, MediaType.APPLICATION_JSON, 1025))
+                .isInstanceOf(PayloadTooLargeException.class);
+        assertThat(declared.read).isZero();
+
+        // Chunked, so only the bytes read count; the XML parser wraps the failure, it is still reported as the size
+        StringBuilder xml = new StringBuilder("<Order><Header><Id>order-1</Id><Type>DIGITAL</Type></Header><Details>");
+        for (int i = 0; i < 100; i++) {
+            xml.append("<Item><sku>SKU-").append(i).append("</sku><quantity>1</quantity></Item>");
+        }
+        CountingInputStream chunked = new CountingInputStream(xml.append("</Details></Order>").toString()
+                .getBytes(StandardCharsets.UTF_8));
+        assertThatThrownBy(() -> transformer.transform(chunked, MediaType.APPLICATION_XML, -1))
+                .isInstanceOf(PayloadTooLargeException.class)
+                .hasMessage("XML payload exceeds 2048 bytes");
+        assertThat(chunked.read).isLessThan(chunked.length);
+    }
+
+    @Test
+    void enforcesTheDepthAndStringLimitsAndIgnoresDtds() {
+        String deep = ORDER.formatted("a").replace("\"a\"", "[[[[[[[[[[1]]]]]]]]]]");
+        assertThatThrownBy(() -> transformer.transform(deep.getBytes(StandardCharsets.UTF_8), MediaType.APPLICATION_JSON))
+                .isInstanceOf(StreamConstraintsException.class);
+        assertThatThrownBy(() -> transformer.transform(ORDER.formatted("x".repeat(600)).getBytes(StandardCharsets.UTF_8),
+                MediaType.APPLICATION_JSON))
+                .isInstanceOf(StreamConstraintsException.class);
+
+        String entities = "<!DOCTYPE Order [<!ENTITY a \"aaaaaaaaaa\"><!ENTITY b \"&a;&a;&a;&a;&a;&a;&a;&a;&a;&a;\">]>"
+                + "<Order><Header><Id>order-1</Id><Type>DIGITAL</Type><Location>&b;</Location></Header></Order>";
+        assertThatThrownBy(() -> transformer.transform(entities.getBytes(StandardCharsets.UTF_8), MediaType.APPLICATION_XML))
+                .isInstanceOf(IOException.class);
+    }
+
+    private static class CountingInputStream extends InputStream {
+        private final ByteArrayInputStream in;
+        private final int length;
+        private int read;
+
+        CountingInputStream(byte[] bytes) {
+            this.in = new ByteArrayInputStream(bytes);
+            this.length = bytes.length;
+        }
+
+        @Override
+        public int read() {
+            int b = in.read();
+            read += b >= 0 ? 1 : 0;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            int n = in.read(b, off, len);
+            read += Math.max(n, 0);
+            return n;
+        }
+    }
+}
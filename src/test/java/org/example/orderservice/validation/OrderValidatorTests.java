@@ -0,0 +1,100 @@
+package org.example.orderservice.validation;
+
+import org.example.orderservice.model.OrderRequest;
+import org.example.orderservice.transformer.OrderBatchHandler;
+import org.example.orderservice.transformer.OrderTransformerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+class OrderValidatorTests {
+
+    private final OrderValidator validator = new OrderValidator(true, "IN_STORE:storeId;DIGITAL:details.email", 64, 10);
+    private final OrderTransformerService transformer = new OrderTransformerService(validator,
+            DataSize.ofKilobytes(256), DataSize.ofKilobytes(512), 32, 65536);
+
+    @Test
+    void rejectsEmptyFieldsAndBrokenTypeRulesWithOneErrorPerField() throws Exception {
+        OrderValidationException e = catchThrowableOfType(OrderValidationException.class, () -> transform(
+                "{\"orderId\":\"\",\"orderType\":\"PICKUP\",\"storeId\":\"store 1\",\"details\":{}}",
+                MediaType.APPLICATION_JSON));
+        assertThat(e.getOrderId()).isNull();
+        assertThat(e.getErrors()).extracting(FieldError::field).containsExactly("orderId", "orderType", "storeId");
+
+        assertThatThrownBy(() -> transform("{\"orderId\":\"order-1\",\"orderType\":\"IN_STORE\"}",
+                MediaType.APPLICATION_JSON))
+                .isInstanceOf(OrderValidationException.class)
+                .hasMessage("storeId: is required for IN_STORE orders");
+
+        OrderRequest order = transform(
+                "{\"orderId\":\"order-2\",\"orderType\":\"digital\",\"details\":{\"email\":\"a@b.c\"}}",
+                MediaType.APPLICATION_JSON);
+        assertThat(order.getOrderId()).isEqualTo("order-2");
+    }
+
+    @Test
+    void invalidBatchElementsAreReportedAndTheRestOfTheBatchIsRead() throws Exception {
+        String body = String.join("\n",
+                "{\"orderId\":\"order-1\",\"orderType\":\"IN_STORE\",\"storeId\":\"s1\",\"details\":{\"item\":{\"sku\":\"A\",\"quantity\":\"0\"}}}",
+                "{\"orderId\":null,\"orderType\":\"IN_STORE\",\"details\":{\"skipped\":[1,2,3]}}",
+                "{\"orderId\":\"order-3\",\"orderType\":\"IN_STORE\",\"storeId\":\"s1\",\"details\":{\"tags\":[1,2,3,4,5,6,7,8,9,10,11]}}",
+                "{\"orderId\":\"order-4\",\"orderType\":\"IN_STORE\",\"storeId\":\"s1\",\"details\":{\"item\":{\"sku\":\"A\",\"quantity\":2}}}");
+        Recorder recorder = new Recorder();
+
+        int read = transformer.transformBatch(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+                MediaType.APPLICATION_NDJSON, recorder);
+
+        assertThat(read).isEqualTo(4);
+        assertThat(recorder.valid).containsExactly("order-4");
+        assertThat(recorder.invalid).containsExactly(
+                "0 order-1 [details.item: quantity of sku A is not a positive whole number: 0]",
+                "1 null [orderId: is required]",
+                "2 order-3 [details: holds more than 10 values]");
+    }
+
+    @Test
+    void xmlOrdersAreCheckedUnderTheJsonFieldNames() {
+        String xml = "<Order><Header><Id>order-1</Id><Type>IN_STORE</Type></Header>"
+                + "<Details><Item><sku>A</sku><quantity>1</quantity></Item><Item><sku>B</sku><quantity>x</quantity></Item></Details></Order>";
+
+        OrderValidationException e = catchThrowableOfType(OrderValidationException.class,
+                () -> transform(xml, MediaType.APPLICATION_XML));
+
+        assertThat(e.getErrors()).containsExactly(
+                new FieldError("storeId", "is required for IN_STORE orders"),
+                new FieldError("details.Item", "quantity of sku B is not a positive whole number: x"));
+    }
+
+    private OrderRequest transform(String payload, MediaType contentType) throws Exception {
+        return transformer.transform(payload.getBytes(StandardCharsets.UTF_8), contentType);
+    }
+
+    private static class Recorder implements OrderBatchHandler {
+        final List<String> valid = new ArrayList<>();
+        final List<String> invalid = new ArrayList<>();
+
+        @Override
+        public void onOrder(int index, OrderRequest order) {
+            valid.add(order.getOrderId());
+        }
+
+        @Override
+        public void onInvalid(int index, String orderId, List<FieldError> errors) {
+            invalid.add(index + " " + orderId + " " + errors);
+        }
+
+        @Override
+        public void onRejected(int index, String reason) {
+            invalid.add(index + " " + reason);
+        }
+    }
+}